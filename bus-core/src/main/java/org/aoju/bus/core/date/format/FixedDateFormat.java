@@ -0,0 +1,472 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License                                                               *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.core.date.format;
+
+import org.aoju.bus.core.lang.Symbol;
+
+import java.io.IOException;
+import java.text.ParsePosition;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * 定长数字日期格式的快速解析与格式化
+ * 仅支持由 yyyy、MM、dd、HH、mm、ss、SSS、Z 以及字面量组成的格式,
+ * 例如 yyyy-MM-dd HH:mm:ss、yyyyMMddHHmmssSSS、yyyy-MM-dd'T'HH:mm:ss.SSSZ 等,
+ * 解析和格式化过程不使用正则和{@link Calendar},也不产生中间对象
+ * 对于超出快速路径范围的输入(非法字段值、1583年以前、夏令时切换前后等),
+ * 方法返回{@link #NONE}或-1,由调用方退回{@link FastDateParser}/{@link FastDatePrinter}处理,
+ * 以保证结果与原有实现完全一致
+ *
+ * @author Kimi Liu
+ * @version 5.8.6
+ * @since JDK 1.8+
+ */
+public class FixedDateFormat {
+
+    /**
+     * 无法快速解析时的返回值
+     */
+    public static final long NONE = Long.MIN_VALUE;
+
+    private static final long DAY = 86400000L;
+    private static final int LITERAL = 0;
+    private static final int YEAR = 1;
+    private static final int MONTH = 2;
+    private static final int DAY_OF_MONTH = 3;
+    private static final int HOUR = 4;
+    private static final int MINUTE = 5;
+    private static final int SECOND = 6;
+    private static final int MILLISECOND = 7;
+    private static final int OFFSET = 8;
+
+    private final TimeZone timeZone;
+    private final int[] kinds;
+    private final int[] widths;
+    private final char[] literals;
+    /**
+     * 最后一个数字字段后紧跟数字时,{@link FastDateParser}会贪婪匹配更多位数,此时不能走快速路径
+     */
+    private final boolean trailingNumber;
+    /**
+     * 格式化结果的最大长度
+     */
+    private final int maxLength;
+
+    private FixedDateFormat(TimeZone timeZone, int[] kinds, int[] widths, char[] literals) {
+        this.timeZone = timeZone;
+        this.kinds = kinds;
+        this.widths = widths;
+        this.literals = literals;
+        int last = kinds.length == 0 ? LITERAL : kinds[kinds.length - 1];
+        this.trailingNumber = last != LITERAL && last != OFFSET;
+        int length = 0;
+        for (int i = 0; i < kinds.length; i++) {
+            length += kinds[i] == OFFSET ? 6 : kinds[i] == LITERAL ? 1 : widths[i];
+        }
+        this.maxLength = length;
+    }
+
+    /**
+     * 编译格式
+     *
+     * @param pattern  日期格式
+     * @param timeZone 时区
+     * @param locale   地区
+     * @return 快速格式,格式不支持时返回{@code null}
+     */
+    public static FixedDateFormat compile(String pattern, TimeZone timeZone, Locale locale) {
+        // 日本、泰国等地区使用非公历纪年,交由原有实现处理
+        if (Calendar.getInstance(timeZone, locale).getClass() != GregorianCalendar.class) {
+            return null;
+        }
+        int length = pattern.length();
+        int[] kinds = new int[length];
+        int[] widths = new int[length];
+        char[] literals = new char[length];
+        int count = 0;
+        int i = 0;
+        while (i < length) {
+            char c = pattern.charAt(i);
+            if (c == Symbol.C_SINGLE_QUOTE) {
+                int end = pattern.indexOf(Symbol.C_SINGLE_QUOTE, i + 1);
+                if (end < 0) {
+                    return null;
+                }
+                if (end == i + 1) {
+                    literals[count++] = Symbol.C_SINGLE_QUOTE;
+                }
+                for (int j = i + 1; j < end; j++) {
+                    literals[count++] = pattern.charAt(j);
+                }
+                i = end + 1;
+                continue;
+            }
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                int j = i;
+                while (j < length && pattern.charAt(j) == c) j++;
+                int width = j - i;
+                int kind;
+                switch (c) {
+                    case 'y':
+                        kind = width == 4 ? YEAR : -1;
+                        break;
+                    case 'M':
+                        kind = width == 2 ? MONTH : -1;
+                        break;
+                    case 'd':
+                        kind = width == 2 ? DAY_OF_MONTH : -1;
+                        break;
+                    case 'H':
+                        kind = width == 2 ? HOUR : -1;
+                        break;
+                    case 'm':
+                        kind = width == 2 ? MINUTE : -1;
+                        break;
+                    case 's':
+                        kind = width == 2 ? SECOND : -1;
+                        break;
+                    case 'S':
+                        kind = width == 3 ? MILLISECOND : -1;
+                        break;
+                    case 'Z':
+                        kind = width != 2 ? OFFSET : -1;
+                        break;
+                    default:
+                        kind = -1;
+                }
+                if (kind < 0) {
+                    return null;
+                }
+                kinds[count] = kind;
+                widths[count++] = width;
+                i = j;
+                continue;
+            }
+            literals[count++] = c;
+            i++;
+        }
+        int[] k = new int[count];
+        int[] w = new int[count];
+        char[] l = new char[count];
+        System.arraycopy(kinds, 0, k, 0, count);
+        System.arraycopy(widths, 0, w, 0, count);
+        System.arraycopy(literals, 0, l, 0, count);
+        return new FixedDateFormat(timeZone, k, w, l);
+    }
+
+    /**
+     * 解析日期字符串,与{@link FastDateParser#parse(String, ParsePosition)}语义一致
+     *
+     * @param text 日期字符串
+     * @param pos  解析起始位置,成功时更新为结束位置,为{@code null}时从0开始
+     * @return 毫秒数,无法快速解析时返回{@link #NONE}
+     */
+    public long parse(CharSequence text, ParsePosition pos) {
+        int i = pos == null ? 0 : pos.getIndex();
+        final int length = text.length();
+        int year = 1970, month = 1, day = 1, hour = 0, minute = 0, second = 0, millisecond = 0;
+        int offset = 0;
+        boolean zoned = false;
+        for (int t = 0; t < kinds.length; t++) {
+            final int kind = kinds[t];
+            if (kind == LITERAL) {
+                if (i >= length || text.charAt(i) != literals[t]) {
+                    return NONE;
+                }
+                i++;
+            } else if (kind == OFFSET) {
+                if (i + 5 > length) {
+                    return NONE;
+                }
+                final char sign = text.charAt(i);
+                if (sign != Symbol.C_PLUS && sign != Symbol.C_HYPHEN) {
+                    return NONE;
+                }
+                final int hours = digits(text, i + 1, 2);
+                final int minutes;
+                if (text.charAt(i + 3) == Symbol.C_COLON) {
+                    minutes = i + 6 > length ? -1 : digits(text, i + 4, 2);
+                    i += 6;
+                } else {
+                    minutes = digits(text, i + 3, 2);
+                    i += 5;
+                }
+                if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59) {
+                    return NONE;
+                }
+                offset = (hours * 60 + minutes) * 60000;
+                if (sign == Symbol.C_HYPHEN) {
+                    offset = -offset;
+                }
+                zoned = true;
+            } else {
+                final int width = widths[t];
+                if (i + width > length) {
+                    return NONE;
+                }
+                final int value = digits(text, i, width);
+                if (value < 0) {
+                    return NONE;
+                }
+                i += width;
+                switch (kind) {
+                    case YEAR:
+                        year = value;
+                        break;
+                    case MONTH:
+                        month = value;
+                        break;
+                    case DAY_OF_MONTH:
+                        day = value;
+                        break;
+                    case HOUR:
+                        hour = value;
+                        break;
+                    case MINUTE:
+                        minute = value;
+                        break;
+                    case SECOND:
+                        second = value;
+                        break;
+                    default:
+                        millisecond = value;
+                }
+            }
+        }
+        if (trailingNumber && i < length && isDigit(text.charAt(i))) {
+            return NONE;
+        }
+        if (year < 1583 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+                || hour > 23 || minute > 59 || second > 59) {
+            return NONE;
+        }
+        final long local = epochDay(year, month, day) * DAY
+                + ((hour * 60 + minute) * 60 + second) * 1000L + millisecond;
+        final long millis;
+        if (zoned) {
+            millis = local - offset;
+        } else {
+            final int zoneOffset = timeZone.getOffset(local - timeZone.getRawOffset());
+            millis = local - zoneOffset;
+            // 夏令时切换前后的本地时间可能不存在或有歧义,交给Calendar处理
+            if (timeZone.getOffset(millis - DAY) != zoneOffset || timeZone.getOffset(millis + DAY) != zoneOffset) {
+                return NONE;
+            }
+        }
+        if (pos != null) {
+            pos.setIndex(i);
+        }
+        return millis;
+    }
+
+    /**
+     * 格式化到字符数组,与{@link FastDatePrinter#format(long)}结果一致
+     *
+     * @param millis 毫秒数
+     * @param buf    目标数组,剩余长度需不小于{@link #getMaxLength()}
+     * @param start  起始位置
+     * @return 写入的字符数,无法快速格式化时返回-1
+     */
+    public int format(long millis, char[] buf, int start) {
+        final int offset = timeZone.getOffset(millis);
+        final long local = millis + offset;
+        final long epochDay = Math.floorDiv(local, DAY);
+        int rest = (int) Math.floorMod(local, DAY);
+
+        // 公历日期换算,算法参考java.time.LocalDate#ofEpochDay
+        long zeroDay = epochDay + 719528 - 60;
+        long adjust = 0;
+        if (zeroDay < 0) {
+            long cycles = (zeroDay + 1) / 146097 - 1;
+            adjust = cycles * 400;
+            zeroDay += -cycles * 146097;
+        }
+        long yearEst = (400 * zeroDay + 591) / 146097;
+        long doyEst = zeroDay - (365 * yearEst + yearEst / 4 - yearEst / 100 + yearEst / 400);
+        if (doyEst < 0) {
+            yearEst--;
+            doyEst = zeroDay - (365 * yearEst + yearEst / 4 - yearEst / 100 + yearEst / 400);
+        }
+        yearEst += adjust;
+        final int marchDoy0 = (int) doyEst;
+        final int marchMonth0 = (marchDoy0 * 5 + 2) / 153;
+        final int month = (marchMonth0 + 2) % 12 + 1;
+        final int day = marchDoy0 - (marchMonth0 * 306 + 5) / 10 + 1;
+        final long year = yearEst + marchMonth0 / 10;
+        if (year < 1583 || year > 9999) {
+            return -1;
+        }
+
+        final int millisecond = rest % 1000;
+        rest /= 1000;
+        final int second = rest % 60;
+        rest /= 60;
+        final int minute = rest % 60;
+        final int hour = rest / 60;
+
+        int i = start;
+        for (int t = 0; t < kinds.length; t++) {
+            switch (kinds[t]) {
+                case LITERAL:
+                    buf[i++] = literals[t];
+                    break;
+                case YEAR:
+                    i = write(buf, i, (int) year, 4);
+                    break;
+                case MONTH:
+                    i = write(buf, i, month, 2);
+                    break;
+                case DAY_OF_MONTH:
+                    i = write(buf, i, day, 2);
+                    break;
+                case HOUR:
+                    i = write(buf, i, hour, 2);
+                    break;
+                case MINUTE:
+                    i = write(buf, i, minute, 2);
+                    break;
+                case SECOND:
+                    i = write(buf, i, second, 2);
+                    break;
+                case MILLISECOND:
+                    i = write(buf, i, millisecond, 3);
+                    break;
+                default:
+                    int value = offset;
+                    if (value < 0) {
+                        buf[i++] = Symbol.C_HYPHEN;
+                        value = -value;
+                    } else {
+                        buf[i++] = Symbol.C_PLUS;
+                    }
+                    final int hours = value / 3600000;
+                    i = write(buf, i, hours, 2);
+                    if (widths[t] > 1) {
+                        buf[i++] = Symbol.C_COLON;
+                    }
+                    i = write(buf, i, value / 60000 - 60 * hours, 2);
+            }
+        }
+        return i - start;
+    }
+
+    /**
+     * 格式化到{@link Appendable}
+     *
+     * @param millis 毫秒数
+     * @param buf    目标
+     * @return 是否成功,无法快速格式化时返回{@code false}且不写入任何内容
+     * @throws IOException 写入异常
+     */
+    public boolean format(long millis, Appendable buf) throws IOException {
+        final char[] chars = new char[maxLength];
+        final int length = format(millis, chars, 0);
+        if (length < 0) {
+            return false;
+        }
+        if (buf instanceof StringBuilder) {
+            ((StringBuilder) buf).append(chars, 0, length);
+        } else if (buf instanceof StringBuffer) {
+            ((StringBuffer) buf).append(chars, 0, length);
+        } else {
+            for (int i = 0; i < length; i++) {
+                buf.append(chars[i]);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 格式化结果的最大长度
+     *
+     * @return 最大长度
+     */
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int digits(CharSequence text, int start, int width) {
+        int value = 0;
+        for (int i = start; i < start + width; i++) {
+            final char c = text.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int write(char[] buf, int i, int value, int width) {
+        for (int j = i + width - 1; j >= i; j--) {
+            buf[j] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return i + width;
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return isLeapYear(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * 公历日期距1970-01-01的天数,算法参考java.time.LocalDate#toEpochDay
+     */
+    private static long epochDay(int year, int month, int day) {
+        long total = 365L * year;
+        total += (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year)) {
+                total--;
+            }
+        }
+        return total - 719528;
+    }
+
+}
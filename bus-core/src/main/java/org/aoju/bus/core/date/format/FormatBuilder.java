@@ -24,6 +24,10 @@
  ********************************************************************************/
 package org.aoju.bus.core.date.format;
 
+import org.aoju.bus.core.lang.exception.InstrumentException;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.text.*;
 import java.util.Calendar;
 import java.util.Date;
@@ -70,6 +74,14 @@ public class FormatBuilder extends Format implements DateParser, DatePrinter {
 
     private final FastDatePrinter printer;
     private final FastDateParser parser;
+    /**
+     * 是否使用默认世纪解析两位年份,只有此时才启用{@link #fixed}
+     */
+    private final boolean defaultCentury;
+    /**
+     * 定长数字格式的快速实现,格式不支持时为{@code null},反序列化时重建
+     */
+    private transient FixedDateFormat fixed;
 
     /**
      * 构造
@@ -95,6 +107,8 @@ public class FormatBuilder extends Format implements DateParser, DatePrinter {
     protected FormatBuilder(final String pattern, final TimeZone timeZone, final Locale locale, final Date centuryStart) {
         printer = new FastDatePrinter(pattern, timeZone, locale);
         parser = new FastDateParser(pattern, timeZone, locale, centuryStart);
+        defaultCentury = centuryStart == null;
+        fixed = defaultCentury ? FixedDateFormat.compile(pattern, timeZone, locale) : null;
     }
 
     /**
@@ -313,12 +327,19 @@ public class FormatBuilder extends Format implements DateParser, DatePrinter {
 
     @Override
     public String format(final long millis) {
+        if (null != fixed) {
+            final char[] chars = new char[fixed.getMaxLength()];
+            final int length = fixed.format(millis, chars, 0);
+            if (length >= 0) {
+                return new String(chars, 0, length);
+            }
+        }
         return printer.format(millis);
     }
 
     @Override
     public String format(final Date date) {
-        return printer.format(date);
+        return format(date.getTime());
     }
 
     @Override
@@ -328,12 +349,33 @@ public class FormatBuilder extends Format implements DateParser, DatePrinter {
 
     @Override
     public <B extends Appendable> B format(final long millis, final B buf) {
+        if (null != fixed) {
+            try {
+                if (fixed.format(millis, buf)) {
+                    return buf;
+                }
+            } catch (IOException e) {
+                throw new InstrumentException(e);
+            }
+        }
         return printer.format(millis, buf);
     }
 
     @Override
     public <B extends Appendable> B format(final Date date, final B buf) {
-        return printer.format(date, buf);
+        return format(date.getTime(), buf);
+    }
+
+    /**
+     * 格式化到字符数组,仅定长数字格式可用,不产生中间对象
+     *
+     * @param millis 毫秒数
+     * @param buf    目标数组
+     * @param start  起始位置
+     * @return 写入的字符数,格式不支持时返回-1
+     */
+    public int format(final long millis, final char[] buf, final int start) {
+        return null == fixed ? -1 : fixed.format(millis, buf, start);
     }
 
     @Override
@@ -343,14 +385,41 @@ public class FormatBuilder extends Format implements DateParser, DatePrinter {
 
     @Override
     public Date parse(final String source) throws ParseException {
+        if (null != fixed) {
+            final long millis = fixed.parse(source, null);
+            if (millis != FixedDateFormat.NONE) {
+                return new Date(millis);
+            }
+        }
         return parser.parse(source);
     }
 
     @Override
     public Date parse(final String source, final ParsePosition pos) {
+        if (null != fixed) {
+            final long millis = fixed.parse(source, pos);
+            if (millis != FixedDateFormat.NONE) {
+                return new Date(millis);
+            }
+        }
         return parser.parse(source, pos);
     }
 
+    /**
+     * 快速解析完整的日期字符串,仅定长数字格式可用
+     *
+     * @param source 日期字符串
+     * @return 毫秒数,格式不支持或字符串与格式不完全匹配时返回{@link FixedDateFormat#NONE}
+     */
+    public long parseMillis(final CharSequence source) {
+        if (null == fixed) {
+            return FixedDateFormat.NONE;
+        }
+        final ParsePosition pos = new ParsePosition(0);
+        final long millis = fixed.parse(source, pos);
+        return pos.getIndex() == source.length() ? millis : FixedDateFormat.NONE;
+    }
+
     @Override
     public boolean parse(final String source, final ParsePosition pos, final Calendar calendar) {
         return parser.parse(source, pos, calendar);
@@ -405,4 +474,16 @@ public class FormatBuilder extends Format implements DateParser, DatePrinter {
         return "FastDateFormat[" + printer.getPattern() + "," + printer.getLocale() + "," + printer.getTimeZone().getID() + "]";
     }
 
+    /**
+     * 序列化后创建对象,重建瞬态属性
+     *
+     * @param in 对象被反序列化的ObjectInputStream
+     * @throws IOException            如果有IO问题
+     * @throws ClassNotFoundException 如果找不到类
+     */
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        fixed = defaultCentury ? FixedDateFormat.compile(getPattern(), getTimeZone(), getLocale()) : null;
+    }
+
 }
@@ -161,6 +161,10 @@ public class Header {
      * The header If-None-Match
      */
     public static final String IF_NONE_MATCH = "If-None-Match";
+    /**
+     * The header Range
+     */
+    public static final String RANGE = "Range";
     /**
      * The header Sec-WebSocket-Key
      */
@@ -0,0 +1,252 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License                                                               *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.core.lang;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * 编译后正则表达式的共享缓存池
+ * 读操作无锁,命中时只更新条目自身的访问时间,容量超限时按访问时间淘汰最久未使用的一批条目(近似LRU),
+ * 同时记录命中、未命中及淘汰次数,便于观察用户自定义正则的缓存效果
+ *
+ * @author Kimi Liu
+ * @version 5.8.6
+ * @since JDK 1.8+
+ */
+public class PatternPool {
+
+    /**
+     * 默认容量
+     */
+    public static final int DEFAULT_CAPACITY = 512;
+
+    private static final Map<RegexWithFlag, Entry> cache = new ConcurrentHashMap<>();
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static final LongAdder evictions = new LongAdder();
+    private static volatile int capacity = DEFAULT_CAPACITY;
+
+    /**
+     * 先从Pattern池中查找正则对应的{@link Pattern},找不到则编译正则表达式并入池
+     *
+     * @param regex 正则表达式
+     * @return {@link Pattern}
+     */
+    public static Pattern get(String regex) {
+        return get(regex, 0);
+    }
+
+    /**
+     * 先从Pattern池中查找正则对应的{@link Pattern},找不到则编译正则表达式并入池
+     *
+     * @param regex 正则表达式
+     * @param flags 正则标识位集合 {@link Pattern}
+     * @return {@link Pattern}
+     */
+    public static Pattern get(String regex, int flags) {
+        final RegexWithFlag key = new RegexWithFlag(regex, flags);
+        Entry entry = cache.get(key);
+        if (null != entry) {
+            hits.increment();
+            entry.touch();
+            return entry.pattern;
+        }
+        misses.increment();
+        entry = new Entry(Pattern.compile(regex, flags));
+        final Entry previous = cache.putIfAbsent(key, entry);
+        if (null != previous) {
+            return previous.pattern;
+        }
+        if (cache.size() > capacity) {
+            evict();
+        }
+        return entry.pattern;
+    }
+
+    /**
+     * 移除缓存
+     *
+     * @param regex 正则表达式
+     * @param flags 正则标识位集合 {@link Pattern}
+     * @return 移除的{@link Pattern},不存在时返回{@code null}
+     */
+    public static Pattern remove(String regex, int flags) {
+        final Entry entry = cache.remove(new RegexWithFlag(regex, flags));
+        return null == entry ? null : entry.pattern;
+    }
+
+    /**
+     * 清空缓存池
+     */
+    public static void clear() {
+        cache.clear();
+    }
+
+    /**
+     * 设置缓存容量,缩小容量时立即淘汰多余条目
+     *
+     * @param size 容量,必须大于0
+     */
+    public static void setCapacity(int size) {
+        Assert.isTrue(size > 0, "Capacity must be positive");
+        capacity = size;
+        if (cache.size() > size) {
+            evict();
+        }
+    }
+
+    /**
+     * @return 缓存容量
+     */
+    public static int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return 当前缓存的正则数量
+     */
+    public static int size() {
+        return cache.size();
+    }
+
+    /**
+     * @return 命中次数
+     */
+    public static long hitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return 未命中(编译)次数
+     */
+    public static long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return 淘汰次数
+     */
+    public static long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * 淘汰最久未访问的条目,每次多淘汰约1/8容量,避免缓存处于临界值时每次插入都触发扫描
+     */
+    private static synchronized void evict() {
+        final int limit = capacity;
+        final int excess = cache.size() - limit;
+        if (excess <= 0) {
+            return;
+        }
+        // 访问时间在排序期间仍可能被更新,先取快照以保证比较结果稳定
+        final List<Map.Entry<RegexWithFlag, Entry>> entries = new ArrayList<>(cache.entrySet());
+        for (Map.Entry<RegexWithFlag, Entry> entry : entries) {
+            entry.getValue().snapshot = entry.getValue().accessed;
+        }
+        entries.sort((x, y) -> Long.signum(x.getValue().snapshot - y.getValue().snapshot));
+        final int count = Math.min(entries.size(), excess + Math.max(1, limit >> 3));
+        for (int i = 0; i < count; i++) {
+            if (cache.remove(entries.get(i).getKey(), entries.get(i).getValue())) {
+                evictions.increment();
+            }
+        }
+    }
+
+    private static class Entry {
+
+        /**
+         * 访问时间的更新粒度,同一条目在此间隔内的重复命中不再写入,减少热点条目的缓存行争用
+         */
+        private static final long TOUCH_INTERVAL = 1_000_000L;
+
+        private final Pattern pattern;
+        private volatile long accessed;
+        /**
+         * 淘汰排序时的访问时间快照,仅在持有类锁时读写
+         */
+        private long snapshot;
+
+        Entry(Pattern pattern) {
+            this.pattern = pattern;
+            this.accessed = java.lang.System.nanoTime();
+        }
+
+        void touch() {
+            final long now = java.lang.System.nanoTime();
+            if (now - accessed >= TOUCH_INTERVAL) {
+                accessed = now;
+            }
+        }
+
+    }
+
+    /**
+     * 正则表达式和正则标识位的包装
+     */
+    private static class RegexWithFlag {
+
+        private final String regex;
+        private final int flag;
+
+        RegexWithFlag(String regex, int flag) {
+            this.regex = regex;
+            this.flag = flag;
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + flag;
+            result = prime * result + ((regex == null) ? 0 : regex.hashCode());
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            RegexWithFlag other = (RegexWithFlag) obj;
+            if (flag != other.flag) {
+                return false;
+            }
+            if (regex == null) {
+                return other.regex == null;
+            } else return regex.equals(other.regex);
+        }
+
+    }
+
+}
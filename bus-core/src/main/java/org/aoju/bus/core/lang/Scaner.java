@@ -25,6 +25,7 @@
 package org.aoju.bus.core.lang;
 
 import org.aoju.bus.core.lang.exception.InstrumentException;
+import org.aoju.bus.core.loader.IndexLoader;
 import org.aoju.bus.core.utils.*;
 
 import java.io.File;
@@ -263,6 +264,16 @@ public class Scaner {
      * @param jar jar包
      */
     private void scanJar(JarFile jar) {
+        final File file = new File(jar.getName());
+        if (file.isFile()) {
+            // 通过共享索引查找,同一jar包只遍历一次
+            for (String name : IndexLoader.index(file).list(this.packagePath)) {
+                if (name.endsWith(FileType.CLASS)) {
+                    addIfAccept(loadClass(name.substring(0, name.length() - 6).replace(Symbol.C_SLASH, Symbol.C_DOT)));
+                }
+            }
+            return;
+        }
         String name;
         for (JarEntry entry : new IterUtils.EnumerationIter<>(jar.entries())) {
             name = StringUtils.removePrefix(entry.getName(), Symbol.SLASH);
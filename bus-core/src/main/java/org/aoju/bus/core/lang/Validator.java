@@ -520,7 +520,59 @@ public class Validator {
      * @return 否为可用邮箱地址
      */
     public static boolean isEmail(String value) {
-        return isMatchRegex(RegEx.EMAIL, value);
+        if (null == value) {
+            return false;
+        }
+        // 带引号的本地部分和IP字面量域名较少见,仍交给完整的正则处理
+        if (value.indexOf('"') >= 0 || value.indexOf('[') >= 0) {
+            return isMatchRegex(RegEx.EMAIL, value);
+        }
+        final int at = value.indexOf('@');
+        if (at <= 0 || value.indexOf('@', at + 1) >= 0) {
+            return false;
+        }
+        // 本地部分: atext+ ("." atext+)*
+        boolean dot = true;
+        for (int i = 0; i < at; i++) {
+            final char c = value.charAt(i);
+            if (c == '.') {
+                if (dot) {
+                    return false;
+                }
+                dot = true;
+            } else if (isAlphanumeric(c) || "!#$%&'*+/=?^_`{|}~-".indexOf(c) >= 0) {
+                dot = false;
+            } else {
+                return false;
+            }
+        }
+        if (dot) {
+            return false;
+        }
+        // 域名部分: 至少两段,每段以字母或数字开头和结尾,中间可含'-'
+        int labels = 0;
+        int start = at + 1;
+        final int length = value.length();
+        while (true) {
+            int end = value.indexOf('.', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (end == start || value.charAt(start) == '-' || value.charAt(end - 1) == '-') {
+                return false;
+            }
+            for (int i = start; i < end; i++) {
+                final char c = value.charAt(i);
+                if (c != '-' && false == isAlphanumeric(c)) {
+                    return false;
+                }
+            }
+            labels++;
+            if (end == length) {
+                return labels > 1;
+            }
+            start = end + 1;
+        }
     }
 
     /**
@@ -553,7 +605,21 @@ public class Validator {
      * @return 是否为手机号码（中国）
      */
     public static boolean isMobile(String value) {
-        return isMatchRegex(RegEx.MOBILE, value);
+        if (null == value) {
+            return false;
+        }
+        // 等价于 (?:0|86|\+86)?1[3456789]\d{9}
+        final int length = value.length();
+        if (length == 11) {
+            return isMobileNumber(value, 0);
+        } else if (length == 12) {
+            return value.charAt(0) == '0' && isMobileNumber(value, 1);
+        } else if (length == 13) {
+            return value.charAt(0) == '8' && value.charAt(1) == '6' && isMobileNumber(value, 2);
+        } else if (length == 14) {
+            return value.startsWith("+86") && isMobileNumber(value, 3);
+        }
+        return false;
     }
 
     /**
@@ -577,7 +643,25 @@ public class Validator {
      * @return 是否为身份证号码（18位中国）
      */
     public static boolean isCitizenId(String value) {
-        return isMatchRegex(RegEx.CITIZEN_ID, value);
+        // 等价于 [1-9]\d{5}[1-2]\d{3}((0\d)|(1[0-2]))(([012]\d)|3[0-1])\d{3}(\d|X|x)
+        if (null == value || value.length() != 18) {
+            return false;
+        }
+        for (int i = 0; i < 17; i++) {
+            if (false == isDigit(value.charAt(i))) {
+                return false;
+            }
+        }
+        final char last = value.charAt(17);
+        if (false == isDigit(last) && last != 'X' && last != 'x') {
+            return false;
+        }
+        final char month = value.charAt(10);
+        final char day = value.charAt(12);
+        return value.charAt(0) != '0'
+                && (value.charAt(6) == '1' || value.charAt(6) == '2')
+                && (month == '0' || (month == '1' && value.charAt(11) <= '2'))
+                && (day <= '2' || (day == '3' && value.charAt(13) <= '1'));
     }
 
     /**
@@ -676,7 +760,39 @@ public class Validator {
      * @return 是否为IPV4地址
      */
     public static boolean isIpv4(String value) {
-        return isMatchRegex(RegEx.IPV4, value);
+        if (null == value) {
+            return false;
+        }
+        // 等价于RegEx.IPV4: 每段为1~2位数字,或100~255的3位数字
+        int start = 0;
+        for (int part = 0; part < 4; part++) {
+            int end = value.indexOf('.', start);
+            if (part == 3) {
+                if (end >= 0) {
+                    return false;
+                }
+                end = value.length();
+            } else if (end < 0) {
+                return false;
+            }
+            final int width = end - start;
+            if (width < 1 || width > 3) {
+                return false;
+            }
+            int number = 0;
+            for (int i = start; i < end; i++) {
+                final char c = value.charAt(i);
+                if (false == isDigit(c)) {
+                    return false;
+                }
+                number = number * 10 + (c - '0');
+            }
+            if (width == 3 && (number < 100 || number > 255)) {
+                return false;
+            }
+            start = end + 1;
+        }
+        return true;
     }
 
     /**
@@ -975,4 +1091,28 @@ public class Validator {
         }
     }
 
+    private static boolean isMobileNumber(String value, int start) {
+        if (value.charAt(start) != '1') {
+            return false;
+        }
+        final char second = value.charAt(start + 1);
+        if (second < '3' || second > '9') {
+            return false;
+        }
+        for (int i = start + 2; i < value.length(); i++) {
+            if (false == isDigit(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isAlphanumeric(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || isDigit(c);
+    }
+
 }
@@ -0,0 +1,493 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License                                                               *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.core.loader;
+
+import org.aoju.bus.core.io.resource.Resource;
+import org.aoju.bus.core.io.resource.UriResource;
+import org.aoju.bus.core.lang.Charset;
+import org.aoju.bus.core.lang.Normal;
+import org.aoju.bus.core.lang.Symbol;
+import org.aoju.bus.core.utils.ClassUtils;
+import org.aoju.bus.core.utils.UriUtils;
+
+import java.io.*;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * 索引资源加载器
+ * 每个jar包/目录只扫描一次,扫描结果以有序条目名称数组的形式缓存,
+ * 之后的加载只需在索引上做前缀查找,不再重复遍历jar包或目录
+ * 同时支持将jar包索引持久化到文件,下次启动时只要jar包的修改时间与大小未变化即可直接复用
+ *
+ * @author Kimi Liu
+ * @version 5.8.6
+ * @since JDK 1.8+
+ */
+public class IndexLoader extends ResourceLoader implements Loader {
+
+    /**
+     * 进程内共享的索引缓存,key为jar包/目录的绝对路径
+     */
+    private static final Map<String, Index> INDEXES = new ConcurrentHashMap<>();
+
+    private final ClassLoader classLoader;
+    private final File store;
+
+    public IndexLoader() {
+        this(Thread.currentThread().getContextClassLoader() != null ? Thread.currentThread().getContextClassLoader() : ClassLoader.getSystemClassLoader());
+    }
+
+    public IndexLoader(ClassLoader classLoader) {
+        this(classLoader, null);
+    }
+
+    /**
+     * 构造
+     *
+     * @param classLoader 类加载器
+     * @param store       索引持久化文件,为{@code null}时不做持久化,文件损坏时将被删除并在使用时重新扫描
+     */
+    public IndexLoader(ClassLoader classLoader, File store) {
+        if (classLoader == null) {
+            throw new IllegalArgumentException("classLoader must not be null");
+        }
+        this.classLoader = classLoader;
+        this.store = store;
+        if (store != null && store.isFile()) {
+            try {
+                restore(store);
+            } catch (IOException e) {
+                // 索引文件只是缓存,损坏时丢弃,由后续加载重新扫描
+                store.delete();
+            }
+        }
+    }
+
+    /**
+     * 获取jar包或目录的索引,索引不存在或已过期时重新扫描
+     *
+     * @param root jar包或目录
+     * @return 索引
+     */
+    public static Index index(File root) {
+        String key = root.getAbsolutePath();
+        Index index = INDEXES.get(key);
+        if (index == null || index.isStale()) {
+            index = Index.scan(root);
+            INDEXES.put(key, index);
+        }
+        return index;
+    }
+
+    /**
+     * 并行扫描多个jar包或目录,已存在且未过期的索引不会重复扫描
+     *
+     * @param roots jar包或目录
+     */
+    public static void index(Collection<File> roots) {
+        roots.parallelStream().filter(File::exists).forEach(IndexLoader::index);
+    }
+
+    /**
+     * 获取因无法读取而按空索引处理的jar包
+     *
+     * @return jar包
+     */
+    public static List<File> getSkipped() {
+        List<File> skipped = new ArrayList<>();
+        for (Index index : INDEXES.values()) {
+            if (!index.readable) {
+                skipped.add(index.root);
+            }
+        }
+        return skipped;
+    }
+
+    /**
+     * 清空进程内的索引缓存
+     */
+    public static void clear() {
+        INDEXES.clear();
+    }
+
+    /**
+     * 从文件中恢复jar包索引,jar包修改时间或大小已变化的条目将被忽略
+     * 文件格式有误时不恢复任何条目
+     *
+     * @param file 索引文件
+     * @throws IOException I/O 异常或文件格式有误
+     */
+    public static void restore(File file) throws IOException {
+        List<Index> indexes = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), Charset.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.startsWith(Symbol.SHAPE)) {
+                    continue;
+                }
+                String[] header = line.substring(1).split(Symbol.TAB);
+                if (header.length != 4) {
+                    throw new IOException("Malformed index header: " + line);
+                }
+                long lastModified;
+                long length;
+                int count;
+                try {
+                    lastModified = Long.parseLong(header[1]);
+                    length = Long.parseLong(header[2]);
+                    count = Integer.parseInt(header[3]);
+                } catch (NumberFormatException e) {
+                    throw new IOException("Malformed index header: " + line, e);
+                }
+                if (count < 0) {
+                    throw new IOException("Malformed index header: " + line);
+                }
+                // 条目数可能已损坏,按实际读取的行数分配
+                List<String> names = new ArrayList<>();
+                for (int i = 0; i < count; i++) {
+                    String name = reader.readLine();
+                    if (name == null) {
+                        throw new IOException("Unexpected end of index: " + file);
+                    }
+                    names.add(name);
+                }
+                indexes.add(new Index(new File(header[0]), lastModified, length, names.toArray(new String[0])));
+            }
+        }
+        for (Index index : indexes) {
+            if (!index.isStale()) {
+                INDEXES.putIfAbsent(index.root.getAbsolutePath(), index);
+            }
+        }
+    }
+
+    /**
+     * 将当前所有jar包索引写入文件,目录索引及无法读取的jar包不做持久化
+     *
+     * @param file 索引文件
+     * @throws IOException I/O 异常
+     */
+    public static void store(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Could not create directory: " + parent);
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(temp), Charset.UTF_8))) {
+            for (Index index : INDEXES.values()) {
+                if (!index.root.isFile() || !index.readable) {
+                    continue;
+                }
+                writer.write(Symbol.SHAPE + index.root.getAbsolutePath() + Symbol.C_TAB
+                        + index.lastModified + Symbol.C_TAB + index.length + Symbol.C_TAB + index.names.length);
+                writer.write(Symbol.C_LF);
+                for (String name : index.names) {
+                    writer.write(name);
+                    writer.write(Symbol.C_LF);
+                }
+            }
+        }
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Could not replace index: " + file);
+        }
+        if (!temp.renameTo(file)) {
+            throw new IOException("Could not rename " + temp + " to " + file);
+        }
+    }
+
+    /**
+     * 并行预先扫描java.class.path下所有的jar包和目录
+     *
+     * @return this
+     */
+    public IndexLoader prepare() {
+        List<File> roots = new ArrayList<>();
+        for (String path : ClassUtils.getJavaClassPaths()) {
+            if (path.length() > 0) {
+                roots.add(new File(path));
+            }
+        }
+        index(roots);
+        return this;
+    }
+
+    /**
+     * 将当前索引写入构造时指定的索引文件
+     *
+     * @throws IOException I/O 异常
+     */
+    public void store() throws IOException {
+        if (store == null) {
+            throw new IllegalStateException("store file is not specified");
+        }
+        store(store);
+    }
+
+    public Enumeration<Resource> load(String path, boolean recursively, Filter filter) throws IOException {
+        while (path.startsWith(Symbol.SLASH)) path = path.substring(1);
+        while (path.endsWith(Symbol.SLASH)) path = path.substring(0, path.length() - 1);
+        return new Enumerator(classLoader, path, recursively, filter != null ? filter : Filters.ALWAYS);
+    }
+
+    /**
+     * jar包或目录的条目索引
+     */
+    public static final class Index {
+
+        private final File root;
+        private final long lastModified;
+        private final long length;
+        /**
+         * 有序的条目名称,不包含目录条目,分隔符统一为'/'
+         */
+        private final String[] names;
+        /**
+         * 目录索引扫描到的全部子目录及其修改时间,任一子目录增删条目都会使索引过期
+         */
+        private final File[] folders;
+        private final long[] folderModified;
+        /**
+         * jar包是否可以正常读取,无法读取时索引为空
+         */
+        private final boolean readable;
+
+        Index(File root, long lastModified, long length, String[] names) {
+            this(root, lastModified, length, names, new File[0], new long[0], true);
+        }
+
+        Index(File root, long lastModified, long length, String[] names, File[] folders, long[] folderModified, boolean readable) {
+            this.root = root;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.names = names;
+            this.folders = folders;
+            this.folderModified = folderModified;
+            this.readable = readable;
+        }
+
+        static Index scan(File root) {
+            List<String> list = new ArrayList<>();
+            List<File> folders = new ArrayList<>();
+            boolean readable = true;
+            if (root.isDirectory()) {
+                Deque<File> queue = new ArrayDeque<>();
+                queue.push(root);
+                int offset = root.getAbsolutePath().length() + 1;
+                while (!queue.isEmpty()) {
+                    File[] files = queue.pop().listFiles();
+                    for (int i = 0; files != null && i < files.length; i++) {
+                        if (files[i].isDirectory()) {
+                            queue.push(files[i]);
+                            folders.add(files[i]);
+                        } else {
+                            list.add(files[i].getAbsolutePath().substring(offset).replace(File.separatorChar, Symbol.C_SLASH));
+                        }
+                    }
+                }
+            } else if (root.isFile()) {
+                try (JarFile jarFile = new JarFile(root)) {
+                    Enumeration<JarEntry> entries = jarFile.entries();
+                    while (entries.hasMoreElements()) {
+                        JarEntry entry = entries.nextElement();
+                        if (!entry.isDirectory()) {
+                            String name = entry.getName();
+                            list.add(name.startsWith(Symbol.SLASH) ? name.substring(1) : name);
+                        }
+                    }
+                } catch (IOException e) {
+                    // 无法读取的jar包按空索引处理,可通过getSkipped获取,jar包变化后重新扫描
+                    readable = false;
+                    list.clear();
+                }
+            }
+            String[] names = list.toArray(new String[0]);
+            Arrays.sort(names);
+            File[] dirs = folders.toArray(new File[0]);
+            long[] modified = new long[dirs.length];
+            for (int i = 0; i < dirs.length; i++) {
+                modified[i] = dirs[i].lastModified();
+            }
+            return new Index(root, root.lastModified(), root.isFile() ? root.length() : 0, names, dirs, modified, readable);
+        }
+
+        /**
+         * 索引是否已过期,jar包以修改时间和大小判断,目录以其本身及各级子目录的修改时间判断
+         *
+         * @return 是否过期
+         */
+        public boolean isStale() {
+            if (root.lastModified() != lastModified
+                    || (root.isFile() ? root.length() : 0) != length) {
+                return true;
+            }
+            for (int i = 0; i < folders.length; i++) {
+                if (folders[i].lastModified() != folderModified[i]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * 获取所有以指定前缀开头的条目名称
+         *
+         * @param prefix 前缀
+         * @return 条目名称
+         */
+        public List<String> list(String prefix) {
+            int from = Arrays.binarySearch(names, prefix);
+            if (from < 0) from = -from - 1;
+            int to = from;
+            while (to < names.length && names[to].startsWith(prefix)) to++;
+            return Collections.unmodifiableList(Arrays.asList(names).subList(from, to));
+        }
+
+        /**
+         * 获取指定路径下的条目名称,语义与{@link JarLoader}一致
+         *
+         * @param path        路径
+         * @param recursively 递归加载
+         * @return 条目名称
+         */
+        public List<String> list(String path, boolean recursively) {
+            String folder = path.length() == 0 ? path : path + Symbol.SLASH;
+            List<String> result = new ArrayList<>();
+            if (path.length() > 0 && Arrays.binarySearch(names, path) >= 0) {
+                result.add(path);
+            }
+            for (String name : list(folder)) {
+                if (recursively || name.indexOf(Symbol.C_SLASH, folder.length()) < 0) {
+                    result.add(name);
+                }
+            }
+            return result;
+        }
+
+        public File getRoot() {
+            return root;
+        }
+
+        public int size() {
+            return names.length;
+        }
+
+        public boolean isReadable() {
+            return readable;
+        }
+
+    }
+
+    private static class Enumerator extends ResourceEnumerator implements Enumeration<Resource> {
+
+        private final String path;
+        private final boolean recursively;
+        private final Filter filter;
+        private final Enumeration<URL> urls;
+        private URL context;
+        private Iterator<String> names;
+        private Enumeration<Resource> resources;
+
+        Enumerator(ClassLoader classLoader, String path, boolean recursively, Filter filter) throws IOException {
+            this.path = path;
+            this.recursively = recursively;
+            this.filter = filter;
+            this.urls = load(classLoader, path);
+            this.names = Collections.emptyIterator();
+            this.resources = Collections.emptyEnumeration();
+        }
+
+        private Enumeration<URL> load(ClassLoader classLoader, String path) throws IOException {
+            if (path.length() > 0) {
+                return classLoader.getResources(path);
+            } else {
+                Set<URL> set = new LinkedHashSet<>();
+                set.add(classLoader.getResource(path));
+                Enumeration<URL> urls = classLoader.getResources(Normal.META_DATA_INF + Symbol.C_SLASH);
+                while (urls.hasMoreElements()) {
+                    URL url = urls.nextElement();
+                    if (url.getProtocol().equalsIgnoreCase(Normal.URL_PROTOCOL_JAR)) {
+                        String spec = url.toString();
+                        int index = spec.lastIndexOf(Normal.JAR_URL_SEPARATOR);
+                        if (index < 0) continue;
+                        set.add(new URL(url, spec.substring(0, index + Normal.JAR_URL_SEPARATOR.length())));
+                    }
+                }
+                return Collections.enumeration(set);
+            }
+        }
+
+        public boolean hasMoreElements() {
+            if (next != null) {
+                return true;
+            }
+            try {
+                while (true) {
+                    while (names.hasNext()) {
+                        String name = names.next();
+                        URL url = new URL(context, UriUtils.encodePath(name, Charset.UTF_8));
+                        if (filter.filtrate(name, url)) {
+                            next = new UriResource(url, name);
+                            return true;
+                        }
+                    }
+                    if (resources.hasMoreElements()) {
+                        next = resources.nextElement();
+                        return true;
+                    }
+                    if (!urls.hasMoreElements()) {
+                        return false;
+                    }
+                    URL url = urls.nextElement();
+                    String protocol = url.getProtocol();
+                    String uri = UriUtils.decode(url.getPath(), Charset.UTF_8);
+                    String root = uri.substring(0, uri.lastIndexOf(path));
+                    if (Normal.URL_PROTOCOL_FILE.equalsIgnoreCase(protocol)) {
+                        context = new URL(url, "file:" + UriUtils.encodePath(root, Charset.UTF_8));
+                        names = index(new File(root)).list(path, recursively).iterator();
+                    } else if (Normal.URL_PROTOCOL_JAR.equalsIgnoreCase(protocol)) {
+                        context = new URL(url, "jar:" + UriUtils.encodePath(root, Charset.UTF_8));
+                        String jar = root.substring(0, root.lastIndexOf(Normal.JAR_URL_SEPARATOR));
+                        if (jar.startsWith("file:") && !jar.contains(Normal.JAR_URL_SEPARATOR)) {
+                            names = index(new File(jar.substring(5))).list(path, recursively).iterator();
+                        } else {
+                            // 嵌套的jar包无法直接建立索引,退化为逐条目遍历
+                            JarFile jarFile = ((JarURLConnection) url.openConnection()).getJarFile();
+                            resources = new JarLoader(context, jarFile).load(path, recursively, filter);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+    }
+
+}
@@ -65,6 +65,29 @@ public abstract class Loaders {
         return new StdLoader(classLoader);
     }
 
+    /**
+     * 创建带索引的 classpath 资源加载器,每个jar包/目录只扫描一次,后续加载直接查询索引
+     * 示例：
+     * <p>1. Loaders.pkg(Loaders.index()).load("org.aoju", true); 通过索引加载"org.aoju"包下的所有资源 </p>
+     *
+     * @return 带索引的 classpath 资源加载器
+     */
+    public static Loader index() {
+        return new IndexLoader();
+    }
+
+    /**
+     * 创建带索引的 classpath 资源加载器,并将jar包索引持久化到指定文件,
+     * 下次启动时jar包未变化则直接复用索引
+     *
+     * @param classLoader 加载器
+     * @param store       索引文件
+     * @return 带索引的 classpath 资源加载器
+     */
+    public static IndexLoader index(ClassLoader classLoader, File store) {
+        return new IndexLoader(classLoader, store);
+    }
+
     /**
      * 创建按包名来加载的资源加载器,这是一个委派加载器,自身并没有资源加载逻辑而是委派给实际的资源加载器,
      * 在这个创建方法中,实际委派给{@link Loaders#std()}资源加载器
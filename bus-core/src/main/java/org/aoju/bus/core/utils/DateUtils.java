@@ -31,6 +31,7 @@ import org.aoju.bus.core.date.TimeInterval;
 import org.aoju.bus.core.date.format.DateParser;
 import org.aoju.bus.core.date.format.DatePeriod;
 import org.aoju.bus.core.date.format.DatePrinter;
+import org.aoju.bus.core.date.format.FixedDateFormat;
 import org.aoju.bus.core.date.format.FormatBuilder;
 import org.aoju.bus.core.lang.Fields;
 import org.aoju.bus.core.lang.Normal;
@@ -831,6 +832,11 @@ public class DateUtils {
         if (StringUtils.isBlank(dateCharSequence)) {
             return null;
         }
+        // 常用定长格式直接快速解析,不匹配时走下面的通用流程
+        final DateTime fast = parseFast(dateCharSequence);
+        if (null != fast) {
+            return fast;
+        }
         String dateStr = dateCharSequence.toString();
         // 去掉两边空格并去掉中文日期中的“日”和“秒”，以规范长度
         dateStr = StringUtils.removeAll(dateStr.trim(), '日', '秒');
@@ -846,6 +852,9 @@ public class DateUtils {
                 return parse(dateStr, Fields.PURE_DATE_FORMAT);
             } else if (length == Fields.PURE_TIME_PATTERN.length()) {
                 return parse(dateStr, Fields.PURE_TIME_FORMAT);
+            } else if (length == 13 && isDigits(dateStr)) {
+                // 毫秒时间戳
+                return new DateTime(Long.parseLong(dateStr));
             }
         } else if (PatternUtils.isMatch(RegEx.TIME, dateStr)) {
             // HH:mm:ss 或者 HH:mm 时间格式匹配单独解析
@@ -878,6 +887,53 @@ public class DateUtils {
         throw new InstrumentException("No format fit for date String [{}] !", dateStr);
     }
 
+    /**
+     * 按长度选择常用定长格式快速解析，支持：
+     * <ol>
+     * <li>yyyy-MM-dd</li>
+     * <li>yyyy-MM-dd HH:mm:ss</li>
+     * <li>yyyy-MM-dd HH:mm:ss.SSS</li>
+     * <li>yyyy-MM-dd'T'HH:mm:ss'Z'</li>
+     * <li>yyyy-MM-dd'T'HH:mm:ss.SSS'Z'</li>
+     * <li>yyyy-MM-dd'T'HH:mm:ssZ</li>
+     * <li>yyyy-MM-dd'T'HH:mm:ss.SSSZ</li>
+     * </ol>
+     *
+     * @param dateStr 日期字符串
+     * @return 日期，不匹配时返回{@code null}
+     */
+    private static DateTime parseFast(CharSequence dateStr) {
+        final FormatBuilder format;
+        switch (dateStr.length()) {
+            case 10:
+                format = Fields.NORM_DATE_FORMAT;
+                break;
+            case 19:
+                format = Fields.NORM_DATETIME_FORMAT;
+                break;
+            case 20:
+                format = Fields.UTC_FORMAT;
+                break;
+            case 23:
+                format = Fields.NORM_DATETIME_MS_FORMAT;
+                break;
+            case 24:
+                format = dateStr.charAt(23) == 'Z' ? Fields.OUTPUT_MSEC_FORMAT : Fields.WITH_ZONE_OFFSET_FORMAT;
+                break;
+            case 25:
+                format = Fields.WITH_ZONE_OFFSET_FORMAT;
+                break;
+            case 28:
+            case 29:
+                format = Fields.MSEC_FORMAT;
+                break;
+            default:
+                return null;
+        }
+        final long millis = format.parseMillis(dateStr);
+        return millis == FixedDateFormat.NONE ? null : new DateTime(millis, format.getTimeZone());
+    }
+
     /**
      * 构建LocalDateTime对象
      *
@@ -3674,4 +3730,19 @@ public class DateUtils {
         return result;
     }
 
+    /**
+     * 是否全部为数字字符
+     *
+     * @param str 字符串
+     * @return 是否全部为数字
+     */
+    private static boolean isDigits(String str) {
+        for (int i = 0; i < str.length(); i++) {
+            if (false == CharUtils.isNumber(str.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
 }
@@ -30,10 +30,10 @@ import org.aoju.bus.core.lang.exception.InstrumentException;
 
 import java.awt.geom.Point2D;
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.List;
+import java.util.*;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.stream.IntStream;
 
 /**
  * 地理区域坐标距离计算工具类
@@ -51,6 +51,23 @@ public class GeoUtils {
 
     private static final double EE = 0.00669342162296594323;
 
+    /**
+     * GeoHash编码字符表
+     */
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    /**
+     * GeoHash字符反查表
+     */
+    private static final byte[] BASE32_INDEX = new byte[128];
+
+    static {
+        Arrays.fill(BASE32_INDEX, (byte) -1);
+        for (int i = 0; i < BASE32.length; i++) {
+            BASE32_INDEX[BASE32[i]] = (byte) i;
+        }
+    }
+
     /**
      * @param d 值
      * @return 弧度单位
@@ -124,6 +141,109 @@ public class GeoUtils {
         return circle.contains(point);
     }
 
+    /**
+     * 计算坐标点的GeoHash编码,相邻的点通常具有相同的前缀
+     *
+     * @param point     坐标点
+     * @param precision 编码长度(1-12),长度越大精度越高,如:6位约为1.2km*0.6km,8位约为38m*19m
+     * @return GeoHash编码
+     */
+    public static String geohash(Point point, int precision) {
+        if (precision < 1 || precision > 12) {
+            throw new InstrumentException("Invalid geohash precision: {}", precision);
+        }
+        double minLon = -180, maxLon = 180, minLat = -90, maxLat = 90;
+        final char[] chars = new char[precision];
+        boolean even = true;
+        for (int i = 0; i < precision; i++) {
+            int ch = 0;
+            for (int bit = 0; bit < 5; bit++) {
+                ch <<= 1;
+                if (even) {
+                    final double mid = (minLon + maxLon) / 2;
+                    if (point.longitude >= mid) {
+                        ch |= 1;
+                        minLon = mid;
+                    } else {
+                        maxLon = mid;
+                    }
+                } else {
+                    final double mid = (minLat + maxLat) / 2;
+                    if (point.latitude >= mid) {
+                        ch |= 1;
+                        minLat = mid;
+                    } else {
+                        maxLat = mid;
+                    }
+                }
+                even = !even;
+            }
+            chars[i] = BASE32[ch];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 解码GeoHash,返回编码所代表的矩形区域
+     *
+     * @param geohash GeoHash编码
+     * @return 矩形区域, 可通过{@link Bounds#getCenter()}取得中心点
+     */
+    public static Bounds geohash(String geohash) {
+        if (StringUtils.isEmpty(geohash)) {
+            throw new InstrumentException("Geohash must not be empty");
+        }
+        double minLon = -180, maxLon = 180, minLat = -90, maxLat = 90;
+        boolean even = true;
+        for (int i = 0; i < geohash.length(); i++) {
+            final char c = Character.toLowerCase(geohash.charAt(i));
+            final int ch = c < 128 ? BASE32_INDEX[c] : -1;
+            if (ch < 0) {
+                throw new InstrumentException("Invalid geohash: {}", geohash);
+            }
+            for (int bit = 4; bit >= 0; bit--) {
+                final boolean on = ((ch >> bit) & 1) == 1;
+                if (even) {
+                    final double mid = (minLon + maxLon) / 2;
+                    if (on) {
+                        minLon = mid;
+                    } else {
+                        maxLon = mid;
+                    }
+                } else {
+                    final double mid = (minLat + maxLat) / 2;
+                    if (on) {
+                        minLat = mid;
+                    } else {
+                        maxLat = mid;
+                    }
+                }
+                even = !even;
+            }
+        }
+        return new Bounds(new Point(minLon, minLat), new Point(maxLon, maxLat));
+    }
+
+    /**
+     * 对多边形区域建立空间索引,用于批量判断点落在哪些区域内
+     *
+     * @param polygons 多边形区域
+     * @return 空间索引
+     */
+    public static Index<Polygon> index(Collection<Polygon> polygons) {
+        return new Index<>(polygons, Polygon::getBounds, Polygon::in);
+    }
+
+    /**
+     * 对坐标点建立空间索引,用于查询指定范围内的点
+     *
+     * @param points 坐标点
+     * @return 空间索引
+     */
+    public static Index<Point> indexPoints(Collection<Point> points) {
+        return new Index<>(points, point -> new Bounds(point, point), Point::equals);
+    }
+
     /**
      * 坐标点类型
      *
@@ -377,6 +497,15 @@ public class GeoUtils {
             return Math.round(2 * Math.asin(Math.sqrt(Math.pow(Math.sin((_lat1 - _lat2) / 2), 2) + Math.cos(_lat1) * Math.cos(_lat2) * Math.pow(Math.sin(_diff / 2), 2))) * EARTH_RADIUS * 10000) / 10000;
         }
 
+        /**
+         * @param precision 编码长度(1-12)
+         * @return GeoHash编码
+         * @see GeoUtils#geohash(Point, int)
+         */
+        public String geohash(int precision) {
+            return GeoUtils.geohash(this, precision);
+        }
+
         /**
          * @return 验证是否为合法有效的经纬度
          */
@@ -681,6 +810,24 @@ public class GeoUtils {
             return points;
         }
 
+        /**
+         * @return 多边形的外包矩形, 多边形为空时返回空矩形
+         */
+        public Bounds getBounds() {
+            if (points.isEmpty()) {
+                return new Bounds();
+            }
+            double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+            for (Point point : points) {
+                minX = Math.min(minX, point.longitude);
+                minY = Math.min(minY, point.latitude);
+                maxX = Math.max(maxX, point.longitude);
+                maxY = Math.max(maxY, point.latitude);
+            }
+            return new Bounds(new Point(minX, minY), new Point(maxX, maxY));
+        }
+
         public boolean in(Point point) {
             int nCross = 0;
             for (int i = 0; i < points.size(); i++) {
@@ -730,4 +877,224 @@ public class GeoUtils {
         }
     }
 
-}
\ No newline at end of file
+
+    /**
+     * 地理空间索引
+     * <p>
+     * 采用STR(Sort-Tile-Recursive)批量装载的静态R树,构建后不可修改;
+     * 查询时先以外包矩形筛选候选对象,再做精确判断,避免对全部区域逐一扫描
+     *
+     * @param <T> 索引对象类型
+     */
+    public static class Index<T> {
+
+        /**
+         * 每个节点的子节点数
+         */
+        private static final int NODE_SIZE = 16;
+
+        /**
+         * 按STR顺序排列的索引对象
+         */
+        private final Object[] items;
+
+        /**
+         * 各层节点的外包矩形,每个节点依次为 minX,minY,maxX,maxY,下标0为叶子层
+         */
+        private final double[][] levels;
+
+        /**
+         * 点与对象的精确判断
+         */
+        private final BiPredicate<T, Point> predicate;
+
+        /**
+         * 构造并批量装载索引
+         *
+         * @param items     索引对象
+         * @param bounds    对象的外包矩形
+         * @param predicate 点是否位于对象内的精确判断
+         */
+        public Index(Collection<T> items, Function<T, Bounds> bounds, BiPredicate<T, Point> predicate) {
+            this.predicate = predicate;
+            final int size = items.size();
+            final List<T> source = new ArrayList<>(items);
+            final double[] boxes = new double[size * 4];
+            for (int i = 0; i < size; i++) {
+                final Bounds box = bounds.apply(source.get(i));
+                if (box == null || box.isEmpty()) {
+                    throw new InstrumentException("Bounds of item {} is empty", i);
+                }
+                boxes[i * 4] = box.southWest.longitude;
+                boxes[i * 4 + 1] = box.southWest.latitude;
+                boxes[i * 4 + 2] = box.northEast.longitude;
+                boxes[i * 4 + 3] = box.northEast.latitude;
+            }
+
+            // 先按中心经度排序切分为竖条,竖条内再按中心纬度排序
+            final Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparingDouble(i -> boxes[i * 4] + boxes[i * 4 + 2]));
+            final int leaves = (size + NODE_SIZE - 1) / NODE_SIZE;
+            final int slice = (int) Math.ceil(Math.sqrt(leaves)) * NODE_SIZE;
+            for (int from = 0; from < size; from += slice) {
+                Arrays.sort(order, from, Math.min(from + slice, size), Comparator.comparingDouble(i -> boxes[i * 4 + 1] + boxes[i * 4 + 3]));
+            }
+
+            this.items = new Object[size];
+            final double[] leaf = new double[size * 4];
+            for (int i = 0; i < size; i++) {
+                this.items[i] = source.get(order[i]);
+                System.arraycopy(boxes, order[i] * 4, leaf, i * 4, 4);
+            }
+
+            // 自底向上逐层合并,直到只剩根节点
+            final List<double[]> list = new ArrayList<>();
+            list.add(leaf);
+            double[] level = leaf;
+            while (level.length > 4) {
+                final int count = level.length / 4;
+                final double[] parent = new double[((count + NODE_SIZE - 1) / NODE_SIZE) * 4];
+                for (int i = 0; i < count; i++) {
+                    final int p = (i / NODE_SIZE) * 4;
+                    if (i % NODE_SIZE == 0) {
+                        System.arraycopy(level, i * 4, parent, p, 4);
+                    } else {
+                        parent[p] = Math.min(parent[p], level[i * 4]);
+                        parent[p + 1] = Math.min(parent[p + 1], level[i * 4 + 1]);
+                        parent[p + 2] = Math.max(parent[p + 2], level[i * 4 + 2]);
+                        parent[p + 3] = Math.max(parent[p + 3], level[i * 4 + 3]);
+                    }
+                }
+                list.add(parent);
+                level = parent;
+            }
+            this.levels = list.toArray(new double[0][]);
+        }
+
+        /**
+         * @return 索引对象数量
+         */
+        public int size() {
+            return items.length;
+        }
+
+        /**
+         * 查询外包矩形与指定矩形相交的对象
+         *
+         * @param bounds 矩形区域
+         * @return 候选对象, 未做精确判断
+         */
+        public List<T> search(Bounds bounds) {
+            final List<T> result = new ArrayList<>();
+            if (bounds != null && !bounds.isEmpty()) {
+                search(bounds.southWest.longitude, bounds.southWest.latitude,
+                        bounds.northEast.longitude, bounds.northEast.latitude, null, result);
+            }
+            return result;
+        }
+
+        /**
+         * 查询包含指定点的所有对象
+         *
+         * @param point 坐标点
+         * @return 包含该点的对象
+         */
+        public List<T> contains(Point point) {
+            final List<T> result = new ArrayList<>();
+            search(point.longitude, point.latitude, point.longitude, point.latitude, point, result);
+            return result;
+        }
+
+        /**
+         * 查询包含指定点的第一个对象,适用于区域互不重叠的场景
+         *
+         * @param point 坐标点
+         * @return 包含该点的对象, 不存在时返回null
+         */
+        public T first(Point point) {
+            final List<T> result = contains(point);
+            return result.isEmpty() ? null : result.get(0);
+        }
+
+        /**
+         * 批量查询每个点所在的对象
+         *
+         * @param points   坐标点
+         * @param parallel 是否并行查询
+         * @return 与坐标点顺序一一对应的查询结果
+         */
+        public List<List<T>> contains(List<Point> points, boolean parallel) {
+            final List<List<T>> result = new ArrayList<>(Collections.nCopies(points.size(), null));
+            IntStream stream = IntStream.range(0, result.size());
+            if (parallel) {
+                stream = stream.parallel();
+            }
+            stream.forEach(i -> result.set(i, contains(points.get(i))));
+            return result;
+        }
+
+        /**
+         * 查询外包矩形中心距指定点不超过给定距离的对象,对坐标点索引即为范围内的点
+         *
+         * @param center   中心点
+         * @param distance 距离(米)
+         * @return 范围内的对象
+         */
+        public List<T> within(Point center, double distance) {
+            final List<T> result = new ArrayList<>();
+            final Bounds bounds = rectangle(center, (long) Math.ceil(distance));
+            if (bounds.isEmpty()) {
+                return result;
+            }
+            final double[] leaf = levels[0];
+            final List<T> candidates = new ArrayList<>();
+            final List<Integer> slots = new ArrayList<>();
+            search(levels.length - 1, 0, bounds.southWest.longitude, bounds.southWest.latitude,
+                    bounds.northEast.longitude, bounds.northEast.latitude, null, candidates, slots);
+            for (int i = 0; i < candidates.size(); i++) {
+                final int slot = slots.get(i) * 4;
+                final Point point = new Point((leaf[slot] + leaf[slot + 2]) / 2, (leaf[slot + 1] + leaf[slot + 3]) / 2);
+                if (center.distance(point) <= distance) {
+                    result.add(candidates.get(i));
+                }
+            }
+            return result;
+        }
+
+        private void search(double minX, double minY, double maxX, double maxY, Point point, List<T> result) {
+            search(levels.length - 1, 0, minX, minY, maxX, maxY, point, result, null);
+        }
+
+        private void search(int depth, int node, double minX, double minY, double maxX, double maxY,
+                            Point point, List<T> result, List<Integer> slots) {
+            if (items.length == 0) {
+                return;
+            }
+            final double[] level = levels[depth];
+            final int i = node * 4;
+            if (level[i] > maxX || level[i + 1] > maxY || level[i + 2] < minX || level[i + 3] < minY) {
+                return;
+            }
+            if (depth == 0) {
+                @SuppressWarnings("unchecked")
+                final T item = (T) items[node];
+                if (point == null || predicate.test(item, point)) {
+                    result.add(item);
+                    if (slots != null) {
+                        slots.add(node);
+                    }
+                }
+                return;
+            }
+            final int count = levels[depth - 1].length / 4;
+            for (int child = node * NODE_SIZE, end = Math.min(child + NODE_SIZE, count); child < end; child++) {
+                search(depth - 1, child, minX, minY, maxX, maxY, point, result, slots);
+            }
+        }
+
+    }
+
+}
@@ -26,11 +26,11 @@ package org.aoju.bus.core.utils;
 
 import org.aoju.bus.core.convert.Convert;
 import org.aoju.bus.core.lang.Holder;
+import org.aoju.bus.core.lang.PatternPool;
 import org.aoju.bus.core.lang.RegEx;
 import org.aoju.bus.core.lang.Symbol;
 
 import java.util.*;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -43,11 +43,6 @@ import java.util.regex.Pattern;
  */
 public class PatternUtils {
 
-    private static final Map<RegexWithFlag, Pattern> cache = new WeakHashMap<>();
-    private static final ReentrantReadWriteLock cacheLock = new ReentrantReadWriteLock();
-    private static final ReentrantReadWriteLock.ReadLock readLock = cacheLock.readLock();
-    private static final ReentrantReadWriteLock.WriteLock writeLock = cacheLock.writeLock();
-
     /**
      * 先从Pattern池中查找正则对应的{@link Pattern},找不到则编译正则表达式并入池
      *
@@ -66,13 +61,7 @@ public class PatternUtils {
      * @return {@link Pattern}
      */
     public static Pattern get(String regex, int flags) {
-        final RegexWithFlag regexWithFlag = new RegexWithFlag(regex, flags);
-        Pattern pattern = isGet(regexWithFlag);
-        if (null == pattern) {
-            pattern = Pattern.compile(regex, flags);
-            isPut(regexWithFlag, pattern);
-        }
-        return pattern;
+        return PatternPool.get(regex, flags);
     }
 
     /**
@@ -633,7 +622,7 @@ public class PatternUtils {
      * @return 处理后的文本
      */
     public static String replaceAll(CharSequence content, String regex, String replacementTemplate) {
-        final Pattern pattern = Pattern.compile(regex, Pattern.DOTALL);
+        final Pattern pattern = get(regex, Pattern.DOTALL);
         return replaceAll(content, pattern, replacementTemplate);
     }
 
@@ -710,56 +699,6 @@ public class PatternUtils {
         return builder.toString();
     }
 
-    /**
-     * 从缓存池中查找值
-     *
-     * @param key 键
-     * @return 值
-     */
-    private static Pattern isGet(RegexWithFlag key) {
-        // 尝试读取缓存
-        readLock.lock();
-        Pattern value;
-        try {
-            value = cache.get(key);
-        } finally {
-            readLock.unlock();
-        }
-        return value;
-    }
-
-    /**
-     * 放入缓存
-     *
-     * @param key   键
-     * @param value 值
-     * @return 值
-     */
-    private static Object isPut(RegexWithFlag key, Pattern value) {
-        writeLock.lock();
-        try {
-            cache.put(key, value);
-        } finally {
-            writeLock.unlock();
-        }
-        return value;
-    }
-
-    /**
-     * 移除缓存
-     *
-     * @param key 键
-     * @return 移除的值
-     */
-    private static Object isRemove(Object key) {
-        writeLock.lock();
-        try {
-            return cache.remove(key);
-        } finally {
-            writeLock.unlock();
-        }
-    }
-
     /**
      * 从字符串中获得第一个整数
      *
@@ -774,63 +713,7 @@ public class PatternUtils {
      * 清空缓存池
      */
     public void clear() {
-        writeLock.lock();
-        try {
-            cache.clear();
-        } finally {
-            writeLock.unlock();
-        }
-    }
-
-    /**
-     * 正则表达式和正则标识位的包装
-     *
-     * @author Kimi Liu
-     */
-    private static class RegexWithFlag {
-        private String regex;
-        private int flag;
-
-        /**
-         * 构造
-         *
-         * @param regex 正则
-         * @param flag  标识
-         */
-        public RegexWithFlag(String regex, int flag) {
-            this.regex = regex;
-            this.flag = flag;
-        }
-
-        @Override
-        public int hashCode() {
-            final int prime = 31;
-            int result = 1;
-            result = prime * result + flag;
-            result = prime * result + ((regex == null) ? 0 : regex.hashCode());
-            return result;
-        }
-
-        @Override
-        public boolean equals(Object obj) {
-            if (this == obj) {
-                return true;
-            }
-            if (obj == null) {
-                return false;
-            }
-            if (getClass() != obj.getClass()) {
-                return false;
-            }
-            RegexWithFlag other = (RegexWithFlag) obj;
-            if (flag != other.flag) {
-                return false;
-            }
-            if (regex == null) {
-                return other.regex == null;
-            } else return regex.equals(other.regex);
-        }
-
+        PatternPool.clear();
     }
 
 }
@@ -54,6 +54,80 @@ public class PinyinUtils {
     public static final Properties DICT_PINYIN = getDict("pinyin");
     public static final Properties DICT_POLYPHONE = getDict("polyphone");
 
+    /**
+     * 字典覆盖的字符区间
+     */
+    private static final char MIN_CHAR = '〇';
+    private static final char MAX_CHAR = '\u9fa5';
+    /**
+     * 汉字到拼音池下标的稠密索引,0表示没有拼音
+     */
+    private static final short[] PINYIN_INDEX = new short[MAX_CHAR - MIN_CHAR + 1];
+    /**
+     * 按格式预先转换好的拼音池,第一维为格式,第二维为{@link #PINYIN_INDEX}中的下标
+     */
+    private static final String[][][] PINYIN_POOL = new String[3][][];
+    /**
+     * 繁体到简体、简体到繁体的映射,0表示无映射
+     */
+    private static final char[] SIMPLIFIED = new char[MAX_CHAR - MIN_CHAR + 1];
+    private static final char[] TRADITIONAL = new char[MAX_CHAR - MIN_CHAR + 1];
+    /**
+     * 转为简体后的拼音首字母,没有拼音时为简体字本身
+     */
+    private static final char[] FIRST_LETTER = new char[MAX_CHAR - MIN_CHAR + 1];
+    /**
+     * 多音词组
+     */
+    private static final Phrase PHRASE = new Phrase();
+
+    static {
+        final Map<String, Short> ids = new HashMap<>();
+        final List<String> pool = new ArrayList<>();
+        pool.add(null);
+        for (String name : DICT_PINYIN.stringPropertyNames()) {
+            final String pinyin = DICT_PINYIN.getProperty(name);
+            if (name.length() != 1 || !inRange(name.charAt(0)) || Normal.NULL.equals(pinyin)) {
+                continue;
+            }
+            Short id = ids.get(pinyin);
+            if (null == id) {
+                id = (short) pool.size();
+                ids.put(pinyin, id);
+                pool.add(pinyin);
+            }
+            PINYIN_INDEX[name.charAt(0) - MIN_CHAR] = id;
+        }
+        for (int type = 0; type < PINYIN_POOL.length; type++) {
+            PINYIN_POOL[type] = new String[pool.size()][];
+            for (int i = 1; i < pool.size(); i++) {
+                PINYIN_POOL[type][i] = format(pool.get(i), type);
+            }
+        }
+
+        for (String name : DICT_CHINESE.stringPropertyNames()) {
+            final String simplified = DICT_CHINESE.getProperty(name);
+            if (name.length() == 1 && inRange(name.charAt(0)) && simplified.length() > 0) {
+                SIMPLIFIED[name.charAt(0) - MIN_CHAR] = simplified.charAt(0);
+                if (inRange(simplified.charAt(0)) && TRADITIONAL[simplified.charAt(0) - MIN_CHAR] == 0) {
+                    TRADITIONAL[simplified.charAt(0) - MIN_CHAR] = name.charAt(0);
+                }
+            }
+        }
+
+        for (char c = MIN_CHAR; c <= MAX_CHAR; c++) {
+            final char simplified = convertSimplified(c);
+            final String[] pinyin = inRange(simplified) ? pinyin(simplified, 2) : null;
+            FIRST_LETTER[c - MIN_CHAR] = null == pinyin ? simplified : pinyin[0].charAt(0);
+        }
+
+        for (String name : DICT_POLYPHONE.stringPropertyNames()) {
+            if (name.length() > 1 && name.length() <= Phrase.MAX_LENGTH) {
+                PHRASE.put(name, DICT_POLYPHONE.getProperty(name));
+            }
+        }
+    }
+
     /**
      * 将单个汉字转换为相应格式的拼音
      *
@@ -65,11 +139,12 @@ public class PinyinUtils {
      * @return 汉字的拼音
      */
     public static String[] convert(char c, String format) {
-        String pinyin = DICT_PINYIN.getProperty(String.valueOf(c));
-        if ((pinyin != null) && (!pinyin.equals(Normal.NULL))) {
-            return format(pinyin, format);
+        final int type = formatType(format);
+        if (type < 0 || !inRange(c)) {
+            return null;
         }
-        return null;
+        final String[] pinyin = pinyin(c, type);
+        return null == pinyin ? null : pinyin.clone();
     }
 
     /**
@@ -94,49 +169,57 @@ public class PinyinUtils {
      * @return 字符串的拼音
      */
     public static String convert(String str, String separator, String format) {
-        str = convertSimplified(str);
-        StringBuilder sb = new StringBuilder();
+        return convert(str, separator, format, new StringBuilder(str.length() * 4)).toString();
+    }
+
+    /**
+     * 将字符串转换成相应格式的拼音,追加到调用方提供的缓冲区中,
+     * 适合批量转换时复用同一个{@link StringBuilder}
+     *
+     * @param str       需要转换的字符串
+     * @param separator 拼音分隔符
+     * @param format    拼音格式
+     *                  WITH_TONE_NUMBER 数字声调
+     *                  WITH_OUT_TONE 不带声调
+     *                  WITH_TONE_MARK 带声调
+     * @param builder   目标缓冲区
+     * @return 目标缓冲区
+     */
+    public static StringBuilder convert(CharSequence str, String separator, String format, StringBuilder builder) {
+        final int type = formatType(format);
         for (int i = 0, len = str.length(); i < len; i++) {
-            char c = str.charAt(i);
+            final char c = convertSimplified(str.charAt(i));
 
             if (isChinese(c) || c == '〇') {
-                boolean isFoundFlag = false;
-                int rightMove = 3;
-
-                for (int rightIndex = (i + rightMove) < len ? (i + rightMove) : (len - 1); rightIndex > i; rightIndex--) {
-                    String cizu = str.substring(i, rightIndex + 1);
-                    if (DICT_POLYPHONE.containsKey(cizu)) {
-                        String[] pinyinArray = format(DICT_POLYPHONE.getProperty(cizu), format);
-                        for (int j = 0, l = pinyinArray.length; j < l; j++) {
-                            sb.append(pinyinArray[j]);
-                            if (j < l - 1) {
-                                sb.append(separator);
-                            }
+                final Phrase.Node phrase = type < 0 ? null : PHRASE.match(str, i);
+                if (null != phrase) {
+                    final String[] pinyinArray = phrase.pinyin[type];
+                    for (int j = 0, l = pinyinArray.length; j < l; j++) {
+                        builder.append(pinyinArray[j]);
+                        if (j < l - 1) {
+                            builder.append(separator);
                         }
-                        i = rightIndex;
-                        isFoundFlag = true;
-                        break;
                     }
-                }
-                if (!isFoundFlag) {
-                    String[] pinyinArray = convert(str.charAt(i), format);
+                    i += phrase.depth - 1;
+                } else {
+                    final String[] pinyinArray = type < 0 ? null : pinyin(c, type);
                     if (pinyinArray != null) {
-                        sb.append(pinyinArray[0]);
+                        builder.append(pinyinArray[0]);
                     } else {
-                        sb.append(str.charAt(i));
+                        builder.append(c);
                     }
                 }
                 if (i < len - 1) {
-                    sb.append(separator);
+                    builder.append(separator);
                 }
             } else {
-                sb.append(c);
-                if ((i + 1) < len && isChinese(str.charAt(i + 1))) {
-                    sb.append(separator);
+                builder.append(c);
+                if ((i + 1) < len && isChinese(convertSimplified(str.charAt(i + 1)))) {
+                    builder.append(separator);
                 }
             }
         }
-        return sb.toString();
+        return builder;
     }
 
     /**
@@ -157,35 +240,39 @@ public class PinyinUtils {
      * @return 对应拼音的首字母
      */
     public static String convert(String str) {
-        String separator = Symbol.SHAPE;
-        StringBuilder sb = new StringBuilder();
-
-        char[] charArray = new char[str.length()];
-        for (int i = 0, len = str.length(); i < len; i++) {
-            char c = str.charAt(i);
+        final char[] charArray = new char[str.length()];
+        getFirstLetters(str, charArray, 0);
+        return String.valueOf(charArray);
+    }
 
+    /**
+     * 获取字符串对应拼音的首字母,写入调用方提供的数组,每个字符对应一个首字母,
+     * 非汉字原样保留,转换过程中不产生中间对象
+     *
+     * @param str    需要转换的字符串
+     * @param buf    目标数组,剩余长度需不小于字符串长度
+     * @param offset 写入起始位置
+     * @return 写入的字符数
+     */
+    public static int getFirstLetters(CharSequence str, char[] buf, int offset) {
+        final int len = str.length();
+        for (int i = 0; i < len; i++) {
+            final char c = str.charAt(i);
             if (!isChinese(c) && c != '〇') {
-                charArray[i] = c;
-            } else {
-                int j = i + 1;
-                sb.append(c);
-
-                while (j < len && (isChinese(str.charAt(j)) || str.charAt(j) == '〇')) {
-                    sb.append(str.charAt(j));
-                    j++;
-                }
-                String hanziPinyin = convert(sb.toString(), separator, WITH_OUT_TONE);
-                String[] pinyinArray = hanziPinyin.split(separator);
-                for (String string : pinyinArray) {
-                    charArray[i] = string.charAt(0);
-                    i++;
+                buf[offset + i] = c;
+                continue;
+            }
+            final Phrase.Node phrase = PHRASE.match(str, i);
+            if (null != phrase && phrase.pinyin[2].length == phrase.depth) {
+                for (int j = 0; j < phrase.depth; j++) {
+                    buf[offset + i + j] = phrase.pinyin[2][j].charAt(0);
                 }
-                i--;
-                sb.delete(0, sb.toString().length());
-                sb.trimToSize();
+                i += phrase.depth - 1;
+            } else {
+                buf[offset + i] = FIRST_LETTER[c - MIN_CHAR];
             }
         }
-        return String.valueOf(charArray);
+        return len;
     }
 
     /**
@@ -195,7 +282,7 @@ public class PinyinUtils {
      * @return 转换后的简体体
      */
     public static String convertSimplified(String str) {
-        StringBuilder sb = new StringBuilder();
+        StringBuilder sb = new StringBuilder(str.length());
         for (int i = 0, len = str.length(); i < len; i++) {
             char c = str.charAt(i);
             sb.append(convertSimplified(c));
@@ -211,7 +298,7 @@ public class PinyinUtils {
      */
     public static char convertSimplified(char c) {
         if (isTraditional(c)) {
-            return DICT_CHINESE.getProperty(String.valueOf(c)).charAt(0);
+            return SIMPLIFIED[c - MIN_CHAR];
         }
         return c;
     }
@@ -223,7 +310,7 @@ public class PinyinUtils {
      * @return 转换后的繁字体
      */
     public static String convertTraditional(String str) {
-        StringBuilder sb = new StringBuilder();
+        StringBuilder sb = new StringBuilder(str.length());
         for (int i = 0, len = str.length(); i < len; i++) {
             char c = str.charAt(i);
             sb.append(convertTraditional(c));
@@ -238,15 +325,8 @@ public class PinyinUtils {
      * @return 转换后的繁字体
      */
     public static char convertTraditional(char c) {
-        String hanzi = String.valueOf(c);
-        if (DICT_CHINESE.containsValue(hanzi)) {
-            Iterator<Map.Entry<Object, Object>> itr = DICT_CHINESE.entrySet().iterator();
-            while (itr.hasNext()) {
-                Map.Entry<Object, Object> e = itr.next();
-                if (e.getValue().toString().equals(hanzi)) {
-                    return e.getKey().toString().charAt(0);
-                }
-            }
+        if (inRange(c) && TRADITIONAL[c - MIN_CHAR] != 0) {
+            return TRADITIONAL[c - MIN_CHAR];
         }
         return c;
     }
@@ -313,15 +393,49 @@ public class PinyinUtils {
      * @param format 拼音格式：WITH_TONE_NUMBER--数字代表声调,WITHOUT_TONE--不带声调,WITH_TONE_MARK--带声调
      * @return 格式转换后的拼音
      */
-    private static String[] format(String str, String format) {
+    private static String[] format(String str, int format) {
+        switch (format) {
+            case 0:
+                return str.split(Symbol.COMMA);
+            case 1:
+                return convertWithTone(str);
+            case 2:
+                return convertWithoutTone(str);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 拼音格式对应的拼音池下标
+     *
+     * @param format 拼音格式
+     * @return 下标, 未知格式返回-1
+     */
+    private static int formatType(String format) {
         if (WITH_TONE_MARK.equals(format)) {
-            return str.split(Symbol.COMMA);
+            return 0;
         } else if (WITH_TONE_NUMBER.equals(format)) {
-            return convertWithTone(str);
+            return 1;
         } else if (WITH_OUT_TONE.equals(format)) {
-            return convertWithoutTone(str);
+            return 2;
         }
-        return null;
+        return -1;
+    }
+
+    /**
+     * 查找单个汉字的拼音,返回值为共享数组,不可修改
+     *
+     * @param c    汉字,需在字典区间内
+     * @param type 拼音池下标
+     * @return 拼音, 没有拼音时返回{@code null}
+     */
+    private static String[] pinyin(char c, int type) {
+        return PINYIN_POOL[type][PINYIN_INDEX[c - MIN_CHAR]];
+    }
+
+    private static boolean inRange(char c) {
+        return c >= MIN_CHAR && c <= MAX_CHAR;
     }
 
     /**
@@ -331,7 +445,7 @@ public class PinyinUtils {
      * @return 是繁体字返回true, 否则返回false
      */
     public static boolean isTraditional(char c) {
-        return DICT_CHINESE.containsKey(String.valueOf(c));
+        return inRange(c) && SIMPLIFIED[c - MIN_CHAR] != 0;
     }
 
     /**
@@ -341,8 +455,7 @@ public class PinyinUtils {
      * @return 是汉字返回true, 否则返回false
      */
     public static boolean isChinese(String c) {
-        String regex = "[\\u4e00-\\u9fa5]";
-        return String.valueOf(c).matches(regex);
+        return null != c && c.length() == 1 && isChinese(c.charAt(0));
     }
 
     /**
@@ -352,8 +465,7 @@ public class PinyinUtils {
      * @return 是汉字返回true, 否则返回false
      */
     public static boolean isChinese(char c) {
-        String regex = "[\\u4e00-\\u9fa5]";
-        return String.valueOf(c).matches(regex);
+        return c >= '\u4e00' && c <= '\u9fa5';
     }
 
     /**
@@ -412,4 +524,91 @@ public class PinyinUtils {
         return p;
     }
 
+    /**
+     * 多音词组前缀树,从指定位置按最长匹配查找词组,
+     * 查找时逐字转为简体,与先整体转简体再匹配的结果一致
+     */
+    private static class Phrase {
+
+        /**
+         * 词组最大长度
+         */
+        static final int MAX_LENGTH = 4;
+
+        private final Node root = new Node(0);
+
+        void put(String phrase, String pinyin) {
+            Node node = root;
+            for (int i = 0; i < phrase.length(); i++) {
+                node = node.child(phrase.charAt(i), true);
+            }
+            node.pinyin = new String[PINYIN_POOL.length][];
+            for (int type = 0; type < PINYIN_POOL.length; type++) {
+                node.pinyin[type] = format(pinyin, type);
+            }
+        }
+
+        /**
+         * 查找从start开始的最长词组
+         *
+         * @param str   字符串
+         * @param start 起始位置
+         * @return 词组节点, 不存在时返回{@code null}
+         */
+        Node match(CharSequence str, int start) {
+            Node node = root;
+            Node found = null;
+            final int end = Math.min(str.length(), start + MAX_LENGTH);
+            for (int i = start; i < end && null != node.keys; i++) {
+                node = node.child(convertSimplified(str.charAt(i)), false);
+                if (null == node) {
+                    break;
+                }
+                if (null != node.pinyin) {
+                    found = node;
+                }
+            }
+            return found;
+        }
+
+        static class Node {
+
+            final int depth;
+            char[] keys;
+            Node[] children;
+            String[][] pinyin;
+
+            Node(int depth) {
+                this.depth = depth;
+            }
+
+            Node child(char c, boolean create) {
+                final int index = null == keys ? -1 : Arrays.binarySearch(keys, c);
+                if (index >= 0) {
+                    return children[index];
+                }
+                if (!create) {
+                    return null;
+                }
+                final int insert = null == keys ? 0 : -index - 1;
+                final int size = null == keys ? 0 : keys.length;
+                final char[] newKeys = new char[size + 1];
+                final Node[] newChildren = new Node[size + 1];
+                if (size > 0) {
+                    System.arraycopy(keys, 0, newKeys, 0, insert);
+                    System.arraycopy(keys, insert, newKeys, insert + 1, size - insert);
+                    System.arraycopy(children, 0, newChildren, 0, insert);
+                    System.arraycopy(children, insert, newChildren, insert + 1, size - insert);
+                }
+                newKeys[insert] = c;
+                newChildren[insert] = new Node(depth + 1);
+                keys = newKeys;
+                children = newChildren;
+                return newChildren[insert];
+            }
+
+        }
+
+    }
+
 }
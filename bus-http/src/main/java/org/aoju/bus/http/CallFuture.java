@@ -0,0 +1,181 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License                                                               *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.http;
+
+import org.aoju.bus.core.utils.IoUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 异步调用结果
+ * 请求经{@link org.aoju.bus.http.metric.Dispatcher}调度执行,完成后由调度线程设置结果,
+ * 因此并发数同样受{@code maxRequests}与{@code maxRequestsPerHost}限制;
+ * 取消该结果时会同时取消对应的{@link NewCall}
+ *
+ * @param <T> 结果类型
+ * @author Kimi Liu
+ * @version 5.8.6
+ * @since JDK 1.8+
+ */
+public class CallFuture<T> extends CompletableFuture<T> implements Callback {
+
+    private final NewCall call;
+    private final Converter<T> converter;
+
+    private CallFuture(NewCall call, Converter<T> converter) {
+        this.call = call;
+        this.converter = converter;
+    }
+
+    /**
+     * 异步执行调用
+     *
+     * @param call 调用者信息
+     * @return 响应结果, 使用方需关闭响应体
+     */
+    public static CallFuture<Response> enqueue(NewCall call) {
+        return enqueue(call, response -> response);
+    }
+
+    /**
+     * 异步执行调用,并在调度线程中转换响应
+     *
+     * @param call      调用者信息
+     * @param converter 响应转换,如读取响应体为字符串
+     * @param <T>       结果类型
+     * @return 转换后的结果
+     */
+    public static <T> CallFuture<T> enqueue(NewCall call, Converter<T> converter) {
+        CallFuture<T> future = new CallFuture<>(call, converter);
+        call.enqueue(future);
+        return future;
+    }
+
+    /**
+     * 异步执行调用,超时后取消调用并以{@link java.io.InterruptedIOException}结束
+     *
+     * @param call      调用者信息
+     * @param timeout   超时时间,自调用开始执行时计算,不大于0时使用客户端的默认设置
+     * @param unit      时间单位
+     * @param converter 响应转换
+     * @param <T>       结果类型
+     * @return 转换后的结果
+     */
+    public static <T> CallFuture<T> enqueue(NewCall call, long timeout, TimeUnit unit, Converter<T> converter) {
+        if (timeout > 0) {
+            call.timeout().timeout(timeout, unit);
+        }
+        return enqueue(call, converter);
+    }
+
+    /**
+     * 等待全部结果完成,任一失败时取消其余调用;取消返回结果时同样会取消全部调用
+     *
+     * @param futures 异步结果
+     * @param <T>     结果类型
+     * @return 与参数顺序一致的结果列表
+     */
+    public static <T> CompletableFuture<List<T>> allOf(List<? extends CompletableFuture<T>> futures) {
+        CompletableFuture<List<T>> result = new CompletableFuture<List<T>>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                futures.forEach(future -> future.cancel(mayInterruptIfRunning));
+                return super.cancel(mayInterruptIfRunning);
+            }
+        };
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenRun(() -> {
+            List<T> list = new ArrayList<>(futures.size());
+            futures.forEach(future -> list.add(future.join()));
+            result.complete(list);
+        });
+        futures.forEach(future -> future.whenComplete((value, ex) -> {
+            if (ex != null) {
+                result.completeExceptionally(ex);
+                futures.forEach(other -> other.cancel(false));
+            }
+        }));
+        return result;
+    }
+
+    /**
+     * @return 调用者信息
+     */
+    public NewCall call() {
+        return call;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        call.cancel();
+        return super.cancel(mayInterruptIfRunning);
+    }
+
+    @Override
+    public void onFailure(NewCall call, IOException ex) {
+        completeExceptionally(ex);
+    }
+
+    @Override
+    public void onResponse(NewCall call, Response response) {
+        if (isDone()) {
+            IoUtils.close(response);
+            return;
+        }
+        T value;
+        try {
+            value = converter.convert(response);
+        } catch (Throwable e) {
+            IoUtils.close(response);
+            completeExceptionally(e);
+            return;
+        }
+        if (!complete(value) && value == response) {
+            IoUtils.close(response);
+        }
+    }
+
+    /**
+     * 响应转换
+     *
+     * @param <T> 结果类型
+     */
+    public interface Converter<T> {
+
+        /**
+         * 转换响应,在调度线程中执行
+         *
+         * @param response 响应信息
+         * @return 转换结果
+         * @throws IOException 读取响应异常
+         */
+        T convert(Response response) throws IOException;
+
+    }
+
+}
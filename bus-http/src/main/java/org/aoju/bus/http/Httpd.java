@@ -29,6 +29,7 @@ import org.aoju.bus.core.io.Source;
 import org.aoju.bus.http.accord.*;
 import org.aoju.bus.http.accord.platform.Platform;
 import org.aoju.bus.http.cache.Cache;
+import org.aoju.bus.http.cache.CoalesceInterceptor;
 import org.aoju.bus.http.cache.InternalCache;
 import org.aoju.bus.http.metric.CookieJar;
 import org.aoju.bus.http.metric.Dispatcher;
@@ -178,6 +179,7 @@ public class Httpd implements Cloneable, NewCall.Factory, WebSocket.Factory {
     final CookieJar cookieJar;
     final Cache cache;
     final InternalCache internalCache;
+    final CoalesceInterceptor coalesce;
     final SocketFactory socketFactory;
     final SSLSocketFactory sslSocketFactory;
     final CertificateChainCleaner certificateChainCleaner;
@@ -210,6 +212,26 @@ public class Httpd implements Cloneable, NewCall.Factory, WebSocket.Factory {
      * Web socket ping间隔(毫秒)
      */
     final int pingInterval;
+    /**
+     * Web socket排队字节数上限
+     */
+    final long webSocketMaxQueueSize;
+    /**
+     * Web socket压缩的最小消息字节数,为负数时不协商permessage-deflate
+     */
+    final long webSocketMinDeflateSize;
+    /**
+     * Web socket压缩是否在消息之间保留上下文
+     */
+    final boolean webSocketContextTakeover;
+    /**
+     * HTTP/2连接通告给服务端的头信息动态表大小
+     */
+    final int http2HeaderTableSize;
+    /**
+     * HTTP/2连接编码请求头时使用的动态表大小上限
+     */
+    final int http2EncoderHeaderTableSize;
 
     public Httpd() {
         this(new Builder());
@@ -227,6 +249,7 @@ public class Httpd implements Cloneable, NewCall.Factory, WebSocket.Factory {
         this.cookieJar = builder.cookieJar;
         this.cache = builder.cache;
         this.internalCache = builder.internalCache;
+        this.coalesce = builder.coalesce;
         this.socketFactory = builder.socketFactory;
 
         boolean isTLS = false;
@@ -262,6 +285,11 @@ public class Httpd implements Cloneable, NewCall.Factory, WebSocket.Factory {
         this.readTimeout = builder.readTimeout;
         this.writeTimeout = builder.writeTimeout;
         this.pingInterval = builder.pingInterval;
+        this.webSocketMaxQueueSize = builder.webSocketMaxQueueSize;
+        this.webSocketMinDeflateSize = builder.webSocketMinDeflateSize;
+        this.webSocketContextTakeover = builder.webSocketContextTakeover;
+        this.http2HeaderTableSize = builder.http2HeaderTableSize;
+        this.http2EncoderHeaderTableSize = builder.http2EncoderHeaderTableSize;
 
         if (interceptors.contains(null)) {
             throw new IllegalStateException("Null interceptor: " + interceptors);
@@ -288,7 +316,8 @@ public class Httpd implements Cloneable, NewCall.Factory, WebSocket.Factory {
 
     @Override
     public WebSocket newWebSocket(Request request, WebSocketListener listener) {
-        RealWebSocket webSocket = new RealWebSocket(request, listener, new Random(), pingInterval);
+        RealWebSocket webSocket = new RealWebSocket(request, listener, new Random(), pingInterval,
+                webSocketMaxQueueSize, webSocketMinDeflateSize, webSocketContextTakeover);
         webSocket.connect(this);
         return webSocket;
     }
@@ -314,6 +343,14 @@ public class Httpd implements Cloneable, NewCall.Factory, WebSocket.Factory {
         return pingInterval;
     }
 
+    public int http2HeaderTableSize() {
+        return http2HeaderTableSize;
+    }
+
+    public int http2EncoderHeaderTableSize() {
+        return http2EncoderHeaderTableSize;
+    }
+
     public Proxy proxy() {
         return proxy;
     }
@@ -334,6 +371,10 @@ public class Httpd implements Cloneable, NewCall.Factory, WebSocket.Factory {
         return cache != null ? cache.internalCache : internalCache;
     }
 
+    public CoalesceInterceptor coalesce() {
+        return coalesce;
+    }
+
     public DnsX dns() {
         return dns;
     }
@@ -420,6 +461,7 @@ public class Httpd implements Cloneable, NewCall.Factory, WebSocket.Factory {
         CookieJar cookieJar;
         Cache cache;
         InternalCache internalCache;
+        CoalesceInterceptor coalesce;
         SocketFactory socketFactory;
         SSLSocketFactory sslSocketFactory;
         CertificateChainCleaner certificateChainCleaner;
@@ -437,6 +479,11 @@ public class Httpd implements Cloneable, NewCall.Factory, WebSocket.Factory {
         int readTimeout;
         int writeTimeout;
         int pingInterval;
+        long webSocketMaxQueueSize;
+        long webSocketMinDeflateSize;
+        boolean webSocketContextTakeover;
+        int http2HeaderTableSize;
+        int http2EncoderHeaderTableSize;
 
         public Builder() {
             dispatcher = new Dispatcher();
@@ -463,6 +510,11 @@ public class Httpd implements Cloneable, NewCall.Factory, WebSocket.Factory {
             readTimeout = 10_000;
             writeTimeout = 10_000;
             pingInterval = 0;
+            webSocketMaxQueueSize = RealWebSocket.MAX_QUEUE_SIZE;
+            webSocketMinDeflateSize = -1;
+            webSocketContextTakeover = true;
+            http2HeaderTableSize = 4096;
+            http2EncoderHeaderTableSize = 16384;
         }
 
         Builder(Httpd httpd) {
@@ -477,6 +529,7 @@ public class Httpd implements Cloneable, NewCall.Factory, WebSocket.Factory {
             this.cookieJar = httpd.cookieJar;
             this.internalCache = httpd.internalCache;
             this.cache = httpd.cache;
+            this.coalesce = httpd.coalesce;
             this.socketFactory = httpd.socketFactory;
             this.sslSocketFactory = httpd.sslSocketFactory;
             this.certificateChainCleaner = httpd.certificateChainCleaner;
@@ -494,6 +547,11 @@ public class Httpd implements Cloneable, NewCall.Factory, WebSocket.Factory {
             this.readTimeout = httpd.readTimeout;
             this.writeTimeout = httpd.writeTimeout;
             this.pingInterval = httpd.pingInterval;
+            this.webSocketMaxQueueSize = httpd.webSocketMaxQueueSize;
+            this.webSocketMinDeflateSize = httpd.webSocketMinDeflateSize;
+            this.webSocketContextTakeover = httpd.webSocketContextTakeover;
+            this.http2HeaderTableSize = httpd.http2HeaderTableSize;
+            this.http2EncoderHeaderTableSize = httpd.http2EncoderHeaderTableSize;
         }
 
         /**
@@ -619,6 +677,52 @@ public class Httpd implements Cloneable, NewCall.Factory, WebSocket.Factory {
             return this;
         }
 
+        /**
+         * 设置web套接字排队等待发送的最大字节数,超过时拒绝新消息并关闭web套接字,默认16 MiB
+         *
+         * @param maxQueueSize 最大字节数
+         * @return 构造器
+         */
+        public Builder webSocketMaxQueueSize(long maxQueueSize) {
+            if (maxQueueSize <= 0) {
+                throw new IllegalArgumentException("maxQueueSize <= 0: " + maxQueueSize);
+            }
+            this.webSocketMaxQueueSize = maxQueueSize;
+            return this;
+        }
+
+        /**
+         * 握手时请求RFC 7692 permessage-deflate压缩,服务端同意后不小于{@code minimumSize}字节的消息压缩发送
+         *
+         * @param minimumSize     压缩的最小消息字节数,为负数时不请求压缩
+         * @param contextTakeover 是否在消息之间保留压缩上下文,关闭后压缩率降低但每个连接占用的内存更少
+         * @return 构造器
+         */
+        public Builder webSocketCompression(long minimumSize, boolean contextTakeover) {
+            this.webSocketMinDeflateSize = minimumSize;
+            this.webSocketContextTakeover = contextTakeover;
+            return this;
+        }
+
+        /**
+         * 设置HTTP/2头信息压缩(HPACK)的动态表大小,重复出现的头信息(如认证、链路追踪头)写入动态表后只需发送索引
+         *
+         * @param headerTableSize        通告给服务端的SETTINGS_HEADER_TABLE_SIZE,决定服务端编码响应头可用的动态表字节数
+         * @param encoderHeaderTableSize 编码请求头的动态表字节数上限,实际大小不超过服务端的设置,为0时不使用动态表
+         * @return 构造器
+         */
+        public Builder http2HeaderTableSize(int headerTableSize, int encoderHeaderTableSize) {
+            if (headerTableSize < 0) {
+                throw new IllegalArgumentException("headerTableSize < 0: " + headerTableSize);
+            }
+            if (encoderHeaderTableSize < 0) {
+                throw new IllegalArgumentException("encoderHeaderTableSize < 0: " + encoderHeaderTableSize);
+            }
+            this.http2HeaderTableSize = headerTableSize;
+            this.http2EncoderHeaderTableSize = encoderHeaderTableSize;
+            return this;
+        }
+
         /**
          * 设置此客户端创建的连接将使用的HTTP代理。它优先于{@link #proxySelector}，
          * 后者仅在此代理为空(默认为空)时才被启用。要完全禁用代理使用，请调用{@code proxy(proxy . no_proxy)}
@@ -678,6 +782,17 @@ public class Httpd implements Cloneable, NewCall.Factory, WebSocket.Factory {
             return this;
         }
 
+        /**
+         * 设置相同GET请求的合并处理,位于缓存之前,为null时不合并
+         *
+         * @param coalesce 请求合并
+         * @return 构造器
+         */
+        public Builder coalesce(CoalesceInterceptor coalesce) {
+            this.coalesce = coalesce;
+            return this;
+        }
+
         /**
          * 设置用于查找主机名的IP地址的DNS服务.
          * 如果未设置，将使用{@link DnsX#SYSTEM system-wide default}DNS
@@ -35,6 +35,7 @@ import org.aoju.bus.http.bodys.FormBody;
 import org.aoju.bus.http.bodys.MultipartBody;
 import org.aoju.bus.http.bodys.RequestBody;
 import org.aoju.bus.http.magic.HttpProxy;
+import org.aoju.bus.http.magic.ProgressListener;
 import org.aoju.bus.http.metric.Dispatcher;
 import org.aoju.bus.http.secure.X509TrustManager;
 import org.aoju.bus.logger.Logger;
@@ -43,9 +44,11 @@ import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.SSLSocketFactory;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -245,14 +248,103 @@ public class Httpx extends Httpd {
      * @param url     URL地址
      * @param isAsync 是否异步
      * @return String
+     * @deprecated 异步结果无法以字符串直接返回, 此方法会等待请求完成, 请使用{@link #getAsync(String)}
      */
+    @Deprecated
     public static String get(final String url, final boolean isAsync) {
         if (isAsync) {
-            return enqueue(Builder.builder().url(url).method(Http.GET).build());
+            try {
+                return getAsync(url).join();
+            } catch (Exception e) {
+                Logger.error(">>>>>>>>Url[{}] error<<<<<<<<", url, e);
+                return Normal.EMPTY;
+            }
         }
         return get(url);
     }
 
+    /**
+     * 异步 GET 请求 使用默认编码 UTF-8
+     *
+     * @param url URL地址 String
+     * @return 响应内容, 请求失败时异常结束
+     */
+    public static CompletableFuture<String> getAsync(final String url) {
+        return enqueue(Builder.builder().url(url).method(Http.GET).build());
+    }
+
+    /**
+     * 异步 GET 请求
+     *
+     * @param url       URL地址 String
+     * @param queryMap  查询参数 Map
+     * @param headerMap Header参数 Map
+     * @param timeout   超时时间,不大于0时使用客户端的默认设置
+     * @param unit      时间单位
+     * @return 响应内容, 请求失败或超时时异常结束
+     */
+    public static CompletableFuture<String> getAsync(final String url, final Map<String, Object> queryMap,
+                                                     final Map<String, String> headerMap, final long timeout,
+                                                     final TimeUnit unit) {
+        return enqueue(Builder.builder().url(url).method(Http.GET).queryMap(queryMap).headerMap(headerMap)
+                .timeout(unit.toMillis(timeout)).build());
+    }
+
+    /**
+     * 异步 form 方式 POST 请求 使用默认编码 UTF-8
+     *
+     * @param url     URL地址 String
+     * @param formMap 查询参数 Map
+     * @return 响应内容, 请求失败时异常结束
+     */
+    public static CompletableFuture<String> postAsync(final String url, final Map<String, Object> formMap) {
+        return enqueue(Builder.builder().url(url).method(Http.POST).queryMap(formMap)
+                .mediaType(MediaType.APPLICATION_FORM_URLENCODED).build());
+    }
+
+    /**
+     * 异步执行请求,取消返回结果时会取消请求
+     *
+     * @param request 请求信息
+     * @return 响应信息, 使用方需关闭响应体
+     */
+    public static CallFuture<Response> enqueue(final Request request) {
+        return CallFuture.enqueue(httpd.newCall(request));
+    }
+
+    /**
+     * 异步执行请求
+     *
+     * @param request 请求信息
+     * @param timeout 超时时间,不大于0时使用客户端的默认设置
+     * @param unit    时间单位
+     * @return 响应信息, 使用方需关闭响应体
+     */
+    public static CallFuture<Response> enqueue(final Request request, final long timeout, final TimeUnit unit) {
+        return CallFuture.enqueue(httpd.newCall(request), timeout, unit, response -> response);
+    }
+
+    /**
+     * 并发执行多个请求,同一主机的并发数受{@code maxRequestsPerHost}限制,其余请求在调度器中排队
+     * 任一请求失败时取消其余请求
+     *
+     * @param requests 请求信息
+     * @return 与请求顺序一致的响应内容, 非成功响应时为空字符串, 与{@link #getAsync(String)}一致
+     */
+    public static CompletableFuture<List<String>> allOf(final List<Request> requests) {
+        List<CallFuture<String>> futures = new ArrayList<>(requests.size());
+        for (Request request : requests) {
+            futures.add(CallFuture.enqueue(httpd.newCall(request), response -> {
+                try {
+                    return response.isSuccessful() ? response.body().string() : Normal.EMPTY;
+                } finally {
+                    response.close();
+                }
+            }));
+        }
+        return CallFuture.allOf(futures);
+    }
+
     /**
      * 带查询参数 GET 请求 使用默认编码 UTF-8
      *
@@ -488,6 +580,37 @@ public class Httpx extends Httpd {
         return result;
     }
 
+    /**
+     * 下载文件,响应体直接写入文件,不在内存中缓存
+     *
+     * @param url  URL地址
+     * @param file 目标文件
+     * @return 写入的字节数
+     */
+    public static long download(final String url, final File file) {
+        return download(url, file, null);
+    }
+
+    /**
+     * 下载文件,响应体直接写入文件,不在内存中缓存
+     *
+     * @param url      URL地址
+     * @param file     目标文件
+     * @param listener 进度监听,可为null
+     * @return 写入的字节数
+     */
+    public static long download(final String url, final File file, final ProgressListener listener) {
+        Request request = new Request.Builder().url(url).get().build();
+        try (Response response = httpd.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw new InstrumentException("Unexpected code " + response.code() + " for " + url);
+            }
+            return response.body().writeTo(file, listener);
+        } catch (IOException e) {
+            throw new InstrumentException(e);
+        }
+    }
+
     /**
      * 通用同步执行方法
      *
@@ -571,31 +694,27 @@ public class Httpx extends Httpd {
      * 通用异步执行方法
      *
      * @param builder Builder
-     * @return String 执行结果
+     * @return 执行结果, 非成功响应时为空字符串
      */
-    private static String enqueue(final Builder builder) {
+    private static CompletableFuture<String> enqueue(final Builder builder) {
         Request.Builder request = builder(builder);
         NewCall call = httpd.newCall(request.url(builder.url).build());
-        String[] result = {Normal.EMPTY};
-        call.enqueue(new Callback() {
-            @Override
-            public void onFailure(NewCall call, IOException e) {
-                Logger.info(String.format(">>>>>>>>Url[%s]failure<<<<<<<<", builder.url));
-            }
-
-            @Override
-            public void onResponse(NewCall call, Response response) throws IOException {
+        return CallFuture.enqueue(call, builder.timeout, TimeUnit.MILLISECONDS, response -> {
+            String result = Normal.EMPTY;
+            try {
                 if (response.isSuccessful()) {
                     assert response.body() != null;
                     byte[] bytes = response.body().bytes();
-                    result[0] = new String(bytes, builder.responseCharset);
-                    if (builder.tracer) {
-                        Logger.info(">>>>>>>>Url[{}],response[{}]<<<<<<<<", builder.url, result[0]);
-                    }
+                    result = new String(bytes, builder.responseCharset);
                 }
+            } finally {
+                response.close();
             }
+            if (builder.tracer) {
+                Logger.info(">>>>>>>>Url[{}],response[{}]<<<<<<<<", builder.url, result);
+            }
+            return result;
         });
-        return result[0];
     }
 
     @lombok.Builder
@@ -638,6 +757,10 @@ public class Httpx extends Httpd {
          * 日志追踪
          */
         private boolean tracer;
+        /**
+         * 异步调用超时(毫秒),不大于0时使用客户端的默认设置
+         */
+        private long timeout;
     }
 
 }
@@ -24,10 +24,8 @@
  ********************************************************************************/
 package org.aoju.bus.http;
 
-import org.aoju.bus.http.magic.GetBuilder;
-import org.aoju.bus.http.magic.HttpBuilder;
-import org.aoju.bus.http.magic.PostBuilder;
-import org.aoju.bus.http.magic.PutBuilder;
+import org.aoju.bus.core.utils.IoUtils;
+import org.aoju.bus.http.magic.*;
 import org.aoju.bus.logger.Logger;
 
 import javax.net.ssl.SSLContext;
@@ -35,6 +33,9 @@ import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
 import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 发送HTTP请求辅助类
@@ -81,6 +82,27 @@ public class Httpz {
         return client.put();
     }
 
+    /**
+     * 并发执行多个请求,同一主机的并发数受调度器{@code maxRequestsPerHost}限制
+     * 任一请求失败时取消其余请求
+     *
+     * @param calls 请求调用者
+     * @return 与请求顺序一致的响应信息, 使用方需关闭响应体
+     */
+    public static CompletableFuture<List<HttpResponse>> allOf(List<RequestCall> calls) {
+        List<CompletableFuture<HttpResponse>> futures = new ArrayList<>(calls.size());
+        for (RequestCall call : calls) {
+            futures.add(call.executeAsync());
+        }
+        CompletableFuture<List<HttpResponse>> result = CallFuture.allOf(futures);
+        result.whenComplete((list, e) -> {
+            if (e != null) {
+                futures.forEach(future -> future.thenAccept(response -> IoUtils.close(response.getResponse())));
+            }
+        });
+        return result;
+    }
+
     public static Client getClient() {
         return client;
     }
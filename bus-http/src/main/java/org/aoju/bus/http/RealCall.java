@@ -191,6 +191,9 @@ public final class RealCall implements NewCall {
         interceptors.addAll(client.interceptors());
         interceptors.add(retryAndFollowUp);
         interceptors.add(new BridgeInterceptor(client.cookieJar()));
+        if (client.coalesce() != null && !forWebSocket) {
+            interceptors.add(client.coalesce());
+        }
         interceptors.add(new CacheInterceptor(client.internalCache()));
         interceptors.add(new ConnectInterceptor(client));
         if (!forWebSocket) {
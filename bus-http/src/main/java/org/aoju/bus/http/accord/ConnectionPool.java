@@ -30,6 +30,8 @@ import org.aoju.bus.http.Builder;
 import org.aoju.bus.http.Route;
 import org.aoju.bus.http.accord.platform.Platform;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.lang.ref.Reference;
 import java.net.Socket;
 import java.util.*;
@@ -37,11 +39,15 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 管理HTTP和HTTP/2连接的重用，以减少网络延迟。 共享相同的
  * {@link Address}的HTTP请求可能共享一个{@link Connection}
  * 该类实现了哪些连接保持开放以供将来使用的策略
+ * <p>
+ * 连接按{@link Address}分组存放,获取连接时只需查找对应地址的连接;
+ * 可限制每个地址的最大空闲连接数与最大连接数,达到最大连接数时新请求等待连接空闲
  *
  * @author Kimi Liu
  * @version 5.8.6
@@ -56,14 +62,35 @@ public final class ConnectionPool {
     private static final Executor executor = new ThreadPoolExecutor(0,
             Integer.MAX_VALUE, 60L, TimeUnit.SECONDS,
             new SynchronousQueue<>(), Builder.threadFactory("Httpd ConnectionPool", true));
-    public final Deque<RealConnection> connections = new ArrayDeque<>();
     public final RouteDatabase routeDatabase = new RouteDatabase();
     /**
-     * 每个地址的最大空闲连接数.
+     * 按地址分组的连接
+     */
+    private final Map<Address, Bucket> buckets = new HashMap<>();
+    /**
+     * 多路复用连接,可能因连接合并被其他地址使用
+     */
+    private final List<RealConnection> multiplexed = new ArrayList<>();
+    /**
+     * 最大空闲连接数.
      */
     private final int maxIdleConnections;
+    /**
+     * 每个地址的最大空闲连接数
+     */
+    private final int maxIdlePerRoute;
+    /**
+     * 每个地址的最大连接数,包括正在建立的连接
+     */
+    private final int maxTotalPerRoute;
     private final long keepAliveDurationNs;
+    private final LongAdder reuseCount = new LongAdder();
+    private final LongAdder connectCount = new LongAdder();
+    private final LongAdder waitCount = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
     boolean cleanupRunning;
+    private int connectionCount;
     private final Runnable cleanupRunnable = () -> {
         while (true) {
             long waitNanos = cleanup(System.nanoTime());
@@ -91,12 +118,31 @@ public final class ConnectionPool {
     }
 
     public ConnectionPool(int maxIdleConnections, long keepAliveDuration, TimeUnit timeUnit) {
+        this(maxIdleConnections, Integer.MAX_VALUE, Integer.MAX_VALUE, keepAliveDuration, timeUnit);
+    }
+
+    /**
+     * 创建连接池
+     *
+     * @param maxIdleConnections 最大空闲连接数
+     * @param maxIdlePerRoute    每个地址的最大空闲连接数
+     * @param maxTotalPerRoute   每个地址的最大连接数,达到后新请求等待连接空闲,最长等待连接超时时间
+     * @param keepAliveDuration  空闲连接保持时长
+     * @param timeUnit           时间单位
+     */
+    public ConnectionPool(int maxIdleConnections, int maxIdlePerRoute, int maxTotalPerRoute,
+                          long keepAliveDuration, TimeUnit timeUnit) {
         this.maxIdleConnections = maxIdleConnections;
+        this.maxIdlePerRoute = maxIdlePerRoute;
+        this.maxTotalPerRoute = maxTotalPerRoute;
         this.keepAliveDurationNs = timeUnit.toNanos(keepAliveDuration);
 
         if (keepAliveDuration <= 0) {
             throw new IllegalArgumentException("keepAliveDuration <= 0: " + keepAliveDuration);
         }
+        if (maxTotalPerRoute < 1) {
+            throw new IllegalArgumentException("maxTotalPerRoute < 1: " + maxTotalPerRoute);
+        }
     }
 
     /**
@@ -106,8 +152,10 @@ public final class ConnectionPool {
      */
     public synchronized int idleConnectionCount() {
         int total = 0;
-        for (RealConnection connection : connections) {
-            if (connection.allocations.isEmpty()) total++;
+        for (Bucket bucket : buckets.values()) {
+            for (RealConnection connection : bucket.connections) {
+                if (connection.allocations.isEmpty()) total++;
+            }
         }
         return total;
     }
@@ -120,7 +168,59 @@ public final class ConnectionPool {
      * @return 连接总数
      */
     public synchronized int connectionCount() {
-        return connections.size();
+        return connectionCount;
+    }
+
+    /**
+     * @param address 地址
+     * @return 该地址在池中的连接数
+     */
+    public synchronized int connectionCount(Address address) {
+        Bucket bucket = buckets.get(address);
+        return bucket == null ? 0 : bucket.connections.size();
+    }
+
+    /**
+     * @return 池中连接涉及的地址数量
+     */
+    public synchronized int routeCount() {
+        return buckets.size();
+    }
+
+    /**
+     * @return 复用池中连接的次数
+     */
+    public long reuseCount() {
+        return reuseCount.sum();
+    }
+
+    /**
+     * @return 新建连接的次数
+     */
+    public long connectCount() {
+        return connectCount.sum();
+    }
+
+    /**
+     * @return 因达到地址最大连接数而等待的次数
+     */
+    public long waitCount() {
+        return waitCount.sum();
+    }
+
+    /**
+     * @param unit 时间单位
+     * @return 等待连接的累计时长
+     */
+    public long waitTime(TimeUnit unit) {
+        return unit.convert(waitNanos.sum(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return 因过期或超出空闲数量而关闭的连接数
+     */
+    public long evictionCount() {
+        return evictionCount.sum();
     }
 
     /**
@@ -134,10 +234,24 @@ public final class ConnectionPool {
      */
     public RealConnection get(Address address, StreamAllocation streamAllocation, Route route) {
         assert (Thread.holdsLock(this));
-        for (RealConnection connection : connections) {
-            if (connection.isEligible(address, route)) {
-                streamAllocation.acquire(connection, true);
-                return connection;
+        Bucket bucket = buckets.get(address);
+        if (bucket != null) {
+            for (RealConnection connection : bucket.connections) {
+                if (connection.isEligible(address, route)) {
+                    streamAllocation.acquire(connection, true);
+                    reuseCount.increment();
+                    return connection;
+                }
+            }
+        }
+        if (route != null) {
+            // 连接合并: 其他地址的HTTP/2连接也可能满足条件
+            for (RealConnection connection : multiplexed) {
+                if (connection.isEligible(address, route)) {
+                    streamAllocation.acquire(connection, true);
+                    reuseCount.increment();
+                    return connection;
+                }
             }
         }
         return null;
@@ -153,7 +267,11 @@ public final class ConnectionPool {
      */
     public Socket deduplicate(Address address, StreamAllocation streamAllocation) {
         assert (Thread.holdsLock(this));
-        for (RealConnection connection : connections) {
+        Bucket bucket = buckets.get(address);
+        if (bucket == null) {
+            return null;
+        }
+        for (RealConnection connection : bucket.connections) {
             if (connection.isEligible(address, null)
                     && connection.isMultiplexed()
                     && connection != streamAllocation.connection()) {
@@ -169,7 +287,87 @@ public final class ConnectionPool {
             cleanupRunning = true;
             executor.execute(cleanupRunnable);
         }
-        connections.add(connection);
+        Bucket bucket = bucket(connection.route().address());
+        if (bucket.connecting > 0) {
+            bucket.connecting--;
+        }
+        bucket.connections.add(connection);
+        if (connection.isMultiplexed()) {
+            multiplexed.add(connection);
+        }
+        connectionCount++;
+        connectCount.increment();
+    }
+
+    /**
+     * 为新建连接预留名额。若地址的连接数已达上限,则等待其他连接空闲或关闭,
+     * 等待期间如有可用的空闲连接,直接分配给{@code streamAllocation}
+     *
+     * @param address          地址
+     * @param streamAllocation 协调者
+     * @param timeoutMillis    最长等待时间,0表示一直等待
+     * @return true: 已预留名额,需新建连接并调用{@link #put}; false: 已分配池中的连接
+     * @throws IOException 请求被取消或等待超时
+     */
+    boolean reserve(Address address, StreamAllocation streamAllocation, int timeoutMillis) throws IOException {
+        assert (Thread.holdsLock(this));
+        Bucket bucket = bucket(address);
+        if (bucket.connections.size() + bucket.connecting < maxTotalPerRoute) {
+            bucket.connecting++;
+            return true;
+        }
+        waitCount.increment();
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        try {
+            while (true) {
+                if (streamAllocation.isCanceled()) {
+                    throw new IOException("Canceled");
+                }
+                if (get(address, streamAllocation, null) != null) {
+                    return false;
+                }
+                // 等待期间分组可能已被清理
+                bucket = bucket(address);
+                if (bucket.connections.size() + bucket.connecting < maxTotalPerRoute) {
+                    bucket.connecting++;
+                    return true;
+                }
+                long remaining = timeoutMillis == 0 ? 0 : deadline - System.nanoTime();
+                if (timeoutMillis != 0 && remaining <= 0) {
+                    throw new InterruptedIOException("Timed out waiting for a connection to " + address.url());
+                }
+                try {
+                    if (remaining == 0) {
+                        wait();
+                    } else {
+                        wait(remaining / 1000000L, (int) (remaining % 1000000L));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("interrupted");
+                }
+            }
+        } finally {
+            waitNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 释放{@link #reserve}预留但未能建立连接的名额
+     *
+     * @param address 地址
+     */
+    void release(Address address) {
+        assert (Thread.holdsLock(this));
+        Bucket bucket = buckets.get(address);
+        if (bucket != null && bucket.connecting > 0) {
+            bucket.connecting--;
+            if (bucket.isEmpty()) {
+                buckets.remove(address);
+            }
+        }
+        notifyAll();
     }
 
     /**
@@ -180,14 +378,13 @@ public final class ConnectionPool {
      */
     public boolean connectionBecameIdle(RealConnection connection) {
         assert (Thread.holdsLock(this));
-        if (connection.noNewStreams || maxIdleConnections == 0) {
-            connections.remove(connection);
+        // 唤醒清理线程与等待连接的请求:可能已经超过了空闲连接限制
+        notifyAll();
+        if (connection.noNewStreams || maxIdleConnections == 0 || maxIdlePerRoute == 0) {
+            remove(connection);
             return true;
-        } else {
-            // 唤醒清理线程:可能已经超过了空闲连接限制
-            notifyAll();
-            return false;
         }
+        return false;
     }
 
     /**
@@ -196,14 +393,18 @@ public final class ConnectionPool {
     public void evictAll() {
         List<RealConnection> evictedConnections = new ArrayList<>();
         synchronized (this) {
-            for (Iterator<RealConnection> i = connections.iterator(); i.hasNext(); ) {
-                RealConnection connection = i.next();
-                if (connection.allocations.isEmpty()) {
-                    connection.noNewStreams = true;
-                    evictedConnections.add(connection);
-                    i.remove();
+            for (Bucket bucket : buckets.values()) {
+                for (RealConnection connection : bucket.connections) {
+                    if (connection.allocations.isEmpty()) {
+                        connection.noNewStreams = true;
+                        evictedConnections.add(connection);
+                    }
                 }
             }
+            for (RealConnection connection : evictedConnections) {
+                remove(connection);
+            }
+            notifyAll();
         }
 
         for (RealConnection connection : evictedConnections) {
@@ -212,59 +413,97 @@ public final class ConnectionPool {
     }
 
     /**
-     * 对这个池执行维护，如果连接超出了keep alive限制或idle connections限制，就会清除空闲时间最长的连接
+     * 对这个池执行维护，清除超出keep alive限制的连接,以及超出空闲连接数量限制时空闲时间最长的连接
      * 返回到该方法的下一次预定调用之前在nanos中的睡眠时间。如果不需要进一步清理，则返回-1
      *
      * @param now 空闲时间
      * @return 睡眠时间
      */
     long cleanup(long now) {
-        int inUseConnectionCount = 0;
-        int idleConnectionCount = 0;
-        RealConnection longestIdleConnection = null;
-        long longestIdleDurationNs = Long.MIN_VALUE;
+        List<RealConnection> evicted = new ArrayList<>();
+        long waitNanos;
 
-        // 找到与清除的联系，或者下一次清除的时间
         synchronized (this) {
-            for (Iterator<RealConnection> i = connections.iterator(); i.hasNext(); ) {
-                RealConnection connection = i.next();
-
-                // 如果正在使用连接，请继续搜索.
-                if (pruneAndGetAllocationCount(connection, now) > 0) {
-                    inUseConnectionCount++;
-                    continue;
+            int inUseConnectionCount = 0;
+            List<RealConnection> idle = new ArrayList<>();
+            for (Bucket bucket : buckets.values()) {
+                int from = idle.size();
+                for (RealConnection connection : bucket.connections) {
+                    // 如果正在使用连接，请继续搜索.
+                    if (pruneAndGetAllocationCount(connection, now) > 0) {
+                        inUseConnectionCount++;
+                    } else if (now - connection.idleAtNanos >= keepAliveDurationNs) {
+                        evicted.add(connection);
+                    } else {
+                        idle.add(connection);
+                    }
                 }
-
-                idleConnectionCount++;
-
-                // 如果连接准备好被驱逐，我们就完成了
-                long idleDurationNs = now - connection.idleAtNanos;
-                if (idleDurationNs > longestIdleDurationNs) {
-                    longestIdleDurationNs = idleDurationNs;
-                    longestIdleConnection = connection;
+                // 超出地址的空闲连接限制,清除空闲时间最长的连接
+                int excess = idle.size() - from - maxIdlePerRoute;
+                if (excess > 0) {
+                    List<RealConnection> routeIdle = idle.subList(from, idle.size());
+                    routeIdle.sort(Comparator.comparingLong(connection -> connection.idleAtNanos));
+                    evicted.addAll(routeIdle.subList(0, excess));
+                    routeIdle.subList(0, excess).clear();
                 }
             }
+            // 超出总的空闲连接限制
+            int excess = idle.size() - maxIdleConnections;
+            if (excess > 0) {
+                idle.sort(Comparator.comparingLong(connection -> connection.idleAtNanos));
+                evicted.addAll(idle.subList(0, excess));
+                idle.subList(0, excess).clear();
+            }
+            for (RealConnection connection : evicted) {
+                remove(connection);
+            }
+            if (!evicted.isEmpty()) {
+                notifyAll();
+            }
 
-            if (longestIdleDurationNs >= this.keepAliveDurationNs
-                    || idleConnectionCount > this.maxIdleConnections) {
-                // 我们发现了与驱逐有关的证据。将它从列表中移除，然后在下面(同步块外部)关闭它
-                connections.remove(longestIdleConnection);
-            } else if (idleConnectionCount > 0) {
-                // 一个连接将准备驱逐很快.
-                return keepAliveDurationNs - longestIdleDurationNs;
+            if (!idle.isEmpty()) {
+                // 下一个连接将准备驱逐
+                long oldest = Long.MAX_VALUE;
+                for (RealConnection connection : idle) {
+                    oldest = Math.min(oldest, connection.idleAtNanos);
+                }
+                waitNanos = Math.max(0, keepAliveDurationNs - (now - oldest));
             } else if (inUseConnectionCount > 0) {
                 // 所有连接都在使用中。至少能维持生命直到我们再次运行.
-                return keepAliveDurationNs;
+                waitNanos = keepAliveDurationNs;
             } else {
                 // 没有连接，空闲或正在使用
                 cleanupRunning = false;
-                return -1;
+                waitNanos = -1;
             }
         }
 
-        IoUtils.close(longestIdleConnection.socket());
-        // 立即清理.
-        return 0;
+        evictionCount.add(evicted.size());
+        for (RealConnection connection : evicted) {
+            IoUtils.close(connection.socket());
+        }
+        return waitNanos;
+    }
+
+    private Bucket bucket(Address address) {
+        return buckets.computeIfAbsent(address, key -> new Bucket());
+    }
+
+    /**
+     * 从池中移除连接
+     */
+    private void remove(RealConnection connection) {
+        Address address = connection.route().address();
+        Bucket bucket = buckets.get(address);
+        if (bucket != null && bucket.connections.remove(connection)) {
+            connectionCount--;
+            if (connection.isMultiplexed()) {
+                multiplexed.remove(connection);
+            }
+            if (bucket.isEmpty()) {
+                buckets.remove(address);
+            }
+        }
     }
 
     /**
@@ -304,4 +543,20 @@ public final class ConnectionPool {
         return references.size();
     }
 
+    /**
+     * 同一地址的连接
+     */
+    private static final class Bucket {
+
+        final List<RealConnection> connections = new ArrayList<>();
+        /**
+         * 已预留名额但尚未建立完成的连接数
+         */
+        int connecting;
+
+        boolean isEmpty() {
+            return connections.isEmpty() && connecting == 0;
+        }
+    }
+
 }
@@ -127,6 +127,13 @@ public final class RealConnection extends Http2Connection.Listener implements Co
     public void connect(int connectTimeout, int readTimeout, int writeTimeout,
                         int pingIntervalMillis, boolean connectionRetryEnabled, NewCall call,
                         EventListener eventListener) {
+        connect(connectTimeout, readTimeout, writeTimeout, pingIntervalMillis, 4096, 16384,
+                connectionRetryEnabled, call, eventListener);
+    }
+
+    public void connect(int connectTimeout, int readTimeout, int writeTimeout,
+                        int pingIntervalMillis, int headerTableSize, int encoderHeaderTableSize,
+                        boolean connectionRetryEnabled, NewCall call, EventListener eventListener) {
         if (protocol != null) throw new IllegalStateException("already connected");
 
         RouteException routeException = null;
@@ -161,7 +168,8 @@ public final class RealConnection extends Http2Connection.Listener implements Co
                 } else {
                     connectSocket(connectTimeout, readTimeout, call, eventListener);
                 }
-                establishProtocol(connectionSelector, pingIntervalMillis, call, eventListener);
+                establishProtocol(connectionSelector, pingIntervalMillis, headerTableSize,
+                        encoderHeaderTableSize, call, eventListener);
                 eventListener.connectEnd(call, route.socketAddress(), route.proxy(), protocol);
                 break;
             } catch (IOException e) {
@@ -275,12 +283,13 @@ public final class RealConnection extends Http2Connection.Listener implements Co
     }
 
     private void establishProtocol(ConnectionSelector connectionSelector,
-                                   int pingIntervalMillis, NewCall call, EventListener eventListener) throws IOException {
+                                   int pingIntervalMillis, int headerTableSize, int encoderHeaderTableSize,
+                                   NewCall call, EventListener eventListener) throws IOException {
         if (route.address().sslSocketFactory() == null) {
             if (route.address().protocols().contains(Protocol.H2_PRIOR_KNOWLEDGE)) {
                 socket = rawSocket;
                 protocol = Protocol.H2_PRIOR_KNOWLEDGE;
-                startHttp2(pingIntervalMillis);
+                startHttp2(pingIntervalMillis, headerTableSize, encoderHeaderTableSize);
                 return;
             }
 
@@ -294,17 +303,20 @@ public final class RealConnection extends Http2Connection.Listener implements Co
         eventListener.secureConnectEnd(call, handshake);
 
         if (protocol == Protocol.HTTP_2) {
-            startHttp2(pingIntervalMillis);
+            startHttp2(pingIntervalMillis, headerTableSize, encoderHeaderTableSize);
         }
     }
 
-    private void startHttp2(int pingIntervalMillis) throws IOException {
+    private void startHttp2(int pingIntervalMillis, int headerTableSize,
+                            int encoderHeaderTableSize) throws IOException {
         // HTTP/2连接超时是按流设置的
         socket.setSoTimeout(0);
         http2Connection = new Http2Connection.Builder(true)
                 .socket(socket, route.address().url().host(), source, sink)
                 .listener(this)
                 .pingIntervalMillis(pingIntervalMillis)
+                .headerTableSize(headerTableSize)
+                .encoderHeaderTableSize(encoderHeaderTableSize)
                 .build();
         http2Connection.start();
     }
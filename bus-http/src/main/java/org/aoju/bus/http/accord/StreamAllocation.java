@@ -82,11 +82,14 @@ public final class StreamAllocation {
         int readTimeout = chain.readTimeoutMillis();
         int writeTimeout = chain.writeTimeoutMillis();
         int pingIntervalMillis = client.pingIntervalMillis();
+        int headerTableSize = client.http2HeaderTableSize();
+        int encoderHeaderTableSize = client.http2EncoderHeaderTableSize();
         boolean connectionRetryEnabled = client.retryOnConnectionFailure();
 
         try {
             RealConnection resultConnection = findHealthyConnection(connectTimeout, readTimeout,
-                    writeTimeout, pingIntervalMillis, connectionRetryEnabled, doExtensiveHealthChecks);
+                    writeTimeout, pingIntervalMillis, headerTableSize, encoderHeaderTableSize,
+                    connectionRetryEnabled, doExtensiveHealthChecks);
             HttpCodec resultCodec = resultConnection.newCodec(client, chain, this);
 
             synchronized (connectionPool) {
@@ -105,17 +108,20 @@ public final class StreamAllocation {
      * @param readTimeout             读取超时时间
      * @param writeTimeout            写入超时时间
      * @param pingIntervalMillis      ping间隔时间
+     * @param headerTableSize         HTTP/2通告的头信息表大小
+     * @param encoderHeaderTableSize  HTTP/2编码头信息的动态表上限
      * @param connectionRetryEnabled  是否重试
      * @param doExtensiveHealthChecks 是否健康检查
      * @return 连接信息
      * @throws IOException 异常
      */
     private RealConnection findHealthyConnection(int connectTimeout, int readTimeout,
-                                                 int writeTimeout, int pingIntervalMillis, boolean connectionRetryEnabled,
+                                                 int writeTimeout, int pingIntervalMillis, int headerTableSize,
+                                                 int encoderHeaderTableSize, boolean connectionRetryEnabled,
                                                  boolean doExtensiveHealthChecks) throws IOException {
         while (true) {
             RealConnection candidate = findConnection(connectTimeout, readTimeout, writeTimeout,
-                    pingIntervalMillis, connectionRetryEnabled);
+                    pingIntervalMillis, headerTableSize, encoderHeaderTableSize, connectionRetryEnabled);
 
             // 如果这是一个全新的连接，可以跳过大量的健康检查
             synchronized (connectionPool) {
@@ -141,12 +147,15 @@ public final class StreamAllocation {
      * @param readTimeout            读取超时时间
      * @param writeTimeout           写入超时时间
      * @param pingIntervalMillis     ping间隔时间
+     * @param headerTableSize        HTTP/2通告的头信息表大小
+     * @param encoderHeaderTableSize HTTP/2编码头信息的动态表上限
      * @param connectionRetryEnabled 是否重试
      * @return 连接信息
      * @throws IOException 异常
      */
     private RealConnection findConnection(int connectTimeout, int readTimeout, int writeTimeout,
-                                          int pingIntervalMillis, boolean connectionRetryEnabled) throws IOException {
+                                          int pingIntervalMillis, int headerTableSize, int encoderHeaderTableSize,
+                                          boolean connectionRetryEnabled) throws IOException {
         boolean foundPooledConnection = false;
         RealConnection result = null;
         Route selectedRoute = null;
@@ -220,15 +229,28 @@ public final class StreamAllocation {
             }
 
             if (!foundPooledConnection) {
-                if (selectedRoute == null) {
-                    selectedRoute = routeSelection.next();
+                // 地址的连接数达到上限时等待,期间可能分配到变为空闲的连接
+                if (!connectionPool.reserve(address, this, connectTimeout)) {
+                    foundPooledConnection = true;
+                    result = connection;
+                    route = connection.route();
+                } else {
+                    try {
+                        if (selectedRoute == null) {
+                            selectedRoute = routeSelection.next();
+                        }
+
+                        // 创建一个连接并立即将其分配给这个分配。这使得异步cancel()可以中断我们将要进行的握手
+                        route = selectedRoute;
+                        refusedStreamCount = 0;
+                        result = new RealConnection(connectionPool, selectedRoute);
+                        acquire(result, false);
+                    } catch (RuntimeException e) {
+                        // 连接尚未开始建立,归还预留的名额
+                        connectionPool.release(address);
+                        throw e;
+                    }
                 }
-
-                // 创建一个连接并立即将其分配给这个分配。这使得异步cancel()可以中断我们将要进行的握手
-                route = selectedRoute;
-                refusedStreamCount = 0;
-                result = new RealConnection(connectionPool, selectedRoute);
-                acquire(result, false);
             }
         }
 
@@ -239,8 +261,15 @@ public final class StreamAllocation {
         }
 
         // TCP + TLS握手，这是一个阻塞操作
-        result.connect(connectTimeout, readTimeout, writeTimeout, pingIntervalMillis,
-                connectionRetryEnabled, call, eventListener);
+        try {
+            result.connect(connectTimeout, readTimeout, writeTimeout, pingIntervalMillis,
+                    headerTableSize, encoderHeaderTableSize, connectionRetryEnabled, call, eventListener);
+        } catch (RuntimeException e) {
+            synchronized (connectionPool) {
+                connectionPool.release(address);
+            }
+            throw e;
+        }
         routeDatabase().connected(result.route());
 
         Socket socket = null;
@@ -404,6 +433,8 @@ public final class StreamAllocation {
             canceled = true;
             codecToCancel = codec;
             connectionToCancel = connection;
+            // 唤醒可能在等待连接的请求
+            connectionPool.notifyAll();
         }
         if (codecToCancel != null) {
             codecToCancel.cancel();
@@ -513,6 +544,11 @@ public final class StreamAllocation {
         return socket;
     }
 
+    boolean isCanceled() {
+        assert (Thread.holdsLock(connectionPool));
+        return canceled;
+    }
+
     public boolean hasMoreRoutes() {
         return route != null
                 || (routeSelection != null && routeSelection.hasNext())
@@ -27,15 +27,23 @@ package org.aoju.bus.http.bodys;
 import org.aoju.bus.core.io.Buffer;
 import org.aoju.bus.core.io.BufferSource;
 import org.aoju.bus.core.io.ByteString;
+import org.aoju.bus.core.io.Sink;
 import org.aoju.bus.core.lang.MediaType;
 import org.aoju.bus.core.utils.IoUtils;
 import org.aoju.bus.http.Builder;
 import org.aoju.bus.http.Callback;
 import org.aoju.bus.http.NewCall;
 import org.aoju.bus.http.Response;
+import org.aoju.bus.http.magic.ProgressListener;
 
 import java.io.*;
 import java.nio.charset.Charset;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * 从源服务器到客户机应用程序的一次性流，包含响应主体的原始字节。 到web服务器的活动连接支持每个响应主体。
@@ -57,13 +65,19 @@ import java.nio.charset.Charset;
  * 它甚至可以传输大于当前设备总存储的响应，这是视频流应用程序的一个常见需求
  * 因为这个类不会在内存中缓冲完整的响应，所以应用程序可能不会重新读取响应的字节。使用{@link #bytes()}
  * 或{@link #string()}将整个响应读入内存。或者使用{@link #source()}、{@link #byteStream()}
- * 或{@link #charStream()}来处理响应
+ * 或{@link #charStream()}来处理响应,也可以使用{@link #writeTo(File)}、{@link #lines()}、
+ * {@link #jsonArray()}等方法流式处理
  *
  * @author Kimi Liu
  * @version 5.8.6
  * @since JDK 1.8+
  */
 public abstract class ResponseBody implements Closeable {
+    /**
+     * 流式写出时每次转移的字节数
+     */
+    private static final long SEGMENT_SIZE = 8192;
+
     /**
      * 多次调用{@link #charStream()}必须返回相同的实例.
      */
@@ -187,6 +201,119 @@ public abstract class ResponseBody implements Closeable {
         }
     }
 
+    /**
+     * 将响应体写入输出,数据按段转移而不整体读入内存,完成后关闭响应体
+     *
+     * @param sink     输出
+     * @param listener 进度监听,可为null
+     * @return 写入的字节数
+     * @throws IOException 异常
+     */
+    public final long writeTo(Sink sink, ProgressListener listener) throws IOException {
+        long total = contentLength();
+        long written = 0;
+        BufferSource source = source();
+        try {
+            if (listener == null) {
+                written = source.readAll(sink);
+            } else {
+                Buffer buffer = new Buffer();
+                for (long read; (read = source.read(buffer, SEGMENT_SIZE)) != -1; ) {
+                    sink.write(buffer, read);
+                    written += read;
+                    listener.updateProgress(written, total, false);
+                }
+            }
+            sink.flush();
+        } finally {
+            IoUtils.close(source);
+        }
+        if (listener != null) {
+            listener.updateProgress(written, total, true);
+        }
+        return written;
+    }
+
+    /**
+     * 将响应体写入输出流,不关闭输出流
+     *
+     * @param out      输出流
+     * @param listener 进度监听,可为null
+     * @return 写入的字节数
+     * @throws IOException 异常
+     */
+    public final long writeTo(OutputStream out, ProgressListener listener) throws IOException {
+        return writeTo(IoUtils.sink(out), listener);
+    }
+
+    /**
+     * 将响应体写入文件
+     *
+     * @param file 文件
+     * @return 写入的字节数
+     * @throws IOException 异常
+     */
+    public final long writeTo(File file) throws IOException {
+        return writeTo(file, null);
+    }
+
+    /**
+     * 将响应体写入文件
+     *
+     * @param file     文件
+     * @param listener 进度监听,可为null
+     * @return 写入的字节数
+     * @throws IOException 异常
+     */
+    public final long writeTo(File file, ProgressListener listener) throws IOException {
+        Sink sink = IoUtils.sink(file);
+        try {
+            return writeTo(sink, listener);
+        } finally {
+            IoUtils.close(sink);
+        }
+    }
+
+    /**
+     * 按行读取响应体,读取时才从网络获取数据;使用完毕需关闭返回的流以关闭响应体
+     *
+     * @return 行
+     */
+    public final Stream<String> lines() {
+        return new BufferedReader(charStream()).lines().onClose(this::close);
+    }
+
+    /**
+     * 按行解析NDJSON(每行一个JSON)响应体,忽略空行
+     *
+     * @param parser 单行JSON的解析方法
+     * @param <T>    解析结果类型
+     * @return 解析结果
+     */
+    public final <T> Stream<T> ndjson(Function<String, T> parser) {
+        return lines().filter(line -> !line.trim().isEmpty()).map(parser);
+    }
+
+    /**
+     * 逐个读取顶层JSON数组中的元素文本,每次只缓存一个元素;使用完毕需关闭返回的流以关闭响应体
+     *
+     * @return 元素文本
+     */
+    public final Stream<String> jsonArray() {
+        return StreamSupport.stream(new JsonElements(charStream()), false).onClose(this::close);
+    }
+
+    /**
+     * 逐个解析顶层JSON数组中的元素
+     *
+     * @param parser 单个元素的解析方法
+     * @param <T>    解析结果类型
+     * @return 解析结果
+     */
+    public final <T> Stream<T> jsonArray(Function<String, T> parser) {
+        return jsonArray().map(parser);
+    }
+
     private Charset charset() {
         MediaType contentType = contentType();
         return contentType != null ? contentType.charset(org.aoju.bus.core.lang.Charset.UTF_8) : org.aoju.bus.core.lang.Charset.UTF_8;
@@ -232,4 +359,111 @@ public abstract class ResponseBody implements Closeable {
         }
     }
 
+    /**
+     * 顶层JSON数组的元素读取,只识别元素边界,不解析元素内容
+     */
+    static final class JsonElements extends Spliterators.AbstractSpliterator<String> {
+
+        private final Reader reader;
+        private boolean started;
+        private boolean finished;
+        private int pending = -2;
+
+        JsonElements(Reader reader) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super String> action) {
+            try {
+                if (finished) {
+                    return false;
+                }
+                int c = nextClean();
+                if (!started) {
+                    if (c != '[') {
+                        throw new IOException("Expected a JSON array");
+                    }
+                    started = true;
+                    c = nextClean();
+                } else if (c == ',') {
+                    c = nextClean();
+                } else if (c != ']') {
+                    throw new IOException("Malformed JSON array");
+                }
+                if (c == ']') {
+                    finished = true;
+                    return false;
+                }
+                action.accept(readElement(c));
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private String readElement(int c) throws IOException {
+            StringBuilder builder = new StringBuilder();
+            int depth = 0;
+            boolean string = false;
+            boolean escaped = false;
+            for (; ; c = next()) {
+                if (c == -1) {
+                    throw new EOFException("Unterminated JSON array");
+                }
+                if (string) {
+                    builder.append((char) c);
+                    if (escaped) {
+                        escaped = false;
+                    } else if (c == '\\') {
+                        escaped = true;
+                    } else if (c == '"') {
+                        string = false;
+                        if (depth == 0) {
+                            return builder.toString();
+                        }
+                    }
+                } else if (c == '"') {
+                    builder.append('"');
+                    string = true;
+                } else if (c == '{' || c == '[') {
+                    builder.append((char) c);
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    if (depth == 0) {
+                        pending = c;
+                        return builder.toString();
+                    }
+                    builder.append((char) c);
+                    if (--depth == 0) {
+                        return builder.toString();
+                    }
+                } else if (depth == 0 && (c == ',' || Character.isWhitespace(c))) {
+                    pending = c;
+                    return builder.toString();
+                } else {
+                    builder.append((char) c);
+                }
+            }
+        }
+
+        private int next() throws IOException {
+            if (pending != -2) {
+                int c = pending;
+                pending = -2;
+                return c;
+            }
+            return reader.read();
+        }
+
+        private int nextClean() throws IOException {
+            int c;
+            do {
+                c = next();
+            } while (c != -1 && Character.isWhitespace(c));
+            return c;
+        }
+    }
+
 }
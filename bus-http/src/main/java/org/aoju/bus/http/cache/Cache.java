@@ -50,9 +50,12 @@ import java.security.cert.CertificateEncodingException;
 import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 缓存HTTP和HTTPS对文件系统的响应，以便可以重用它们，从而节省时间和带宽.
+ * 可按URL哈希拆分为多个互不影响的{@link DiskLruCache}分片,以降低高并发下的锁竞争
  *
  * @author Kimi Liu
  * @version 5.8.6
@@ -64,12 +67,17 @@ public final class Cache implements Closeable, Flushable {
     private static final int ENTRY_METADATA = 0;
     private static final int ENTRY_BODY = 1;
     private static final int ENTRY_COUNT = 2;
-    final DiskLruCache cache;
-    int writeSuccessCount;
-    int writeAbortCount;
-    private int networkCount;
-    private int hitCount;
-    private int requestCount;
+    /**
+     * 缓存分片,每个分片持有独立的日志和锁
+     */
+    final DiskLruCache[] shards;
+    final AtomicInteger writeSuccessCount = new AtomicInteger();
+    final AtomicInteger writeAbortCount = new AtomicInteger();
+    private final File directory;
+    private final AtomicInteger networkCount = new AtomicInteger();
+    private final AtomicInteger hitCount = new AtomicInteger();
+    private final AtomicInteger missCount = new AtomicInteger();
+    private final AtomicInteger requestCount = new AtomicInteger();
     public final InternalCache internalCache = new InternalCache() {
 
         @Override
@@ -110,11 +118,40 @@ public final class Cache implements Closeable, Flushable {
      * @param maxSize   缓存的最大大小(以字节为单位)
      */
     public Cache(File directory, long maxSize) {
-        this(directory, maxSize, FileSystem.SYSTEM);
+        this(directory, maxSize, 1);
+    }
+
+    /**
+     * 在{@code directory}中创建最多{@code maxSize}字节的缓存,按URL哈希拆分为{@code shards}个分片,
+     * 每个分片位于独立的子目录中,容量为{@code maxSize / shards}
+     *
+     * @param directory 目录
+     * @param maxSize   缓存的最大大小(以字节为单位)
+     * @param shards    分片数,为1时与单一缓存的目录结构一致
+     */
+    public Cache(File directory, long maxSize, int shards) {
+        this(directory, maxSize, shards, FileSystem.SYSTEM);
     }
 
     Cache(File directory, long maxSize, FileSystem fileSystem) {
-        this.cache = DiskLruCache.create(fileSystem, directory, VERSION, ENTRY_COUNT, maxSize);
+        this(directory, maxSize, 1, fileSystem);
+    }
+
+    Cache(File directory, long maxSize, int shards, FileSystem fileSystem) {
+        if (shards <= 0) {
+            throw new IllegalArgumentException("shards <= 0");
+        }
+        if (maxSize / shards <= 0) {
+            throw new IllegalArgumentException("maxSize < shards");
+        }
+        this.directory = directory;
+        this.shards = new DiskLruCache[shards];
+        Executor executor = DiskLruCache.newExecutor();
+        for (int i = 0; i < shards; i++) {
+            File shardDirectory = shards == 1 ? directory : new File(directory, Integer.toString(i));
+            this.shards[i] = DiskLruCache.create(fileSystem, shardDirectory, VERSION, ENTRY_COUNT,
+                    maxSize / shards, executor);
+        }
     }
 
     public static String key(UnoUrl url) {
@@ -134,12 +171,22 @@ public final class Cache implements Closeable, Flushable {
         }
     }
 
+    /**
+     * 获取缓存key所在的分片
+     *
+     * @param key 缓存key
+     * @return 分片
+     */
+    DiskLruCache shard(String key) {
+        return shards.length == 1 ? shards[0] : shards[(key.hashCode() & Integer.MAX_VALUE) % shards.length];
+    }
+
     Response get(Request request) {
         String key = key(request.url());
         DiskLruCache.Snapshot snapshot;
         Entry entry;
         try {
-            snapshot = cache.get(key);
+            snapshot = shard(key).get(key);
             if (snapshot == null) {
                 return null;
             }
@@ -186,10 +233,17 @@ public final class Cache implements Closeable, Flushable {
             return null;
         }
 
+        String key = key(response.request().url());
+        DiskLruCache cache = shard(key);
+        if (HttpHeaders.contentLength(response) > cache.getMaxSize()) {
+            // 超出分片容量的响应写入后会被立即淘汰,直接跳过
+            return null;
+        }
+
         Entry entry = new Entry(response);
         DiskLruCache.Editor editor = null;
         try {
-            editor = cache.edit(key(response.request().url()));
+            editor = cache.edit(key);
             if (editor == null) {
                 return null;
             }
@@ -202,7 +256,8 @@ public final class Cache implements Closeable, Flushable {
     }
 
     void remove(Request request) throws IOException {
-        cache.remove(key(request.url()));
+        String key = key(request.url());
+        shard(key).remove(key);
     }
 
     void update(Response cached, Response network) {
@@ -238,7 +293,9 @@ public final class Cache implements Closeable, Flushable {
      * @throws IOException 初始化异常
      */
     public void initialize() throws IOException {
-        cache.initialize();
+        for (DiskLruCache cache : shards) {
+            cache.initialize();
+        }
     }
 
     /**
@@ -247,7 +304,9 @@ public final class Cache implements Closeable, Flushable {
      * @throws IOException 删除异常
      */
     public void delete() throws IOException {
-        cache.delete();
+        for (DiskLruCache cache : shards) {
+            cache.delete();
+        }
     }
 
     /**
@@ -256,7 +315,9 @@ public final class Cache implements Closeable, Flushable {
      * @throws IOException 清除异常
      */
     public void evictAll() throws IOException {
-        cache.evictAll();
+        for (DiskLruCache cache : shards) {
+            cache.evictAll();
+        }
     }
 
 
@@ -269,7 +330,8 @@ public final class Cache implements Closeable, Flushable {
      */
     public Iterator<String> urls() throws IOException {
         return new Iterator<String>() {
-            final Iterator<DiskLruCache.Snapshot> delegate = cache.snapshots();
+            int shard = 0;
+            Iterator<DiskLruCache.Snapshot> delegate = shards[0].snapshots();
 
             String nextUrl;
             boolean canRemove;
@@ -280,7 +342,7 @@ public final class Cache implements Closeable, Flushable {
 
                 canRemove = false;
                 // 删除()在错误的内容
-                while (delegate.hasNext()) {
+                while (nextShard()) {
                     DiskLruCache.Snapshot snapshot = delegate.next();
                     try {
                         BufferSource metadata = IoUtils.buffer(snapshot.getSource(ENTRY_METADATA));
@@ -296,6 +358,23 @@ public final class Cache implements Closeable, Flushable {
                 return false;
             }
 
+            /**
+             * 当前分片遍历完后切换到下一个分片
+             */
+            private boolean nextShard() {
+                while (!delegate.hasNext()) {
+                    if (++shard >= shards.length) {
+                        return false;
+                    }
+                    try {
+                        delegate = shards[shard].snapshots();
+                    } catch (IOException e) {
+                        Logger.error(e);
+                    }
+                }
+                return true;
+            }
+
             @Override
             public String next() {
                 if (!hasNext()) throw new NoSuchElementException();
@@ -313,66 +392,114 @@ public final class Cache implements Closeable, Flushable {
         };
     }
 
-    public synchronized int writeAbortCount() {
-        return writeAbortCount;
+    public int writeAbortCount() {
+        return writeAbortCount.get();
     }
 
-    public synchronized int writeSuccessCount() {
-        return writeSuccessCount;
+    public int writeSuccessCount() {
+        return writeSuccessCount.get();
     }
 
     public long size() throws IOException {
-        return cache.size();
+        long size = 0;
+        for (DiskLruCache cache : shards) {
+            size += cache.size();
+        }
+        return size;
     }
 
     public long maxSize() {
-        return cache.getMaxSize();
+        long maxSize = 0;
+        for (DiskLruCache cache : shards) {
+            maxSize += cache.getMaxSize();
+        }
+        return maxSize;
+    }
+
+    /**
+     * @return 分片数
+     */
+    public int shardCount() {
+        return shards.length;
+    }
+
+    /**
+     * @return 所有分片因超出容量被淘汰的条目数
+     */
+    public long evictionCount() {
+        long count = 0;
+        for (DiskLruCache cache : shards) {
+            count += cache.evictionCount();
+        }
+        return count;
     }
 
     @Override
     public void flush() throws IOException {
-        cache.flush();
+        for (DiskLruCache cache : shards) {
+            cache.flush();
+        }
     }
 
     @Override
     public void close() throws IOException {
-        cache.close();
+        IOException failure = null;
+        for (DiskLruCache cache : shards) {
+            try {
+                cache.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
     }
 
     public File directory() {
-        return cache.getDirectory();
+        return directory;
     }
 
     public boolean isClosed() {
-        return cache.isClosed();
+        return shards[0].isClosed();
     }
 
-    synchronized void trackResponse(CacheStrategy cacheStrategy) {
-        requestCount++;
+    void trackResponse(CacheStrategy cacheStrategy) {
+        requestCount.incrementAndGet();
 
         if (cacheStrategy.networkRequest != null) {
             // 如果这是一个条件请求，我们将增加hitCount如果/当它命中。
-            networkCount++;
+            networkCount.incrementAndGet();
+            if (cacheStrategy.cacheResponse == null) {
+                missCount.incrementAndGet();
+            }
         } else if (cacheStrategy.cacheResponse != null) {
             // 此响应使用缓存而不是网络。这就是缓存命中
-            hitCount++;
+            hitCount.incrementAndGet();
         }
     }
 
-    synchronized void trackConditionalCacheHit() {
-        hitCount++;
+    void trackConditionalCacheHit() {
+        hitCount.incrementAndGet();
+    }
+
+    public int networkCount() {
+        return networkCount.get();
     }
 
-    public synchronized int networkCount() {
-        return networkCount;
+    public int hitCount() {
+        return hitCount.get();
     }
 
-    public synchronized int hitCount() {
-        return hitCount;
+    /**
+     * @return 没有可用缓存(非条件请求)而访问网络的次数
+     */
+    public int missCount() {
+        return missCount.get();
     }
 
-    public synchronized int requestCount() {
-        return requestCount;
+    public int requestCount() {
+        return requestCount.get();
     }
 
     private static final class Entry {
@@ -670,13 +797,13 @@ public final class Cache implements Closeable, Flushable {
             this.body = new DelegateSink(cacheOut) {
                 @Override
                 public void close() throws IOException {
-                    synchronized (Cache.this) {
+                    synchronized (CacheRequestImpl.this) {
                         if (done) {
                             return;
                         }
                         done = true;
-                        writeSuccessCount++;
                     }
+                    writeSuccessCount.incrementAndGet();
                     super.close();
                     editor.commit();
                 }
@@ -685,13 +812,13 @@ public final class Cache implements Closeable, Flushable {
 
         @Override
         public void abort() {
-            synchronized (Cache.this) {
+            synchronized (this) {
                 if (done) {
                     return;
                 }
                 done = true;
-                writeAbortCount++;
             }
+            writeAbortCount.incrementAndGet();
             IoUtils.close(cacheOut);
             try {
                 editor.abort();
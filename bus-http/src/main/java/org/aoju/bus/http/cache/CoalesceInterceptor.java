@@ -0,0 +1,324 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License                                                               *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.http.cache;
+
+import org.aoju.bus.core.lang.Header;
+import org.aoju.bus.core.lang.Http;
+import org.aoju.bus.core.lang.MediaType;
+import org.aoju.bus.core.lang.Symbol;
+import org.aoju.bus.core.utils.IoUtils;
+import org.aoju.bus.http.Request;
+import org.aoju.bus.http.Response;
+import org.aoju.bus.http.bodys.ResponseBody;
+import org.aoju.bus.http.metric.Interceptor;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 合并并发的相同GET请求
+ * <p>
+ * 相同请求(URL及请求头一致)同时发起时只有第一个访问网络,其余请求等待并共享其已缓冲的响应;
+ * 对配置的主机,成功响应还会按固定时长保存在内存中,期间忽略{@code Cache-Control}直接返回.
+ * 只共享长度已知的非流式响应,长度未知(分块传输、透明解压)或SSE等流式响应不合并.
+ * 位于{@link CacheInterceptor}之前,通过{@code Httpd.Builder#coalesce}启用
+ *
+ * @author Kimi Liu
+ * @version 5.8.6
+ * @since JDK 1.8+
+ */
+public final class CoalesceInterceptor implements Interceptor {
+
+    /**
+     * 等待首个请求时检查取消状态的间隔
+     */
+    private static final long POLL_MILLIS = 100;
+
+    private final long maxBodySize;
+    private final long memoTtlNanos;
+    private final Set<String> memoHosts;
+    private final int maxMemoEntries;
+    private final ConcurrentMap<String, CompletableFuture<Shared>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Shared> memo = new ConcurrentHashMap<>();
+    private final LongAdder networkCount = new LongAdder();
+    private final LongAdder coalescedCount = new LongAdder();
+    private final LongAdder memoHitCount = new LongAdder();
+
+    public CoalesceInterceptor() {
+        this(new Builder());
+    }
+
+    CoalesceInterceptor(Builder builder) {
+        if (builder.maxBodySize <= 0) {
+            throw new IllegalArgumentException("maxBodySize <= 0: " + builder.maxBodySize);
+        }
+        if (builder.maxMemoEntries < 1) {
+            throw new IllegalArgumentException("maxMemoEntries < 1: " + builder.maxMemoEntries);
+        }
+        this.maxBodySize = builder.maxBodySize;
+        this.memoTtlNanos = builder.memoTtl;
+        this.memoHosts = Collections.unmodifiableSet(new HashSet<>(builder.memoHosts));
+        this.maxMemoEntries = builder.maxMemoEntries;
+    }
+
+    /**
+     * 请求的合并key,包含URL及全部请求头
+     *
+     * @param request 请求
+     * @return key
+     */
+    static String key(Request request) {
+        return request.url() + Symbol.LF + request.headers();
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        if (!Http.GET.equals(request.method())
+                || request.header(Header.UPGRADE) != null
+                || request.header(Header.RANGE) != null) {
+            return chain.proceed(request);
+        }
+
+        String key = key(request);
+        boolean memoize = memoTtlNanos > 0 && memoHosts.contains(request.url().host());
+        if (memoize) {
+            Shared shared = memo.get(key);
+            if (shared != null) {
+                if (System.nanoTime() - shared.expireAt < 0) {
+                    memoHitCount.increment();
+                    return shared.response(request);
+                }
+                memo.remove(key, shared);
+            }
+        }
+
+        CompletableFuture<Shared> future = new CompletableFuture<>();
+        CompletableFuture<Shared> leader = inFlight.putIfAbsent(key, future);
+        if (leader != null) {
+            Shared shared = await(chain, leader);
+            if (shared != null) {
+                coalescedCount.increment();
+                return shared.response(request);
+            }
+            // 首个请求被取消或响应过大无法共享,自行访问网络
+            networkCount.increment();
+            return chain.proceed(request);
+        }
+
+        networkCount.increment();
+        try {
+            Response response = chain.proceed(request);
+            Shared shared = buffer(response);
+            if (shared == null) {
+                future.complete(null);
+                return response;
+            }
+            if (memoize && response.isSuccessful()) {
+                shared.expireAt = System.nanoTime() + memoTtlNanos;
+                remember(key, shared);
+            }
+            future.complete(shared);
+            return shared.response(request);
+        } catch (IOException | RuntimeException e) {
+            if (chain.call().isCanceled()) {
+                future.complete(null);
+            } else {
+                future.completeExceptionally(e);
+            }
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * 等待首个请求完成,期间当前请求被取消时抛出异常
+     */
+    private Shared await(Chain chain, CompletableFuture<Shared> leader) throws IOException {
+        try {
+            while (true) {
+                try {
+                    return leader.get(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    if (chain.call().isCanceled()) {
+                        throw new IOException("Canceled");
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw new IOException(cause.getMessage(), cause);
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * 读取完整响应体,长度未知、流式响应或超过上限时返回null,此时原响应不做读取
+     */
+    private Shared buffer(Response response) throws IOException {
+        ResponseBody body = response.body();
+        if (body == null) {
+            return new Shared(response, null, null);
+        }
+        // 长轮询、SSE及分块传输的响应可能长时间不结束,不等待其读完
+        long contentLength = body.contentLength();
+        if (contentLength < 0 || contentLength > maxBodySize || isStreaming(body.contentType())) {
+            return null;
+        }
+        try {
+            return new Shared(response, body.contentType(), body.bytes());
+        } finally {
+            IoUtils.close(body);
+        }
+    }
+
+    private static boolean isStreaming(MediaType contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        return ("text".equals(contentType.type()) && "event-stream".equals(contentType.subtype()))
+                || "multipart".equals(contentType.type());
+    }
+
+    private void remember(String key, Shared shared) {
+        if (memo.size() >= maxMemoEntries) {
+            long now = System.nanoTime();
+            memo.values().removeIf(value -> now - value.expireAt >= 0);
+            if (memo.size() >= maxMemoEntries) {
+                return;
+            }
+        }
+        memo.put(key, shared);
+    }
+
+    /**
+     * 清空内存中保存的响应
+     */
+    public void evictAll() {
+        memo.clear();
+    }
+
+    /**
+     * @return 实际访问网络的请求数
+     */
+    public long networkCount() {
+        return networkCount.sum();
+    }
+
+    /**
+     * @return 共享其他请求响应的请求数
+     */
+    public long coalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    /**
+     * @return 直接使用内存保存响应的请求数
+     */
+    public long memoHitCount() {
+        return memoHitCount.sum();
+    }
+
+    /**
+     * 已缓冲的响应,每个请求得到独立的响应体
+     */
+    private static final class Shared {
+        final Response response;
+        final MediaType contentType;
+        final byte[] bytes;
+        volatile long expireAt;
+
+        Shared(Response response, MediaType contentType, byte[] bytes) {
+            this.response = response;
+            this.contentType = contentType;
+            this.bytes = bytes;
+        }
+
+        Response response(Request request) {
+            Response.Builder builder = response.newBuilder().request(request);
+            if (bytes != null) {
+                builder.body(ResponseBody.create(contentType, bytes));
+            }
+            return builder.build();
+        }
+    }
+
+    public static final class Builder {
+
+        final Set<String> memoHosts = new HashSet<>();
+        long maxBodySize = 1024 * 1024;
+        long memoTtl = 0;
+        int maxMemoEntries = 256;
+
+        public Builder() {
+        }
+
+        public CoalesceInterceptor build() {
+            return new CoalesceInterceptor(this);
+        }
+
+        /**
+         * @param maxBodySize 可共享的最大响应体字节数,默认1M,超过时等待的请求各自访问网络
+         * @return this
+         */
+        public Builder maxBodySize(long maxBodySize) {
+            this.maxBodySize = maxBodySize;
+            return this;
+        }
+
+        /**
+         * 对指定主机的成功响应在内存中保存固定时长,期间忽略{@code Cache-Control}
+         *
+         * @param ttl   保存时长
+         * @param unit  时间单位
+         * @param hosts 主机名
+         * @return this
+         */
+        public Builder memoize(long ttl, TimeUnit unit, String... hosts) {
+            this.memoTtl = unit.toNanos(ttl);
+            this.memoHosts.addAll(Arrays.asList(hosts));
+            return this;
+        }
+
+        /**
+         * @param maxMemoEntries 内存中最多保存的响应数,默认256
+         * @return this
+         */
+        public Builder maxMemoEntries(int maxMemoEntries) {
+            this.maxMemoEntries = maxMemoEntries;
+            return this;
+        }
+    }
+
+}
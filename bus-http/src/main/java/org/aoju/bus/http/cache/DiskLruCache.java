@@ -85,6 +85,13 @@ public final class DiskLruCache implements Closeable, Flushable {
     boolean closed;
     boolean mostRecentTrimFailed;
     boolean mostRecentRebuildFailed;
+    /**
+     * 日志刷新任务是否已提交
+     */
+    boolean flushScheduled;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
     /**
      * 存用于存储其数据的最大字节数
      */
@@ -118,6 +125,24 @@ public final class DiskLruCache implements Closeable, Flushable {
             }
         }
     };
+    /**
+     * 合并提交/删除产生的日志刷新,在后台线程批量写入
+     */
+    private final Runnable flushRunnable = new Runnable() {
+        public void run() {
+            synchronized (DiskLruCache.this) {
+                flushScheduled = false;
+                if (!initialized || closed || journalWriter == null) {
+                    return;
+                }
+                try {
+                    journalWriter.flush();
+                } catch (IOException e) {
+                    hasJournalErrors = true;
+                }
+            }
+        }
+    };
     /**
      * 为了区分旧快照和当前快照，每次提交编辑时都会给每个条目一个序列号。
      * 如果快照的序列号不等于其条目的序列号，则该快照将失效
@@ -149,17 +174,34 @@ public final class DiskLruCache implements Closeable, Flushable {
      */
     public static DiskLruCache create(FileSystem fileSystem, File directory, int appVersion,
                                       int valueCount, long maxSize) {
+        return create(fileSystem, directory, appVersion, valueCount, maxSize, newExecutor());
+    }
+
+    /**
+     * 创建使用指定后台线程执行日志刷新、重建及清理的缓存,多个分片可共用同一个执行器
+     *
+     * @param fileSystem 读写文件
+     * @param directory  一个可写目录
+     * @param appVersion 版本信息
+     * @param valueCount 每个缓存条目的值数目.
+     * @param maxSize    此缓存应用于存储的最大字节数
+     * @param executor   后台执行器
+     * @return the disk cache
+     */
+    static DiskLruCache create(FileSystem fileSystem, File directory, int appVersion,
+                               int valueCount, long maxSize, Executor executor) {
         if (maxSize <= 0) {
             throw new IllegalArgumentException("maxSize <= 0");
         }
         if (valueCount <= 0) {
             throw new IllegalArgumentException("valueCount <= 0");
         }
+        return new DiskLruCache(fileSystem, directory, appVersion, valueCount, maxSize, executor);
+    }
 
-        Executor executor = new ThreadPoolExecutor(0, 1, 60L, TimeUnit.SECONDS,
+    static Executor newExecutor() {
+        return new ThreadPoolExecutor(0, 1, 60L, TimeUnit.SECONDS,
                 new LinkedBlockingQueue<>(), Builder.threadFactory("Httpd DiskLruCache", true));
-
-        return new DiskLruCache(fileSystem, directory, appVersion, valueCount, maxSize, executor);
     }
 
     public synchronized void initialize() throws IOException {
@@ -370,23 +412,44 @@ public final class DiskLruCache implements Closeable, Flushable {
      * @return the 快照信息
      * @throws IOException 异常
      */
-    public synchronized Snapshot get(String key) throws IOException {
-        initialize();
-
-        checkNotClosed();
+    public Snapshot get(String key) throws IOException {
         validateKey(key);
-        Entry entry = lruEntries.get(key);
-        if (entry == null || !entry.readable) return null;
-
-        Snapshot snapshot = entry.snapshot();
-        if (snapshot == null) return null;
-
-        redundantOpCount++;
-        journalWriter.writeUtf8(READ).writeByte(Symbol.C_SPACE).writeUtf8(key).writeByte(Symbol.C_LF);
-        if (journalRebuildRequired()) {
-            executor.execute(cleanupRunnable);
+        Entry entry;
+        long sequenceNumber;
+        long[] lengths;
+        synchronized (this) {
+            initialize();
+            checkNotClosed();
+            entry = lruEntries.get(key);
+            if (entry == null || !entry.readable) {
+                missCount++;
+                return null;
+            }
+            sequenceNumber = entry.sequenceNumber;
+            lengths = entry.lengths.clone();
         }
 
+        // 在锁外打开文件,若期间条目被重新提交则丢弃并在锁内重新获取
+        Snapshot snapshot = entry.open(sequenceNumber, lengths);
+        synchronized (this) {
+            if (closed || snapshot == null || entry.sequenceNumber != sequenceNumber
+                    || lruEntries.get(key) != entry) {
+                IoUtils.close(snapshot);
+                checkNotClosed();
+                entry = lruEntries.get(key);
+                snapshot = (entry == null || !entry.readable) ? null : entry.snapshot();
+                if (snapshot == null) {
+                    missCount++;
+                    return null;
+                }
+            }
+            hitCount++;
+            redundantOpCount++;
+            journalWriter.writeUtf8(READ).writeByte(Symbol.C_SPACE).writeUtf8(key).writeByte(Symbol.C_LF);
+            if (journalRebuildRequired()) {
+                executor.execute(cleanupRunnable);
+            }
+        }
         return snapshot;
     }
 
@@ -514,13 +577,23 @@ public final class DiskLruCache implements Closeable, Flushable {
             journalWriter.writeUtf8(entry.key);
             journalWriter.writeByte(Symbol.C_LF);
         }
-        journalWriter.flush();
+        scheduleJournalFlush();
 
         if (size > maxSize || journalRebuildRequired()) {
             executor.execute(cleanupRunnable);
         }
     }
 
+    /**
+     * 提交后台刷新日志,已提交但未执行的刷新会被合并
+     */
+    private void scheduleJournalFlush() {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            executor.execute(flushRunnable);
+        }
+    }
+
     /**
      * 只有当日志的大小减半并至少减少2000个ops时，我们才会重建日志
      *
@@ -566,6 +639,7 @@ public final class DiskLruCache implements Closeable, Flushable {
         redundantOpCount++;
         journalWriter.writeUtf8(REMOVE).writeByte(Symbol.C_SPACE).writeUtf8(entry.key).writeByte(Symbol.C_LF);
         lruEntries.remove(entry.key);
+        scheduleJournalFlush();
 
         if (journalRebuildRequired()) {
             executor.execute(cleanupRunnable);
@@ -574,6 +648,27 @@ public final class DiskLruCache implements Closeable, Flushable {
         return true;
     }
 
+    /**
+     * @return 命中次数
+     */
+    public synchronized long hitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return 未命中次数
+     */
+    public synchronized long missCount() {
+        return missCount;
+    }
+
+    /**
+     * @return 因超出容量被淘汰的条目数
+     */
+    public synchronized long evictionCount() {
+        return evictionCount;
+    }
+
     public synchronized boolean isClosed() {
         return closed;
     }
@@ -614,6 +709,7 @@ public final class DiskLruCache implements Closeable, Flushable {
         while (size > maxSize) {
             Entry toEvict = lruEntries.values().iterator().next();
             removeEntry(toEvict);
+            evictionCount++;
         }
         mostRecentTrimFailed = false;
     }
@@ -929,8 +1025,25 @@ public final class DiskLruCache implements Closeable, Flushable {
         Snapshot snapshot() {
             if (!Thread.holdsLock(DiskLruCache.this)) throw new AssertionError();
 
+            Snapshot snapshot = open(sequenceNumber, lengths.clone());
+            if (snapshot == null) {
+                try {
+                    removeEntry(this);
+                } catch (IOException ignored) {
+                }
+            }
+            return snapshot;
+        }
+
+        /**
+         * 打开条目的全部文件,不要求持有锁;文件不存在时返回null
+         *
+         * @param sequenceNumber 序列号
+         * @param lengths        文件长度
+         * @return 快照信息
+         */
+        Snapshot open(long sequenceNumber, long[] lengths) {
             Source[] sources = new Source[valueCount];
-            long[] lengths = this.lengths.clone();
             try {
                 for (int i = 0; i < valueCount; i++) {
                     sources[i] = fileSystem.source(cleanFiles[i]);
@@ -944,10 +1057,6 @@ public final class DiskLruCache implements Closeable, Flushable {
                         break;
                     }
                 }
-                try {
-                    removeEntry(this);
-                } catch (IOException ignored) {
-                }
                 return null;
             }
         }
@@ -24,11 +24,12 @@
  ********************************************************************************/
 package org.aoju.bus.http.magic;
 
-import org.aoju.bus.core.utils.StreamUtils;
 import org.aoju.bus.http.NewCall;
 import org.aoju.bus.logger.Logger;
 
-import java.io.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 
 /**
  * 文件-异步回调
@@ -53,9 +54,7 @@ public abstract class FileCallback extends AbsCallback {
         try {
             if (fileAbsolutePath != null && fileAbsolutePath.length() > 0) {
                 File file = new File(fileAbsolutePath);
-                FileOutputStream fos = new FileOutputStream(file);
-                ByteArrayInputStream bis = new ByteArrayInputStream(response.body().bytes());
-                StreamUtils.copy(bis, fos);
+                response.writeTo(file);
                 onSuccess(newCall, file, id);
             } else {
                 onSuccess(newCall, response.body().byteStream(), id);
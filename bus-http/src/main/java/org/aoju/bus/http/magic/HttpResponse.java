@@ -31,9 +31,12 @@ import org.aoju.bus.http.Response;
 import org.aoju.bus.http.bodys.ResponseBody;
 import org.aoju.bus.http.metric.Handshake;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * HTTP响应处理
@@ -114,6 +117,18 @@ public class HttpResponse {
         return body().source().inputStream();
     }
 
+    public final long writeTo(File file) throws IOException {
+        return body().writeTo(file);
+    }
+
+    public final long writeTo(OutputStream out) throws IOException {
+        return body().writeTo(out, null);
+    }
+
+    public final Stream<String> lines() {
+        return body().lines();
+    }
+
     public Response getResponse() {
         return response;
     }
@@ -24,11 +24,14 @@
  ********************************************************************************/
 package org.aoju.bus.http.magic;
 
+import org.aoju.bus.http.CallFuture;
 import org.aoju.bus.http.Httpd;
 import org.aoju.bus.http.NewCall;
 import org.aoju.bus.http.Request;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 请求调用者
@@ -80,6 +83,65 @@ public class RequestCall {
         execute(this, absCallback);
     }
 
+    /**
+     * 异步执行请求,取消返回结果时会取消请求
+     *
+     * @return 响应信息, 使用方需关闭响应体
+     */
+    public CompletableFuture<HttpResponse> executeAsync() {
+        return executeAsync(0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 异步执行请求,超时后取消请求并异常结束
+     *
+     * @param timeout 超时时间,不大于0时使用客户端的默认设置
+     * @param unit    时间单位
+     * @return 响应信息, 使用方需关闭响应体
+     */
+    public CompletableFuture<HttpResponse> executeAsync(long timeout, TimeUnit unit) {
+        buildCall(null);
+        return stat(CallFuture.enqueue(newCall, timeout, unit, response -> {
+            HttpResponse rsp = new HttpResponse(response);
+            if (rsp.isSuccessful()) {
+                HttpxStat.onReqSuccess();
+            } else {
+                HttpxStat.onReqFailure(newCall.request().url().toString(), null);
+            }
+            return rsp;
+        }));
+    }
+
+    /**
+     * 异步执行请求并读取响应内容
+     *
+     * @return 响应内容
+     */
+    public CompletableFuture<String> stringAsync() {
+        buildCall(null);
+        return stat(CallFuture.enqueue(newCall, response -> {
+            try {
+                if (response.isSuccessful()) {
+                    HttpxStat.onReqSuccess();
+                } else {
+                    HttpxStat.onReqFailure(newCall.request().url().toString(), null);
+                }
+                return response.body().string();
+            } finally {
+                response.close();
+            }
+        }));
+    }
+
+    private <T> CallFuture<T> stat(CallFuture<T> future) {
+        future.whenComplete((value, e) -> {
+            if (e != null) {
+                HttpxStat.onReqFailure(newCall.request().url().toString(), e instanceof Exception ? (Exception) e : null);
+            }
+        });
+        return future;
+    }
+
     private void execute(final RequestCall requestCall, AbsCallback absCallback) {
         final AbsCallback finalAbsCallback = absCallback;
         final int id = requestCall.getHttpRequest().getId();
@@ -0,0 +1,393 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License                                                               *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.http.metric;
+
+import org.aoju.bus.http.DnsX;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 带缓存的DNS实现
+ * <p>
+ * 解析结果按TTL缓存,解析失败的结果短暂缓存;同一主机的并发解析合并为一次,
+ * 频繁访问的主机在过期前由后台线程提前刷新,刷新失败时继续使用原结果直至过期;
+ * 可按请求轮转或打乱地址顺序,使连接分散到多个地址
+ *
+ * @author Kimi Liu
+ * @version 5.8.6
+ * @since JDK 1.8+
+ */
+public final class CachedDns implements DnsX {
+
+    private final DnsX delegate;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final long refreshAheadNanos;
+    private final int maxEntries;
+    private final boolean rotate;
+    private final boolean shuffle;
+    private final Executor executor;
+    private final ConcurrentMap<String, Entry> cache = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<Entry>> pending = new ConcurrentHashMap<>();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder refreshCount = new LongAdder();
+
+    CachedDns(Builder builder) {
+        if (builder.ttl <= 0) {
+            throw new IllegalArgumentException("ttl <= 0: " + builder.ttl);
+        }
+        if (builder.maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries < 1: " + builder.maxEntries);
+        }
+        this.delegate = builder.delegate;
+        this.ttlNanos = builder.ttl;
+        this.negativeTtlNanos = builder.negativeTtl;
+        this.refreshAheadNanos = Math.min(builder.refreshAhead, builder.ttl);
+        this.maxEntries = builder.maxEntries;
+        this.rotate = builder.rotate;
+        this.shuffle = builder.shuffle;
+        if (builder.executor != null) {
+            this.executor = builder.executor;
+        } else {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), org.aoju.bus.http.Builder.threadFactory("Httpd Dns Refresh", true));
+            executor.allowCoreThreadTimeOut(true);
+            this.executor = executor;
+        }
+    }
+
+    @Override
+    public List<InetAddress> lookup(String hostname) throws UnknownHostException {
+        if (hostname == null) {
+            throw new UnknownHostException("hostname == null");
+        }
+        long now = System.nanoTime();
+        Entry entry = cache.get(hostname);
+        if (entry != null && now - entry.expireAt < 0) {
+            hitCount.increment();
+            if (entry.addresses != null && refreshAheadNanos > 0 && now - entry.refreshAt >= 0
+                    && entry.refreshing.compareAndSet(false, true)) {
+                refresh(hostname, entry);
+            }
+            return entry.select();
+        }
+        missCount.increment();
+        return resolve(hostname).select();
+    }
+
+    /**
+     * 移除主机的缓存结果
+     *
+     * @param hostname 主机名
+     */
+    public void evict(String hostname) {
+        cache.remove(hostname);
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void evictAll() {
+        cache.clear();
+    }
+
+    /**
+     * @return 缓存的主机数量
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * @return 缓存命中次数
+     */
+    public long hitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * @return 缓存未命中次数
+     */
+    public long missCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * @return 后台刷新次数
+     */
+    public long refreshCount() {
+        return refreshCount.sum();
+    }
+
+    /**
+     * 解析主机,同一主机同时只有一个线程实际执行解析,其余线程等待其结果
+     */
+    private Entry resolve(String hostname) throws UnknownHostException {
+        CompletableFuture<Entry> future = new CompletableFuture<>();
+        CompletableFuture<Entry> existing = pending.putIfAbsent(hostname, future);
+        if (existing == null) {
+            try {
+                Entry entry = load(hostname);
+                future.complete(entry);
+                return entry;
+            } catch (RuntimeException | Error e) {
+                future.completeExceptionally(e);
+                throw e;
+            } finally {
+                pending.remove(hostname, future);
+            }
+        }
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return existing.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    throw (Error) cause;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 调用实际的DNS解析并写入缓存,解析失败时返回失败结果
+     */
+    private Entry load(String hostname) {
+        Entry entry;
+        try {
+            List<InetAddress> addresses = new ArrayList<>(delegate.lookup(hostname));
+            long now = System.nanoTime();
+            if (addresses.isEmpty()) {
+                throw new UnknownHostException(delegate + " returned no addresses for " + hostname);
+            }
+            if (shuffle) {
+                Collections.shuffle(addresses);
+            }
+            entry = new Entry(Collections.unmodifiableList(addresses), null,
+                    now + ttlNanos, now + ttlNanos - refreshAheadNanos);
+        } catch (UnknownHostException e) {
+            long now = System.nanoTime();
+            entry = new Entry(null, e.getMessage(), now + negativeTtlNanos, now + negativeTtlNanos);
+            if (negativeTtlNanos <= 0) {
+                return entry;
+            }
+        }
+        put(hostname, entry);
+        return entry;
+    }
+
+    /**
+     * 后台刷新即将过期的结果,失败时保留原结果
+     */
+    private void refresh(String hostname, Entry stale) {
+        try {
+            executor.execute(() -> {
+                refreshCount.increment();
+                try {
+                    List<InetAddress> addresses = new ArrayList<>(delegate.lookup(hostname));
+                    if (addresses.isEmpty()) {
+                        stale.refreshing.set(false);
+                        return;
+                    }
+                    if (shuffle) {
+                        Collections.shuffle(addresses);
+                    }
+                    long now = System.nanoTime();
+                    cache.replace(hostname, stale, new Entry(Collections.unmodifiableList(addresses), null,
+                            now + ttlNanos, now + ttlNanos - refreshAheadNanos));
+                } catch (Exception e) {
+                    stale.refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            stale.refreshing.set(false);
+        }
+    }
+
+    private void put(String hostname, Entry entry) {
+        if (cache.size() >= maxEntries && !cache.containsKey(hostname)) {
+            long now = System.nanoTime();
+            cache.values().removeIf(value -> now - value.expireAt >= 0);
+            Iterator<String> iterator = cache.keySet().iterator();
+            while (cache.size() >= maxEntries && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        cache.put(hostname, entry);
+    }
+
+    /**
+     * 缓存的解析结果
+     */
+    private final class Entry {
+
+        /**
+         * 解析到的地址,解析失败时为null
+         */
+        final List<InetAddress> addresses;
+        /**
+         * 解析失败的原因
+         */
+        final String message;
+        final long expireAt;
+        final long refreshAt;
+        final AtomicBoolean refreshing = new AtomicBoolean();
+        final AtomicInteger cursor = new AtomicInteger();
+
+        Entry(List<InetAddress> addresses, String message, long expireAt, long refreshAt) {
+            this.addresses = addresses;
+            this.message = message;
+            this.expireAt = expireAt;
+            this.refreshAt = refreshAt;
+        }
+
+        List<InetAddress> select() throws UnknownHostException {
+            if (addresses == null) {
+                throw new UnknownHostException(message);
+            }
+            int size = addresses.size();
+            if (!rotate || size == 1) {
+                return addresses;
+            }
+            int offset = (cursor.getAndIncrement() & Integer.MAX_VALUE) % size;
+            List<InetAddress> result = new ArrayList<>(size);
+            result.addAll(addresses.subList(offset, size));
+            result.addAll(addresses.subList(0, offset));
+            return result;
+        }
+    }
+
+    public static final class Builder {
+
+        DnsX delegate = DnsX.SYSTEM;
+        long ttl = TimeUnit.SECONDS.toNanos(60);
+        long negativeTtl = TimeUnit.SECONDS.toNanos(5);
+        long refreshAhead = TimeUnit.SECONDS.toNanos(10);
+        int maxEntries = 1024;
+        boolean rotate = true;
+        boolean shuffle = false;
+        Executor executor;
+
+        public Builder() {
+        }
+
+        public CachedDns build() {
+            return new CachedDns(this);
+        }
+
+        /**
+         * @param delegate 实际执行解析的DNS,默认为{@link DnsX#SYSTEM}
+         * @return this
+         */
+        public Builder delegate(DnsX delegate) {
+            if (delegate == null) {
+                throw new NullPointerException("delegate == null");
+            }
+            this.delegate = delegate;
+            return this;
+        }
+
+        /**
+         * @param ttl  解析结果的缓存时长,默认60秒
+         * @param unit 时间单位
+         * @return this
+         */
+        public Builder ttl(long ttl, TimeUnit unit) {
+            this.ttl = unit.toNanos(ttl);
+            return this;
+        }
+
+        /**
+         * @param negativeTtl 解析失败结果的缓存时长,默认5秒,0表示不缓存
+         * @param unit        时间单位
+         * @return this
+         */
+        public Builder negativeTtl(long negativeTtl, TimeUnit unit) {
+            this.negativeTtl = unit.toNanos(negativeTtl);
+            return this;
+        }
+
+        /**
+         * @param refreshAhead 过期前多久开始后台刷新,默认10秒,0表示不刷新
+         * @param unit         时间单位
+         * @return this
+         */
+        public Builder refreshAhead(long refreshAhead, TimeUnit unit) {
+            this.refreshAhead = unit.toNanos(refreshAhead);
+            return this;
+        }
+
+        public Builder maxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * @param rotate 是否每次查询轮转地址顺序,默认开启
+         * @return this
+         */
+        public Builder rotate(boolean rotate) {
+            this.rotate = rotate;
+            return this;
+        }
+
+        /**
+         * @param shuffle 是否在解析后打乱地址顺序
+         * @return this
+         */
+        public Builder shuffle(boolean shuffle) {
+            this.shuffle = shuffle;
+            return this;
+        }
+
+        /**
+         * @param executor 后台刷新使用的线程池
+         * @return this
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+    }
+
+}
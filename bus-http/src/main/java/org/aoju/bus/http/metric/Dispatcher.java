@@ -29,16 +29,17 @@ import org.aoju.bus.http.NewCall;
 import org.aoju.bus.http.RealCall;
 import org.aoju.bus.http.RealCall.AsyncCall;
 
+import java.lang.reflect.Method;
 import java.util.*;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.SynchronousQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
 
 /**
  * 关于何时执行异步请求的策略
  * 每个dispatcher使用一个{@link ExecutorService}在内部运行调用。
  * 如果您提供自己的执行程序，它应该能够并发地运行{@linkplain #getMaxRequests 配置的最大调用数}
+ * <p>
+ * 等待执行的调用按主机分别排队,仅未达到{@linkplain #getMaxRequestsPerHost 主机最大请求数}的主机参与调度,
+ * 各主机之间轮流执行,无需逐个扫描全部排队的调用
  *
  * @author Kimi Liu
  * @version 5.8.6
@@ -47,24 +48,38 @@ import java.util.concurrent.TimeUnit;
 public final class Dispatcher {
 
     /**
-     * 准备异步调用的顺序，他们将被运行
+     * 保留的空闲主机统计数量,超出后移除空闲的主机
      */
-    private final Deque<AsyncCall> readyAsyncCalls = new ArrayDeque<>();
+    private static final int MAX_IDLE_HOSTS = 1024;
+
+    /**
+     * 按主机分组的调用
+     */
+    private final Map<String, Host> hosts = new HashMap<>();
+    /**
+     * 有排队调用且未达到主机最大请求数的主机,按顺序轮流执行
+     */
+    private final Deque<Host> eligibleHosts = new ArrayDeque<>();
     /**
      * 运行异步调用。包括尚未结束的已取消调用
      */
-    private final Deque<AsyncCall> runningAsyncCalls = new ArrayDeque<>();
+    private final Set<AsyncCall> runningAsyncCalls = Collections.newSetFromMap(new IdentityHashMap<>());
     /**
      * 运行同步调用。包括尚未结束的已取消调用
      */
-    private final Deque<RealCall> runningSyncCalls = new ArrayDeque<>();
+    private final Set<RealCall> runningSyncCalls = Collections.newSetFromMap(new IdentityHashMap<>());
     private int maxRequests = 64;
     private int maxRequestsPerHost = 5;
+    private int queuedCallsCount;
     private Runnable idleCallback;
     /**
      * 执行调用
      */
     private ExecutorService executorService;
+    /**
+     * 由{@link #bounded()}创建的有界线程池,随最大请求数调整大小
+     */
+    private ThreadPoolExecutor boundedExecutor;
 
     public Dispatcher(ExecutorService executorService) {
         this.executorService = executorService;
@@ -73,6 +88,35 @@ public final class Dispatcher {
     public Dispatcher() {
     }
 
+    /**
+     * 创建使用有界线程池的调度器,线程数不超过{@linkplain #getMaxRequests 最大请求数}
+     *
+     * @return 调度器
+     */
+    public static Dispatcher bounded() {
+        Dispatcher dispatcher = new Dispatcher();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(dispatcher.maxRequests, dispatcher.maxRequests,
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), Builder.threadFactory("Httpd Dispatcher", false));
+        executor.allowCoreThreadTimeOut(true);
+        dispatcher.executorService = executor;
+        dispatcher.boundedExecutor = executor;
+        return dispatcher;
+    }
+
+    /**
+     * 创建每个调用使用一个虚拟线程的调度器,运行环境不支持虚拟线程时使用{@link #bounded()}
+     *
+     * @return 调度器
+     */
+    public static Dispatcher virtual() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return new Dispatcher((ExecutorService) method.invoke(null));
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return bounded();
+        }
+    }
+
     public synchronized ExecutorService executorService() {
         if (executorService == null) {
             executorService = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
@@ -97,6 +141,15 @@ public final class Dispatcher {
         }
         synchronized (this) {
             this.maxRequests = maxRequests;
+            if (boundedExecutor != null) {
+                if (maxRequests > boundedExecutor.getMaximumPoolSize()) {
+                    boundedExecutor.setMaximumPoolSize(maxRequests);
+                    boundedExecutor.setCorePoolSize(maxRequests);
+                } else {
+                    boundedExecutor.setCorePoolSize(maxRequests);
+                    boundedExecutor.setMaximumPoolSize(maxRequests);
+                }
+            }
         }
         promoteAndExecute();
     }
@@ -118,6 +171,11 @@ public final class Dispatcher {
         }
         synchronized (this) {
             this.maxRequestsPerHost = maxRequestsPerHost;
+            eligibleHosts.clear();
+            for (Host host : hosts.values()) {
+                host.eligible = false;
+                offer(host);
+            }
         }
         promoteAndExecute();
     }
@@ -134,7 +192,10 @@ public final class Dispatcher {
 
     public void enqueue(AsyncCall call) {
         synchronized (this) {
-            readyAsyncCalls.add(call);
+            Host host = hosts.computeIfAbsent(call.host(), Host::new);
+            host.ready.add(new Pending(call, System.nanoTime()));
+            queuedCallsCount++;
+            offer(host);
         }
         promoteAndExecute();
     }
@@ -145,8 +206,10 @@ public final class Dispatcher {
      * 执行的{@linkplain NewCall#enqueue}。
      */
     public synchronized void cancelAll() {
-        for (AsyncCall call : readyAsyncCalls) {
-            call.get().cancel();
+        for (Host host : hosts.values()) {
+            for (Pending pending : host.ready) {
+                pending.call.get().cancel();
+            }
         }
 
         for (AsyncCall call : runningAsyncCalls) {
@@ -159,7 +222,7 @@ public final class Dispatcher {
     }
 
     /**
-     * 将符合条件的调用从{@link #readyAsyncCalls}提升到{@link #runningAsyncCalls}，
+     * 将符合条件的调用从排队的主机中提升到{@link #runningAsyncCalls}，
      * 并在executor服务上运行它们。必须不与同步调用，因为执行调用可以调用到用户代码
      *
      * @return 如果调度程序当前正在运行调用，则为true
@@ -170,15 +233,24 @@ public final class Dispatcher {
         List<AsyncCall> executableCalls = new ArrayList<>();
         boolean isRunning;
         synchronized (this) {
-            for (Iterator<AsyncCall> i = readyAsyncCalls.iterator(); i.hasNext(); ) {
-                AsyncCall asyncCall = i.next();
-
-                if (runningAsyncCalls.size() >= maxRequests) break; // Max capacity.
-                if (runningCallsForHost(asyncCall) >= maxRequestsPerHost) continue; // Host max capacity.
-
-                i.remove();
-                executableCalls.add(asyncCall);
-                runningAsyncCalls.add(asyncCall);
+            long now = System.nanoTime();
+            while (runningAsyncCalls.size() < maxRequests && !eligibleHosts.isEmpty()) {
+                Host host = eligibleHosts.poll();
+                host.eligible = false;
+
+                Pending pending = host.ready.poll();
+                queuedCallsCount--;
+                long waitNanos = now - pending.enqueuedAt;
+                host.waitNanos += waitNanos;
+                host.maxWaitNanos = Math.max(host.maxWaitNanos, waitNanos);
+                host.dispatchedCount++;
+                if (!pending.call.get().forWebSocket) {
+                    host.running++;
+                }
+                executableCalls.add(pending.call);
+                runningAsyncCalls.add(pending.call);
+                // 主机仍有排队调用时排到末尾,各主机轮流执行
+                offer(host);
             }
             isRunning = runningCallsCount() > 0;
         }
@@ -192,16 +264,15 @@ public final class Dispatcher {
     }
 
     /**
-     * @param call 回调信息
-     * @return 与{@code call}共享主机的运行调用的数量
+     * 主机有排队调用且未达到主机最大请求数时,加入待调度的主机队列
+     *
+     * @param host 主机
      */
-    private int runningCallsForHost(AsyncCall call) {
-        int result = 0;
-        for (AsyncCall c : runningAsyncCalls) {
-            if (c.get().forWebSocket) continue;
-            if (c.host().equals(call.host())) result++;
+    private void offer(Host host) {
+        if (!host.eligible && !host.ready.isEmpty() && host.running < maxRequestsPerHost) {
+            host.eligible = true;
+            eligibleHosts.add(host);
         }
-        return result;
     }
 
     public synchronized void executed(RealCall call) {
@@ -209,20 +280,34 @@ public final class Dispatcher {
     }
 
     public void finished(AsyncCall call) {
-        finished(runningAsyncCalls, call);
+        Runnable idleCallback;
+        synchronized (this) {
+            if (!runningAsyncCalls.remove(call)) throw new AssertionError("Call wasn't in-flight!");
+            Host host = hosts.get(call.host());
+            if (host != null) {
+                if (!call.get().forWebSocket) {
+                    host.running--;
+                }
+                offer(host);
+                if (host.running == 0 && host.ready.isEmpty() && hosts.size() > MAX_IDLE_HOSTS) {
+                    hosts.remove(host.name);
+                }
+            }
+            idleCallback = this.idleCallback;
+        }
+        finished(idleCallback);
     }
 
     public void finished(RealCall call) {
-        finished(runningSyncCalls, call);
-    }
-
-    private <T> void finished(Deque<T> calls, T call) {
         Runnable idleCallback;
         synchronized (this) {
-            if (!calls.remove(call)) throw new AssertionError("Call wasn't in-flight!");
+            if (!runningSyncCalls.remove(call)) throw new AssertionError("Call wasn't in-flight!");
             idleCallback = this.idleCallback;
         }
+        finished(idleCallback);
+    }
 
+    private void finished(Runnable idleCallback) {
         boolean isRunning = promoteAndExecute();
 
         if (!isRunning && idleCallback != null) {
@@ -232,8 +317,10 @@ public final class Dispatcher {
 
     public synchronized List<NewCall> queuedCalls() {
         List<NewCall> result = new ArrayList<>();
-        for (AsyncCall asyncCall : readyAsyncCalls) {
-            result.add(asyncCall.get());
+        for (Host host : hosts.values()) {
+            for (Pending pending : host.ready) {
+                result.add(pending.call.get());
+            }
         }
         return Collections.unmodifiableList(result);
     }
@@ -248,11 +335,145 @@ public final class Dispatcher {
     }
 
     public synchronized int queuedCallsCount() {
-        return readyAsyncCalls.size();
+        return queuedCallsCount;
     }
 
     public synchronized int runningCallsCount() {
         return runningAsyncCalls.size() + runningSyncCalls.size();
     }
 
+    /**
+     * @param host 主机名
+     * @return 该主机排队等待的异步调用数
+     */
+    public synchronized int queuedCallsCount(String host) {
+        Host value = hosts.get(host);
+        return value == null ? 0 : value.ready.size();
+    }
+
+    /**
+     * @param host 主机名
+     * @return 该主机正在运行的异步调用数,不包括WebSocket
+     */
+    public synchronized int runningCallsCount(String host) {
+        Host value = hosts.get(host);
+        return value == null ? 0 : value.running;
+    }
+
+    /**
+     * 返回各主机的调度统计
+     *
+     * @return 主机名与统计信息
+     */
+    public synchronized Map<String, Metrics> metrics() {
+        Map<String, Metrics> result = new LinkedHashMap<>();
+        for (Host host : hosts.values()) {
+            result.put(host.name, new Metrics(host.ready.size(), host.running, host.dispatchedCount,
+                    host.waitNanos, host.maxWaitNanos));
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * 主机的调度统计
+     */
+    public static final class Metrics {
+
+        private final int queued;
+        private final int running;
+        private final long dispatchedCount;
+        private final long waitNanos;
+        private final long maxWaitNanos;
+
+        Metrics(int queued, int running, long dispatchedCount, long waitNanos, long maxWaitNanos) {
+            this.queued = queued;
+            this.running = running;
+            this.dispatchedCount = dispatchedCount;
+            this.waitNanos = waitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+        }
+
+        /**
+         * @return 排队等待的调用数
+         */
+        public int queued() {
+            return queued;
+        }
+
+        /**
+         * @return 正在运行的调用数
+         */
+        public int running() {
+            return running;
+        }
+
+        /**
+         * @return 已开始执行的调用数
+         */
+        public long dispatchedCount() {
+            return dispatchedCount;
+        }
+
+        /**
+         * @param unit 时间单位
+         * @return 调用在队列中的累计等待时长
+         */
+        public long waitTime(TimeUnit unit) {
+            return unit.convert(waitNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * @param unit 时间单位
+         * @return 调用在队列中的最长等待时长
+         */
+        public long maxWaitTime(TimeUnit unit) {
+            return unit.convert(maxWaitNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public String toString() {
+            return "Metrics{queued=" + queued + ", running=" + running + ", dispatched=" + dispatchedCount
+                    + ", waitMillis=" + TimeUnit.NANOSECONDS.toMillis(waitNanos)
+                    + ", maxWaitMillis=" + TimeUnit.NANOSECONDS.toMillis(maxWaitNanos) + "}";
+        }
+    }
+
+    /**
+     * 同一主机的调用
+     */
+    private static final class Host {
+
+        final String name;
+        final Deque<Pending> ready = new ArrayDeque<>();
+        /**
+         * 正在运行的调用数,不包括WebSocket
+         */
+        int running;
+        /**
+         * 是否已在待调度的主机队列中
+         */
+        boolean eligible;
+        long dispatchedCount;
+        long waitNanos;
+        long maxWaitNanos;
+
+        Host(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * 排队的调用
+     */
+    private static final class Pending {
+
+        final AsyncCall call;
+        final long enqueuedAt;
+
+        Pending(AsyncCall call, long enqueuedAt) {
+            this.call = call;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
 }
@@ -0,0 +1,525 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License                                                               *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.http.metric;
+
+import org.aoju.bus.http.NewCall;
+import org.aoju.bus.http.Protocol;
+import org.aoju.bus.http.Request;
+import org.aoju.bus.http.Response;
+import org.aoju.bus.http.accord.Connection;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基于{@link EventListener}的请求统计
+ * <p>
+ * 记录每次调用的DNS解析、建立连接、TLS握手、写请求、等待首字节、读取响应体各阶段耗时,
+ * 按主机汇总为耗时分布,同时统计连接复用率、收发字节数及失败次数。
+ * 通过{@link org.aoju.bus.http.Httpd.Builder#eventListenerFactory(EventListener.Factory)}注册后,
+ * 可通过{@link #snapshot()}查询
+ *
+ * @author Kimi Liu
+ * @version 5.8.6
+ * @since JDK 1.8+
+ */
+public final class HttpMetrics implements EventListener.Factory {
+
+    /**
+     * 超出主机数量上限后,其余主机的统计合并到该名称下
+     */
+    public static final String OTHER = "*";
+
+    private final ConcurrentMap<String, Host> hosts = new ConcurrentHashMap<>();
+    private final int maxHosts;
+
+    public HttpMetrics() {
+        this(256);
+    }
+
+    /**
+     * @param maxHosts 分别统计的最大主机数
+     */
+    public HttpMetrics(int maxHosts) {
+        this.maxHosts = maxHosts;
+    }
+
+    @Override
+    public EventListener create(NewCall call) {
+        return new Listener();
+    }
+
+    /**
+     * @return 各主机的统计快照
+     */
+    public Map<String, Snapshot> snapshot() {
+        Map<String, Snapshot> result = new TreeMap<>();
+        hosts.forEach((name, host) -> result.put(name, host.snapshot()));
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * @param host 主机名
+     * @return 主机的统计快照, 无记录时返回null
+     */
+    public Snapshot snapshot(String host) {
+        Host value = hosts.get(host);
+        return value == null ? null : value.snapshot();
+    }
+
+    /**
+     * 清空统计
+     */
+    public void reset() {
+        hosts.clear();
+    }
+
+    private Host host(String name) {
+        Host host = hosts.get(name);
+        if (host == null) {
+            if (hosts.size() >= maxHosts) {
+                name = OTHER;
+            }
+            host = hosts.computeIfAbsent(name, key -> new Host());
+        }
+        return host;
+    }
+
+    /**
+     * 调用阶段
+     */
+    public enum Phase {
+        /**
+         * DNS解析
+         */
+        DNS,
+        /**
+         * 建立连接,包括TLS握手
+         */
+        CONNECT,
+        /**
+         * TLS握手
+         */
+        TLS,
+        /**
+         * 写请求头及请求体
+         */
+        REQUEST,
+        /**
+         * 请求写完至读完响应头,主要为服务端处理时间
+         */
+        FIRST_BYTE,
+        /**
+         * 读取响应体
+         */
+        RESPONSE,
+        /**
+         * 整个调用
+         */
+        TOTAL
+    }
+
+    /**
+     * 耗时分布,按固定区间计数
+     */
+    public static final class Histogram {
+
+        /**
+         * 区间上界(微秒),最后一个区间无上界
+         */
+        static final long[] BOUNDS = {
+                100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000,
+                250_000, 500_000, 1_000_000, 2_500_000, 5_000_000, 10_000_000, 30_000_000
+        };
+
+        private final AtomicLongArray counts = new AtomicLongArray(BOUNDS.length + 1);
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        void record(long nanos) {
+            long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+            int index = Arrays.binarySearch(BOUNDS, micros);
+            counts.incrementAndGet(index < 0 ? -index - 1 : index);
+            sum.add(micros);
+            max.accumulate(micros);
+        }
+
+        Histogram copy() {
+            Histogram result = new Histogram();
+            for (int i = 0; i < counts.length(); i++) {
+                result.counts.set(i, counts.get(i));
+            }
+            result.sum.add(sum.sum());
+            result.max.accumulate(max.get());
+            return result;
+        }
+
+        /**
+         * @return 记录次数
+         */
+        public long count() {
+            long total = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                total += counts.get(i);
+            }
+            return total;
+        }
+
+        /**
+         * @param unit 时间单位
+         * @return 平均耗时
+         */
+        public double mean(TimeUnit unit) {
+            long count = count();
+            return count == 0 ? 0 : (double) TimeUnit.MICROSECONDS.toNanos(sum.sum()) / count / unit.toNanos(1);
+        }
+
+        /**
+         * @param unit 时间单位
+         * @return 最大耗时
+         */
+        public long max(TimeUnit unit) {
+            return unit.convert(max.get(), TimeUnit.MICROSECONDS);
+        }
+
+        /**
+         * 估算分位耗时,返回所在区间的上界,落在最后一个区间时返回最大值
+         *
+         * @param quantile 分位,如0.99
+         * @param unit     时间单位
+         * @return 分位耗时
+         */
+        public long quantile(double quantile, TimeUnit unit) {
+            long count = count();
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(quantile * count);
+            long seen = 0;
+            for (int i = 0; i < BOUNDS.length; i++) {
+                seen += counts.get(i);
+                if (seen >= rank) {
+                    return unit.convert(Math.min(BOUNDS[i], max.get()), TimeUnit.MICROSECONDS);
+                }
+            }
+            return max(unit);
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + count() + ", mean=" + String.format("%.2f", mean(TimeUnit.MICROSECONDS) / 1000)
+                    + "ms, p50=" + quantile(0.5, TimeUnit.MILLISECONDS) + "ms, p99=" + quantile(0.99, TimeUnit.MILLISECONDS)
+                    + "ms, max=" + max(TimeUnit.MILLISECONDS) + "ms";
+        }
+    }
+
+    /**
+     * 主机的统计快照
+     */
+    public static final class Snapshot {
+
+        private final Map<Phase, Histogram> phases;
+        private final long calls;
+        private final long failures;
+        private final long reused;
+        private final long connected;
+        private final long bytesSent;
+        private final long bytesReceived;
+
+        Snapshot(Map<Phase, Histogram> phases, long calls, long failures, long reused, long connected,
+                 long bytesSent, long bytesReceived) {
+            this.phases = phases;
+            this.calls = calls;
+            this.failures = failures;
+            this.reused = reused;
+            this.connected = connected;
+            this.bytesSent = bytesSent;
+            this.bytesReceived = bytesReceived;
+        }
+
+        /**
+         * @param phase 调用阶段
+         * @return 该阶段的耗时分布
+         */
+        public Histogram phase(Phase phase) {
+            return phases.get(phase);
+        }
+
+        /**
+         * @return 调用次数
+         */
+        public long calls() {
+            return calls;
+        }
+
+        /**
+         * @return 失败次数
+         */
+        public long failures() {
+            return failures;
+        }
+
+        /**
+         * @return 失败率
+         */
+        public double failureRate() {
+            return calls == 0 ? 0 : (double) failures / calls;
+        }
+
+        /**
+         * @return 复用连接池中连接的次数
+         */
+        public long reused() {
+            return reused;
+        }
+
+        /**
+         * @return 新建连接的次数
+         */
+        public long connected() {
+            return connected;
+        }
+
+        /**
+         * @return 连接池命中率
+         */
+        public double poolHitRate() {
+            long total = reused + connected;
+            return total == 0 ? 0 : (double) reused / total;
+        }
+
+        /**
+         * @return 发送的请求体字节数
+         */
+        public long bytesSent() {
+            return bytesSent;
+        }
+
+        /**
+         * @return 接收的响应体字节数
+         */
+        public long bytesReceived() {
+            return bytesReceived;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder("Snapshot{calls=").append(calls)
+                    .append(", failures=").append(failures)
+                    .append(", poolHitRate=").append(String.format("%.2f", poolHitRate()))
+                    .append(", bytesSent=").append(bytesSent)
+                    .append(", bytesReceived=").append(bytesReceived);
+            phases.forEach((phase, histogram) -> {
+                if (histogram.count() > 0) {
+                    builder.append(", ").append(phase).append("={").append(histogram).append('}');
+                }
+            });
+            return builder.append('}').toString();
+        }
+    }
+
+    /**
+     * 主机的累计统计
+     */
+    private static final class Host {
+
+        final Map<Phase, Histogram> phases = new EnumMap<>(Phase.class);
+        final LongAdder calls = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder reused = new LongAdder();
+        final LongAdder connected = new LongAdder();
+        final LongAdder bytesSent = new LongAdder();
+        final LongAdder bytesReceived = new LongAdder();
+
+        Host() {
+            for (Phase phase : Phase.values()) {
+                phases.put(phase, new Histogram());
+            }
+        }
+
+        Snapshot snapshot() {
+            Map<Phase, Histogram> copy = new EnumMap<>(Phase.class);
+            phases.forEach((phase, histogram) -> copy.put(phase, histogram.copy()));
+            return new Snapshot(Collections.unmodifiableMap(copy), calls.sum(), failures.sum(), reused.sum(),
+                    connected.sum(), bytesSent.sum(), bytesReceived.sum());
+        }
+    }
+
+    /**
+     * 单次调用的事件记录,重试和重定向产生的多次阶段耗时累加
+     */
+    private final class Listener extends EventListener {
+
+        final long[] elapsed = new long[Phase.values().length];
+        final boolean[] seen = new boolean[Phase.values().length];
+        long callStart;
+        long dnsStart;
+        long connectStart;
+        long tlsStart;
+        long requestStart;
+        long requestEnd;
+        long responseStart;
+        boolean connecting;
+        long reused;
+        long connected;
+        long bytesSent;
+        long bytesReceived;
+
+        void add(Phase phase, long start) {
+            if (start != 0) {
+                elapsed[phase.ordinal()] += System.nanoTime() - start;
+                seen[phase.ordinal()] = true;
+            }
+        }
+
+        @Override
+        public void callStart(NewCall call) {
+            callStart = System.nanoTime();
+        }
+
+        @Override
+        public void dnsStart(NewCall call, String domainName) {
+            dnsStart = System.nanoTime();
+        }
+
+        @Override
+        public void dnsEnd(NewCall call, String domainName, List<InetAddress> inetAddressList) {
+            add(Phase.DNS, dnsStart);
+        }
+
+        @Override
+        public void connectStart(NewCall call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            connectStart = System.nanoTime();
+            connecting = true;
+        }
+
+        @Override
+        public void secureConnectStart(NewCall call) {
+            tlsStart = System.nanoTime();
+        }
+
+        @Override
+        public void secureConnectEnd(NewCall call, Handshake handshake) {
+            add(Phase.TLS, tlsStart);
+        }
+
+        @Override
+        public void connectEnd(NewCall call, InetSocketAddress inetSocketAddress, Proxy proxy,
+                               Protocol protocol) {
+            add(Phase.CONNECT, connectStart);
+        }
+
+        @Override
+        public void connectFailed(NewCall call, InetSocketAddress inetSocketAddress, Proxy proxy,
+                                  Protocol protocol, IOException ioe) {
+            add(Phase.CONNECT, connectStart);
+        }
+
+        @Override
+        public void connectionAcquired(NewCall call, Connection connection) {
+            if (connecting) {
+                connected++;
+            } else {
+                reused++;
+            }
+            connecting = false;
+        }
+
+        @Override
+        public void requestHeadersStart(NewCall call) {
+            requestStart = System.nanoTime();
+        }
+
+        @Override
+        public void requestHeadersEnd(NewCall call, Request request) {
+            requestEnd = System.nanoTime();
+        }
+
+        @Override
+        public void requestBodyEnd(NewCall call, long byteCount) {
+            requestEnd = System.nanoTime();
+            bytesSent += byteCount;
+        }
+
+        @Override
+        public void responseHeadersEnd(NewCall call, Response response) {
+            if (requestStart != 0) {
+                elapsed[Phase.REQUEST.ordinal()] += requestEnd - requestStart;
+                seen[Phase.REQUEST.ordinal()] = true;
+                add(Phase.FIRST_BYTE, requestEnd);
+                requestStart = 0;
+            }
+        }
+
+        @Override
+        public void responseBodyStart(NewCall call) {
+            responseStart = System.nanoTime();
+        }
+
+        @Override
+        public void responseBodyEnd(NewCall call, long byteCount) {
+            add(Phase.RESPONSE, responseStart);
+            bytesReceived += byteCount;
+        }
+
+        @Override
+        public void callEnd(NewCall call) {
+            record(call, false);
+        }
+
+        @Override
+        public void callFailed(NewCall call, IOException ioe) {
+            record(call, true);
+        }
+
+        private void record(NewCall call, boolean failed) {
+            add(Phase.TOTAL, callStart);
+            Host host = host(call.request().url().host());
+            host.calls.increment();
+            if (failed) {
+                host.failures.increment();
+            }
+            host.reused.add(reused);
+            host.connected.add(connected);
+            host.bytesSent.add(bytesSent);
+            host.bytesReceived.add(bytesReceived);
+            for (Phase phase : Phase.values()) {
+                if (seen[phase.ordinal()]) {
+                    host.phases.get(phase).record(elapsed[phase.ordinal()]);
+                }
+            }
+        }
+    }
+
+}
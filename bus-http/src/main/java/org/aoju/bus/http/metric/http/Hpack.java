@@ -32,7 +32,6 @@ import org.aoju.bus.core.lang.Http;
 import org.aoju.bus.core.lang.Normal;
 import org.aoju.bus.core.lang.Symbol;
 import org.aoju.bus.core.utils.IoUtils;
-import org.aoju.bus.core.utils.ObjectUtils;
 import org.aoju.bus.core.utils.StringUtils;
 
 import java.io.IOException;
@@ -114,6 +113,10 @@ final class Hpack {
             new HttpHeaders("www-authenticate", "")
     };
     static final Map<ByteString, Integer> NAME_TO_FIRST_INDEX = nameToFirstIndex();
+    /**
+     * 带有值的静态表条目,用于整条命中
+     */
+    static final Map<HttpHeaders, Integer> NAME_VALUE_TO_INDEX = nameValueToIndex();
     private static final int PREFIX_4_BITS = 0x0f;
     private static final int PREFIX_5_BITS = 0x1f;
     private static final int PREFIX_6_BITS = 0x3f;
@@ -132,6 +135,16 @@ final class Hpack {
         return Collections.unmodifiableMap(result);
     }
 
+    private static Map<HttpHeaders, Integer> nameValueToIndex() {
+        Map<HttpHeaders, Integer> result = new HashMap<>();
+        for (int i = 0; i < STATIC_HEADERS_TABLE.length; i++) {
+            if (STATIC_HEADERS_TABLE[i].value.size() > 0) {
+                result.put(STATIC_HEADERS_TABLE[i], i);
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
     static ByteString checkLowercase(ByteString name) throws IOException {
         for (int i = 0, length = name.size(); i < length; i++) {
             byte c = name.getByte(i);
@@ -369,16 +382,56 @@ final class Hpack {
     static final class Writer {
         private static final int SETTINGS_HEADER_TABLE_SIZE = 4096;
 
-        private static final int SETTINGS_HEADER_TABLE_SIZE_LIMIT = 16384;
+        static final int SETTINGS_HEADER_TABLE_SIZE_LIMIT = 16384;
+
+        /**
+         * 缓存的已编码头块数量上限
+         */
+        private static final int MAX_CACHED_BLOCKS = 16;
 
         private final Buffer out;
         private final boolean useCompression;
+        /**
+         * 编码器使用的动态表大小上限,对等方设置更大的值时以此为准
+         */
+        private final int headerTableSizeLimit;
+        /**
+         * 名称+值到插入序号的索引,序号从1开始递增,只保存最新插入的条目
+         */
+        private final Map<HttpHeaders, Integer> entryIndex = new HashMap<>();
+        /**
+         * 名称到插入序号的索引
+         */
+        private final Map<ByteString, Integer> nameIndex = new HashMap<>();
+        /**
+         * 在当前动态表状态下编码结果不变的头块,表状态变化时清空
+         */
+        private final Map<List<HttpHeaders>, ByteString> blockCache = new LinkedHashMap<List<HttpHeaders>, ByteString>(
+                MAX_CACHED_BLOCKS, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<HttpHeaders>, ByteString> eldest) {
+                return size() > MAX_CACHED_BLOCKS;
+            }
+        };
         int headerTableSizeSetting;
         int maxDynamicTableByteCount;
         HttpHeaders[] dynamicTable = new HttpHeaders[8];
         int nextHeaderIndex = dynamicTable.length - 1;
         int headerCount = 0;
         int dynamicTableByteCount = 0;
+        /**
+         * 累计插入和淘汰的条目数,二者之差即为当前条目数
+         */
+        int insertCount = 0;
+        int evictCount = 0;
+        /**
+         * 动态表每次变化都会递增
+         */
+        int tableVersion = 0;
+        /**
+         * 命中头块缓存的次数
+         */
+        int cachedBlockCount = 0;
 
         private int smallestHeaderTableSizeSetting = Integer.MAX_VALUE;
         private boolean emitDynamicTableSizeUpdate;
@@ -388,10 +441,17 @@ final class Hpack {
         }
 
         Writer(int headerTableSizeSetting, boolean useCompression, Buffer out) {
+            this(headerTableSizeSetting, SETTINGS_HEADER_TABLE_SIZE_LIMIT, useCompression, out);
+        }
+
+        Writer(int headerTableSizeSetting, int headerTableSizeLimit, boolean useCompression, Buffer out) {
+            this.headerTableSizeLimit = headerTableSizeLimit;
             this.headerTableSizeSetting = headerTableSizeSetting;
-            this.maxDynamicTableByteCount = headerTableSizeSetting;
+            this.maxDynamicTableByteCount = Math.min(headerTableSizeSetting, headerTableSizeLimit);
             this.useCompression = useCompression;
             this.out = out;
+            // 对等方按协议初始值维护动态表,缩小时需在首个头块中告知
+            this.emitDynamicTableSizeUpdate = maxDynamicTableByteCount < headerTableSizeSetting;
         }
 
         private void clearDynamicTable() {
@@ -399,21 +459,36 @@ final class Hpack {
             nextHeaderIndex = dynamicTable.length - 1;
             headerCount = 0;
             dynamicTableByteCount = 0;
+            evictCount = insertCount;
+            entryIndex.clear();
+            nameIndex.clear();
+            tableChanged();
+        }
+
+        private void tableChanged() {
+            tableVersion++;
+            blockCache.clear();
         }
 
         private int evictToRecoverBytes(int bytesToRecover) {
             int entriesToEvict = 0;
             if (bytesToRecover > 0) {
                 for (int j = dynamicTable.length - 1; j >= nextHeaderIndex && bytesToRecover > 0; j--) {
-                    bytesToRecover -= dynamicTable[j].hpackSize;
-                    dynamicTableByteCount -= dynamicTable[j].hpackSize;
+                    HttpHeaders evicted = dynamicTable[j];
+                    bytesToRecover -= evicted.hpackSize;
+                    dynamicTableByteCount -= evicted.hpackSize;
                     headerCount--;
                     entriesToEvict++;
+                    // 索引只指向最新插入的同名条目,较新的条目仍在表中时保留索引
+                    Integer sequence = ++evictCount;
+                    entryIndex.remove(evicted, sequence);
+                    nameIndex.remove(evicted.name, sequence);
                 }
                 System.arraycopy(dynamicTable, nextHeaderIndex + 1, dynamicTable,
                         nextHeaderIndex + 1 + entriesToEvict, headerCount);
                 Arrays.fill(dynamicTable, nextHeaderIndex + 1, nextHeaderIndex + 1 + entriesToEvict, null);
                 nextHeaderIndex += entriesToEvict;
+                tableChanged();
             }
             return entriesToEvict;
         }
@@ -439,6 +514,17 @@ final class Hpack {
             dynamicTable[index] = entry;
             headerCount++;
             dynamicTableByteCount += delta;
+            Integer sequence = ++insertCount;
+            entryIndex.put(entry, sequence);
+            nameIndex.put(entry.name, sequence);
+            tableChanged();
+        }
+
+        /**
+         * 插入序号转换为HPACK索引,最新插入的条目紧跟在静态表之后
+         */
+        private int dynamicIndex(Integer sequence) {
+            return insertCount - sequence + 1 + STATIC_HEADERS_TABLE.length;
         }
 
         void writeHeaders(List<HttpHeaders> headersBlock) throws IOException {
@@ -451,53 +537,67 @@ final class Hpack {
                 writeInt(maxDynamicTableByteCount, PREFIX_5_BITS, 0x20);
             }
 
+            // 动态表状态不变时,相同头块的编码结果也相同
+            ByteString cached = blockCache.get(headersBlock);
+            if (cached != null) {
+                cachedBlockCount++;
+                out.write(cached);
+                return;
+            }
+
+            int version = tableVersion;
+            long start = out.size();
             for (int i = 0, size = headersBlock.size(); i < size; i++) {
-                HttpHeaders headers = headersBlock.get(i);
-                ByteString name = headers.name.toAsciiLowercase();
-                ByteString value = headers.value;
-                int headerIndex = -1;
-                int headerNameIndex = -1;
+                writeHeader(headersBlock.get(i));
+            }
 
-                Integer staticIndex = NAME_TO_FIRST_INDEX.get(name);
+            if (version == tableVersion) {
+                blockCache.put(new ArrayList<>(headersBlock), out.snapshot().substring((int) start));
+            }
+        }
+
+        private void writeHeader(HttpHeaders headers) throws IOException {
+            ByteString name = headers.name.toAsciiLowercase();
+            ByteString value = headers.value;
+            if (name != headers.name) {
+                headers = new HttpHeaders(name, value);
+            }
+            int headerIndex = -1;
+            int headerNameIndex = -1;
+
+            Integer staticIndex = NAME_VALUE_TO_INDEX.get(headers);
+            if (staticIndex != null) {
+                headerIndex = staticIndex + 1;
+            } else {
+                staticIndex = NAME_TO_FIRST_INDEX.get(name);
                 if (staticIndex != null) {
                     headerNameIndex = staticIndex + 1;
-                    if (headerNameIndex > 1 && headerNameIndex < 8) {
-                        if (ObjectUtils.equal(STATIC_HEADERS_TABLE[headerNameIndex - 1].value, value)) {
-                            headerIndex = headerNameIndex;
-                        } else if (ObjectUtils.equal(STATIC_HEADERS_TABLE[headerNameIndex].value, value)) {
-                            headerIndex = headerNameIndex + 1;
-                        }
-                    }
                 }
-
-                if (headerIndex == -1) {
-                    for (int j = nextHeaderIndex + 1, length = dynamicTable.length; j < length; j++) {
-                        if (ObjectUtils.equal(dynamicTable[j].name, name)) {
-                            if (ObjectUtils.equal(dynamicTable[j].value, value)) {
-                                headerIndex = j - nextHeaderIndex + STATIC_HEADERS_TABLE.length;
-                                break;
-                            } else if (headerNameIndex == -1) {
-                                headerNameIndex = j - nextHeaderIndex + STATIC_HEADERS_TABLE.length;
-                            }
-                        }
+                Integer sequence = entryIndex.get(headers);
+                if (sequence != null) {
+                    headerIndex = dynamicIndex(sequence);
+                } else if (headerNameIndex == -1) {
+                    sequence = nameIndex.get(name);
+                    if (sequence != null) {
+                        headerNameIndex = dynamicIndex(sequence);
                     }
                 }
+            }
 
-                if (headerIndex != -1) {
-                    writeInt(headerIndex, PREFIX_7_BITS, 0x80);
-                } else if (headerNameIndex == -1) {
-                    out.writeByte(0x40);
-                    writeByteString(name);
-                    writeByteString(value);
-                    insertIntoDynamicTable(headers);
-                } else if (name.startsWith(HttpHeaders.PSEUDO_PREFIX) && !HttpHeaders.TARGET_AUTHORITY.equals(name)) {
-                    writeInt(headerNameIndex, PREFIX_4_BITS, 0);
-                    writeByteString(value);
-                } else {
-                    writeInt(headerNameIndex, PREFIX_6_BITS, 0x40);
-                    writeByteString(value);
-                    insertIntoDynamicTable(headers);
-                }
+            if (headerIndex != -1) {
+                writeInt(headerIndex, PREFIX_7_BITS, 0x80);
+            } else if (headerNameIndex == -1) {
+                out.writeByte(0x40);
+                writeByteString(name);
+                writeByteString(value);
+                insertIntoDynamicTable(headers);
+            } else if (name.startsWith(HttpHeaders.PSEUDO_PREFIX) && !HttpHeaders.TARGET_AUTHORITY.equals(name)) {
+                writeInt(headerNameIndex, PREFIX_4_BITS, 0);
+                writeByteString(value);
+            } else {
+                writeInt(headerNameIndex, PREFIX_6_BITS, 0x40);
+                writeByteString(value);
+                insertIntoDynamicTable(headers);
             }
         }
 
@@ -519,12 +619,10 @@ final class Hpack {
         }
 
         void writeByteString(ByteString data) throws IOException {
-            if (useCompression && Huffman.get().encodedLength(data) < data.size()) {
-                Buffer huffmanBuffer = new Buffer();
-                Huffman.get().encode(data, huffmanBuffer);
-                ByteString huffmanBytes = huffmanBuffer.readByteString();
-                writeInt(huffmanBytes.size(), PREFIX_7_BITS, 0x80);
-                out.write(huffmanBytes);
+            int huffmanLength;
+            if (useCompression && (huffmanLength = Huffman.get().encodedLength(data)) < data.size()) {
+                writeInt(huffmanLength, PREFIX_7_BITS, 0x80);
+                Huffman.get().encode(data, out);
             } else {
                 writeInt(data.size(), PREFIX_7_BITS, 0);
                 out.write(data);
@@ -534,7 +632,7 @@ final class Hpack {
         void setHeaderTableSizeSetting(int headerTableSizeSetting) {
             this.headerTableSizeSetting = headerTableSizeSetting;
             int effectiveHeaderTableSize = Math.min(headerTableSizeSetting,
-                    SETTINGS_HEADER_TABLE_SIZE_LIMIT);
+                    headerTableSizeLimit);
 
             if (maxDynamicTableByteCount == effectiveHeaderTableSize) return;
 
@@ -43,6 +43,10 @@ public final class Http2 {
      * 初始最大帧大小，应用于独立写入，或从同行读取.
      */
     static final int INITIAL_MAX_FRAME_SIZE = 0x4000; // 16384
+    /**
+     * 协议规定的初始头信息表大小,双方交换SETTINGS前使用.
+     */
+    static final int INITIAL_HEADER_TABLE_SIZE = 0x1000; // 4096
 
     static final byte TYPE_DATA = 0x0;
     static final byte TYPE_HEADERS = 0x1;
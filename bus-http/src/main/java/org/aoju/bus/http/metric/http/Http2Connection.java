@@ -130,6 +130,9 @@ public final class Http2Connection implements Closeable {
         if (builder.client) {
             settings.set(Http.INITIAL_WINDOW_SIZE, CLIENT_WINDOW_SIZE);
         }
+        if (builder.headerTableSize != Http2.INITIAL_HEADER_TABLE_SIZE) {
+            settings.set(Http.HEADER_TABLE_SIZE, builder.headerTableSize);
+        }
 
         hostname = builder.hostname;
 
@@ -147,9 +150,9 @@ public final class Http2Connection implements Closeable {
         peerSettings.set(Http.MAX_FRAME_SIZE, Http2.INITIAL_MAX_FRAME_SIZE);
         bytesLeftInWriteWindow = peerSettings.getInitialWindowSize();
         socket = builder.socket;
-        writer = new Http2Writer(builder.sink, client);
+        writer = new Http2Writer(builder.sink, client, builder.encoderHeaderTableSize);
 
-        readerRunnable = new ReaderRunnable(new Http2Reader(builder.source, client));
+        readerRunnable = new ReaderRunnable(new Http2Reader(builder.source, client, builder.headerTableSize));
     }
 
     public Protocol getProtocol() {
@@ -577,6 +580,8 @@ public final class Http2Connection implements Closeable {
         PushObserver pushObserver = PushObserver.CANCEL;
         boolean client;
         int pingIntervalMillis;
+        int headerTableSize = Http2.INITIAL_HEADER_TABLE_SIZE;
+        int encoderHeaderTableSize = Hpack.Writer.SETTINGS_HEADER_TABLE_SIZE_LIMIT;
 
         /**
          * @param client 如果该对等方发起连接，则为;如果该对等点接受了连接，则为false.
@@ -614,6 +619,34 @@ public final class Http2Connection implements Closeable {
             return this;
         }
 
+        /**
+         * 通告给对等方的SETTINGS_HEADER_TABLE_SIZE,即本端解码头信息时愿意维护的动态表字节数
+         *
+         * @param headerTableSize 动态表字节数
+         * @return 构造器
+         */
+        public Builder headerTableSize(int headerTableSize) {
+            if (headerTableSize < 0) {
+                throw new IllegalArgumentException("headerTableSize < 0: " + headerTableSize);
+            }
+            this.headerTableSize = headerTableSize;
+            return this;
+        }
+
+        /**
+         * 本端编码头信息时使用的动态表字节数上限,实际大小取此值与对等方设置中的较小者
+         *
+         * @param encoderHeaderTableSize 动态表字节数上限,为0时不使用动态表
+         * @return 构造器
+         */
+        public Builder encoderHeaderTableSize(int encoderHeaderTableSize) {
+            if (encoderHeaderTableSize < 0) {
+                throw new IllegalArgumentException("encoderHeaderTableSize < 0: " + encoderHeaderTableSize);
+            }
+            this.encoderHeaderTableSize = encoderHeaderTableSize;
+            return this;
+        }
+
         public Http2Connection build() {
             return new Http2Connection(this);
         }
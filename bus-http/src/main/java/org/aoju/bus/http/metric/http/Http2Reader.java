@@ -51,10 +51,17 @@ public final class Http2Reader implements Closeable {
     public final boolean client;
 
     Http2Reader(BufferSource source, boolean client) {
+        this(source, client, Http2.INITIAL_HEADER_TABLE_SIZE);
+    }
+
+    /**
+     * @param headerTableSize 本端通告给对等方的SETTINGS_HEADER_TABLE_SIZE
+     */
+    Http2Reader(BufferSource source, boolean client, int headerTableSize) {
         this.source = source;
         this.client = client;
         this.continuation = new ContinuationSource(this.source);
-        this.hpackReader = new Hpack.Reader(4096, continuation);
+        this.hpackReader = new Hpack.Reader(headerTableSize, continuation);
     }
 
     private static int readMedium(BufferSource source) throws IOException {
@@ -55,10 +55,17 @@ final class Http2Writer implements Closeable {
     private boolean closed;
 
     Http2Writer(BufferSink sink, boolean client) {
+        this(sink, client, Hpack.Writer.SETTINGS_HEADER_TABLE_SIZE_LIMIT);
+    }
+
+    /**
+     * @param headerTableSizeLimit 编码器动态表大小上限,对等方允许更大的表时也不超过此值
+     */
+    Http2Writer(BufferSink sink, boolean client, int headerTableSizeLimit) {
         this.sink = sink;
         this.client = client;
         this.hpackBuffer = new Buffer();
-        this.hpackWriter = new Hpack.Writer(hpackBuffer);
+        this.hpackWriter = new Hpack.Writer(Http2.INITIAL_HEADER_TABLE_SIZE, headerTableSizeLimit, true, hpackBuffer);
         this.maxFrameSize = Http2.INITIAL_MAX_FRAME_SIZE;
     }
 
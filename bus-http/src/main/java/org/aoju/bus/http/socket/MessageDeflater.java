@@ -0,0 +1,83 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License                                                               *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.http.socket;
+
+import org.aoju.bus.core.io.Buffer;
+import org.aoju.bus.core.io.ByteString;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.zip.Deflater;
+
+/**
+ * permessage-deflate消息压缩
+ * 这个类不是线程安全的
+ *
+ * @author Kimi Liu
+ * @version 5.8.6
+ * @since JDK 1.8+
+ */
+final class MessageDeflater implements Closeable {
+
+    /**
+     * 同步刷新后的空块,按RFC 7692第7.2.1节需从消息尾部去掉
+     */
+    static final ByteString EMPTY_DEFLATE_BLOCK = ByteString.decodeHex("0000ffff");
+
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    private final boolean noContextTakeover;
+    private final byte[] chunk = new byte[8192];
+
+    MessageDeflater(boolean noContextTakeover) {
+        this.noContextTakeover = noContextTakeover;
+    }
+
+    ByteString deflate(ByteString data) throws IOException {
+        Buffer out = new Buffer();
+        deflater.setInput(data.toByteArray());
+        int count;
+        do {
+            count = deflater.deflate(chunk, 0, chunk.length, Deflater.SYNC_FLUSH);
+            out.write(chunk, 0, count);
+        } while (count == chunk.length);
+
+        if (noContextTakeover) {
+            deflater.reset();
+        }
+        long size = out.size() - EMPTY_DEFLATE_BLOCK.size();
+        if (size >= 0 && out.rangeEquals(size, EMPTY_DEFLATE_BLOCK)) {
+            return out.readByteString(size);
+        }
+        // 上下文复用时重复的同步刷新会被省略,输出可能为空,按RFC 7692第7.2.3.6节补一个空的非最终块
+        out.writeByte(0x00);
+        return out.readByteString();
+    }
+
+    @Override
+    public void close() {
+        deflater.end();
+    }
+
+}
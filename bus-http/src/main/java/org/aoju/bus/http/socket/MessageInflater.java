@@ -0,0 +1,92 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License                                                               *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.http.socket;
+
+import org.aoju.bus.core.io.Buffer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * permessage-deflate消息解压
+ * 这个类不是线程安全的
+ *
+ * @author Kimi Liu
+ * @version 5.8.6
+ * @since JDK 1.8+
+ */
+final class MessageInflater implements Closeable {
+
+    private static final byte[] TAIL = MessageDeflater.EMPTY_DEFLATE_BLOCK.toByteArray();
+
+    private final Inflater inflater = new Inflater(true);
+    private final boolean noContextTakeover;
+    private final byte[] chunk = new byte[8192];
+
+    MessageInflater(boolean noContextTakeover) {
+        this.noContextTakeover = noContextTakeover;
+    }
+
+    /**
+     * 解压缓冲区中的完整消息,结果写回该缓冲区
+     *
+     * @param buffer 压缩的消息
+     * @throws IOException 数据格式错误
+     */
+    void inflate(Buffer buffer) throws IOException {
+        Buffer out = new Buffer();
+        try {
+            inflate(buffer.readByteArray(), out);
+            inflate(TAIL, out);
+        } catch (DataFormatException e) {
+            throw new ProtocolException("Invalid deflate data: " + e.getMessage());
+        }
+        if (noContextTakeover || inflater.finished()) {
+            inflater.reset();
+        }
+        buffer.writeAll(out);
+    }
+
+    private void inflate(byte[] input, Buffer out) throws DataFormatException {
+        inflater.setInput(input);
+        while (!inflater.finished()) {
+            int count = inflater.inflate(chunk);
+            if (count > 0) {
+                out.write(chunk, 0, count);
+            } else if (inflater.needsInput() || inflater.needsDictionary()) {
+                break;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        inflater.end();
+    }
+
+}
@@ -39,14 +39,12 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.net.ProtocolException;
 import java.net.SocketTimeoutException;
-import java.util.ArrayDeque;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author Kimi Liu
@@ -58,10 +56,10 @@ public final class RealWebSocket implements WebSocket, WebSocketReader.FrameCall
     private static final List<Protocol> ONLY_HTTP1 = Collections.singletonList(Protocol.HTTP_1_1);
 
     /**
-     * 要加入队列的最大字节数。而不是排队超过这个限制，我们拆掉web套接字!有可能我们写得比别人读得快
+     * 默认要加入队列的最大字节数。而不是排队超过这个限制，我们拆掉web套接字!有可能我们写得比别人读得快
      * 16 MiB
      */
-    private static final long MAX_QUEUE_SIZE = 16 * 1024 * 1024;
+    public static final long MAX_QUEUE_SIZE = 16 * 1024 * 1024;
 
     /**
      * 客户端调用{@link #close}以等待适当关闭的最大时间量。如果服务器没有响应，websocket将被取消
@@ -75,18 +73,42 @@ public final class RealWebSocket implements WebSocket, WebSocketReader.FrameCall
     private final Random random;
     private final long pingIntervalMillis;
     private final String key;
+    /**
+     * 排队字节数上限,超过时拒绝消息并关闭web套接字
+     */
+    private final long maxQueueSize;
+    /**
+     * 小于此字节数的消息不压缩,为负数时不协商permessage-deflate
+     */
+    private final long minimumDeflateSize;
+    /**
+     * 协商permessage-deflate时是否在消息之间保留压缩上下文
+     */
+    private final boolean contextTakeover;
     /**
      * 这个runnable处理传出队列。在进入队列后调用{@link #runWriter()}.
      */
     private final Runnable writerRunnable;
+    /**
+     * 写任务是否已提交,避免每条消息都提交一次
+     */
+    private final AtomicBoolean writerScheduled = new AtomicBoolean();
     /**
      * 发出的ping信号的顺序应该是写出来的
      */
-    private final ArrayDeque<ByteString> pongQueue = new ArrayDeque<>();
+    private final ConcurrentLinkedQueue<ByteString> pongQueue = new ConcurrentLinkedQueue<>();
     /**
      * 发送消息和关闭帧的顺序应该是它们被写入的顺序
      */
-    private final ArrayDeque<Object> messageAndCloseQueue = new ArrayDeque<>();
+    private final ConcurrentLinkedQueue<Object> messageAndCloseQueue = new ConcurrentLinkedQueue<>();
+    /**
+     * 排队但尚未传输的消息的总大小(以字节为单位)
+     */
+    private final AtomicLong queueSize = new AtomicLong();
+    /**
+     * 握手协商的扩展
+     */
+    private WebSocketExtensions extensions = WebSocketExtensions.NONE;
     /**
      * 客户端web套接字是非空的。这些可以被取消.
      */
@@ -102,21 +124,27 @@ public final class RealWebSocket implements WebSocket, WebSocketReader.FrameCall
     /**
      * 在连接此web套接字之前为空。用于写、ping和关闭超时
      */
-    private ScheduledExecutorService executor;
+    private volatile ScheduledExecutorService executor;
     /**
      * 此web套接字持有的流。在读取所有传入消息和写入所有传出消息之前，这是非空的
      * 当读者和作者都精疲力尽，或者出现任何失败时，它就关闭了
      */
     private Streams streams;
+
     /**
-     * 排队但尚未传输的消息的总大小(以字节为单位)
+     * 如果我们加入了一个闭帧，则为真。不再有消息帧进入队列
      */
-    private long queueSize;
+    private volatile boolean enqueuedClose;
 
     /**
-     * 如果我们加入了一个闭帧，则为真。不再有消息帧进入队列
+     * 关闭帧已写出,之后出队的消息直接丢弃。仅由写线程访问
+     */
+    private boolean sentClose;
+
+    /**
+     * 有消息写入但尚未刷新。仅由写线程访问
      */
-    private boolean enqueuedClose;
+    private boolean pendingFlush;
 
     /**
      * 执行时将取消此websocket。如果不必要的话，应该取消这个future本身，因为web套接字已经关闭或取消了
@@ -136,7 +164,7 @@ public final class RealWebSocket implements WebSocket, WebSocketReader.FrameCall
     /**
      * 如果此web套接字失败且侦听器已被通知，则为
      */
-    private boolean failed;
+    private volatile boolean failed;
 
     /**
      * 此web套接字发送的ping的总数
@@ -160,13 +188,34 @@ public final class RealWebSocket implements WebSocket, WebSocketReader.FrameCall
 
     public RealWebSocket(Request request, WebSocketListener listener, Random random,
                          long pingIntervalMillis) {
+        this(request, listener, random, pingIntervalMillis, MAX_QUEUE_SIZE, -1, true);
+    }
+
+    /**
+     * @param request            请求
+     * @param listener           监听器
+     * @param random             随机数
+     * @param pingIntervalMillis ping间隔(毫秒)
+     * @param maxQueueSize       排队字节数上限
+     * @param minimumDeflateSize 压缩的最小消息字节数,为负数时不协商permessage-deflate
+     * @param contextTakeover    是否在消息之间保留压缩上下文
+     */
+    public RealWebSocket(Request request, WebSocketListener listener, Random random,
+                         long pingIntervalMillis, long maxQueueSize, long minimumDeflateSize,
+                         boolean contextTakeover) {
         if (!Http.GET.equals(request.method())) {
             throw new IllegalArgumentException("Request must be GET: " + request.method());
         }
+        if (maxQueueSize <= 0) {
+            throw new IllegalArgumentException("maxQueueSize <= 0: " + maxQueueSize);
+        }
         this.originalRequest = request;
         this.listener = listener;
         this.random = random;
         this.pingIntervalMillis = pingIntervalMillis;
+        this.maxQueueSize = maxQueueSize;
+        this.minimumDeflateSize = minimumDeflateSize;
+        this.contextTakeover = contextTakeover;
 
         byte[] nonce = new byte[16];
         random.nextBytes(nonce);
@@ -174,9 +223,19 @@ public final class RealWebSocket implements WebSocket, WebSocketReader.FrameCall
 
         this.writerRunnable = () -> {
             try {
-                while (writeOneFrame()) {
+                while (true) {
+                    while (writeOneFrame()) {
+                    }
+                    flushWriter();
+                    // 释放标记后再次检查,避免与并发入队的消息错过
+                    writerScheduled.set(false);
+                    if ((pongQueue.isEmpty() && messageAndCloseQueue.isEmpty())
+                            || !writerScheduled.compareAndSet(false, true)) {
+                        break;
+                    }
                 }
             } catch (IOException e) {
+                writerScheduled.set(false);
                 failWebSocket(e, null);
             }
         };
@@ -188,8 +247,8 @@ public final class RealWebSocket implements WebSocket, WebSocketReader.FrameCall
     }
 
     @Override
-    public synchronized long queueSize() {
-        return queueSize;
+    public long queueSize() {
+        return queueSize.get();
     }
 
     @Override
@@ -202,12 +261,15 @@ public final class RealWebSocket implements WebSocket, WebSocketReader.FrameCall
                 .eventListener(EventListener.NONE)
                 .protocols(ONLY_HTTP1)
                 .build();
-        final Request request = originalRequest.newBuilder()
+        Request.Builder builder = originalRequest.newBuilder()
                 .header(Header.UPGRADE, "websocket")
                 .header(Header.CONNECTION, Header.UPGRADE)
                 .header(Header.SEC_WEBSOCKET_KEY, key)
-                .header(Header.SEC_WEBSOCKET_VERSION, "13")
-                .build();
+                .header(Header.SEC_WEBSOCKET_VERSION, "13");
+        if (minimumDeflateSize >= 0 && originalRequest.header(WebSocketExtensions.HEADER) == null) {
+            builder.header(WebSocketExtensions.HEADER, WebSocketExtensions.offer(contextTakeover));
+        }
+        final Request request = builder.build();
         call = Builder.instance.newWebSocketCall(client, request);
         call.timeout().clearTimeout();
         call.enqueue(new Callback() {
@@ -270,12 +332,25 @@ public final class RealWebSocket implements WebSocket, WebSocketReader.FrameCall
             throw new ProtocolException("Expected 'Sec-WebSocket-Accept' header value '"
                     + acceptExpected + "' but was '" + headerAccept + Symbol.SINGLE_QUOTE);
         }
+
+        WebSocketExtensions extensions = WebSocketExtensions.parse(response.headers());
+        if (extensions.perMessageDeflate && minimumDeflateSize < 0
+                && originalRequest.header(WebSocketExtensions.HEADER) == null) {
+            throw new ProtocolException("Unexpected " + WebSocketExtensions.HEADER + ": "
+                    + response.header(WebSocketExtensions.HEADER));
+        }
+        this.extensions = extensions;
     }
 
     public void initReaderAndWriter(String name, Streams streams) {
+        WebSocketExtensions extensions = this.extensions;
         synchronized (this) {
             this.streams = streams;
-            this.writer = new WebSocketWriter(streams.client, streams.sink, random);
+            MessageDeflater messageDeflater = extensions.canDeflate(streams.client)
+                    ? new MessageDeflater(extensions.noContextTakeover(streams.client))
+                    : null;
+            this.writer = new WebSocketWriter(streams.client, streams.sink, random, messageDeflater,
+                    minimumDeflateSize < 0 ? 0 : minimumDeflateSize);
             this.executor = new ScheduledThreadPoolExecutor(1, Builder.threadFactory(name, false));
             if (pingIntervalMillis != 0) {
                 executor.scheduleAtFixedRate(
@@ -287,7 +362,9 @@ public final class RealWebSocket implements WebSocket, WebSocketReader.FrameCall
             }
         }
 
-        reader = new WebSocketReader(streams.client, streams.source, this);
+        reader = new WebSocketReader(streams.client, streams.source, this, extensions.perMessageDeflate
+                ? new MessageInflater(extensions.noContextTakeover(!streams.client))
+                : null);
     }
 
     public void loopReader() throws IOException {
@@ -395,18 +472,18 @@ public final class RealWebSocket implements WebSocket, WebSocketReader.FrameCall
         return send(bytes, WebSocketProtocol.OPCODE_BINARY);
     }
 
-    private synchronized boolean send(ByteString data, int formatOpcode) {
+    private boolean send(ByteString data, int formatOpcode) {
         // 不要发送新的帧后，我们已经失败或排队关闭的帧.
         if (failed || enqueuedClose) return false;
 
         // 如果此帧溢出缓冲区，则拒绝它并关闭web套接字.
-        if (queueSize + data.size() > MAX_QUEUE_SIZE) {
+        if (queueSize.addAndGet(data.size()) > maxQueueSize) {
+            queueSize.addAndGet(-data.size());
             close(WebSocketProtocol.CLOSE_CLIENT_GOING_AWAY, null);
             return false;
         }
 
         // 对消息帧进行排队.
-        queueSize += data.size();
         messageAndCloseQueue.add(new Message(formatOpcode, data));
         runWriter();
         return true;
@@ -446,10 +523,26 @@ public final class RealWebSocket implements WebSocket, WebSocketReader.FrameCall
     }
 
     private void runWriter() {
-        assert (Thread.holdsLock(this));
+        ScheduledExecutorService executor = this.executor;
+        if (executor != null && writerScheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(writerRunnable);
+            } catch (RejectedExecutionException e) {
+                // 已失败或关闭
+                writerScheduled.set(false);
+            }
+        }
+    }
 
-        if (executor != null) {
-            executor.execute(writerRunnable);
+    /**
+     * 一次刷新本轮写入的全部消息
+     *
+     * @throws IOException 异常信息
+     */
+    void flushWriter() throws IOException {
+        if (pendingFlush) {
+            pendingFlush = false;
+            writer.flush();
         }
     }
 
@@ -504,17 +597,18 @@ public final class RealWebSocket implements WebSocket, WebSocketReader.FrameCall
                 writer.writePong(pong);
 
             } else if (messageOrClose instanceof Message) {
-                ByteString data = ((Message) messageOrClose).data;
-                BufferSink sink = IoUtils.buffer(writer.newMessageSink(
-                        ((Message) messageOrClose).formatOpcode, data.size()));
-                sink.write(data);
-                sink.close();
-                synchronized (this) {
-                    queueSize -= data.size();
+                Message message = (Message) messageOrClose;
+                // 与close并发入队的消息可能排在关闭帧之后,此时丢弃
+                if (!sentClose) {
+                    writer.writeMessage(message.formatOpcode, message.data);
+                    pendingFlush = true;
                 }
+                queueSize.addAndGet(-message.data.size());
 
             } else if (messageOrClose instanceof Close) {
                 Close close = (Close) messageOrClose;
+                sentClose = true;
+                pendingFlush = false;
                 writer.writeClose(close.code, close.reason);
 
                 // 我们关闭了writer:现在reader和writer都关闭了.
@@ -0,0 +1,167 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License                                                               *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.http.socket;
+
+import org.aoju.bus.core.lang.Symbol;
+import org.aoju.bus.http.Headers;
+
+import java.net.ProtocolException;
+
+/**
+ * RFC 7692 permessage-deflate扩展的协商结果
+ *
+ * @author Kimi Liu
+ * @version 5.8.6
+ * @since JDK 1.8+
+ */
+final class WebSocketExtensions {
+
+    static final String HEADER = "Sec-WebSocket-Extensions";
+    static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+    static final String CLIENT_MAX_WINDOW_BITS = "client_max_window_bits";
+    static final String CLIENT_NO_CONTEXT_TAKEOVER = "client_no_context_takeover";
+    static final String SERVER_MAX_WINDOW_BITS = "server_max_window_bits";
+    static final String SERVER_NO_CONTEXT_TAKEOVER = "server_no_context_takeover";
+
+    /**
+     * 未协商任何扩展
+     */
+    static final WebSocketExtensions NONE = new WebSocketExtensions(false, 15, false, 15, false);
+
+    final boolean perMessageDeflate;
+    final int clientMaxWindowBits;
+    final boolean clientNoContextTakeover;
+    final int serverMaxWindowBits;
+    final boolean serverNoContextTakeover;
+
+    WebSocketExtensions(boolean perMessageDeflate, int clientMaxWindowBits, boolean clientNoContextTakeover,
+                        int serverMaxWindowBits, boolean serverNoContextTakeover) {
+        this.perMessageDeflate = perMessageDeflate;
+        this.clientMaxWindowBits = clientMaxWindowBits;
+        this.clientNoContextTakeover = clientNoContextTakeover;
+        this.serverMaxWindowBits = serverMaxWindowBits;
+        this.serverNoContextTakeover = serverNoContextTakeover;
+    }
+
+    /**
+     * 客户端发起握手时提供的扩展
+     *
+     * @param contextTakeover 是否在消息之间保留压缩上下文
+     * @return 请求头的值
+     */
+    static String offer(boolean contextTakeover) {
+        return contextTakeover
+                ? PERMESSAGE_DEFLATE + "; " + CLIENT_MAX_WINDOW_BITS
+                : PERMESSAGE_DEFLATE + "; " + CLIENT_NO_CONTEXT_TAKEOVER + "; " + SERVER_NO_CONTEXT_TAKEOVER;
+    }
+
+    /**
+     * 解析握手响应中服务端接受的扩展,仅支持permessage-deflate
+     *
+     * @param headers 响应头
+     * @return 协商结果
+     * @throws ProtocolException 包含未提供的扩展或参数不合法
+     */
+    static WebSocketExtensions parse(Headers headers) throws ProtocolException {
+        boolean perMessageDeflate = false;
+        int clientMaxWindowBits = 15;
+        boolean clientNoContextTakeover = false;
+        int serverMaxWindowBits = 15;
+        boolean serverNoContextTakeover = false;
+
+        for (String value : headers.values(HEADER)) {
+            for (String extension : value.split(Symbol.COMMA)) {
+                String[] parameters = extension.split(Symbol.SEMICOLON);
+                String name = parameters[0].trim();
+                if (name.isEmpty()) {
+                    continue;
+                }
+                if (!PERMESSAGE_DEFLATE.equalsIgnoreCase(name) || perMessageDeflate) {
+                    throw new ProtocolException("Unexpected " + HEADER + ": " + value);
+                }
+                perMessageDeflate = true;
+                for (int i = 1; i < parameters.length; i++) {
+                    String parameter = parameters[i].trim();
+                    int eq = parameter.indexOf(Symbol.C_EQUAL);
+                    String key = (eq == -1 ? parameter : parameter.substring(0, eq)).trim();
+                    String arg = eq == -1 ? null : unquote(parameter.substring(eq + 1).trim());
+                    if (CLIENT_MAX_WINDOW_BITS.equalsIgnoreCase(key)) {
+                        clientMaxWindowBits = windowBits(arg, value);
+                    } else if (SERVER_MAX_WINDOW_BITS.equalsIgnoreCase(key)) {
+                        serverMaxWindowBits = windowBits(arg, value);
+                    } else if (CLIENT_NO_CONTEXT_TAKEOVER.equalsIgnoreCase(key) && arg == null) {
+                        clientNoContextTakeover = true;
+                    } else if (SERVER_NO_CONTEXT_TAKEOVER.equalsIgnoreCase(key) && arg == null) {
+                        serverNoContextTakeover = true;
+                    } else {
+                        throw new ProtocolException("Unexpected " + HEADER + ": " + value);
+                    }
+                }
+            }
+        }
+        return perMessageDeflate
+                ? new WebSocketExtensions(true, clientMaxWindowBits, clientNoContextTakeover,
+                serverMaxWindowBits, serverNoContextTakeover)
+                : NONE;
+    }
+
+    private static String unquote(String value) {
+        return value.length() >= 2 && value.charAt(0) == '"' && value.charAt(value.length() - 1) == '"'
+                ? value.substring(1, value.length() - 1)
+                : value;
+    }
+
+    private static int windowBits(String arg, String value) throws ProtocolException {
+        try {
+            int bits = arg == null ? 15 : Integer.parseInt(arg);
+            if (bits >= 8 && bits <= 15) {
+                return bits;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        throw new ProtocolException("Unexpected " + HEADER + ": " + value);
+    }
+
+    /**
+     * 本端发送的消息是否可以压缩;JDK的Deflater固定使用15位窗口,对端要求更小窗口时只发送未压缩的消息
+     *
+     * @param isClient 是否客户端
+     * @return the true/false
+     */
+    boolean canDeflate(boolean isClient) {
+        return perMessageDeflate && (isClient ? clientMaxWindowBits : serverMaxWindowBits) == 15;
+    }
+
+    /**
+     * 本端发送消息后是否重置压缩上下文
+     *
+     * @param isClient 是否客户端
+     * @return the true/false
+     */
+    boolean noContextTakeover(boolean isClient) {
+        return isClient ? clientNoContextTakeover : serverNoContextTakeover;
+    }
+
+}
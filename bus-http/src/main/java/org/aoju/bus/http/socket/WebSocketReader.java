@@ -49,18 +49,29 @@ final class WebSocketReader {
     private final Buffer messageFrameBuffer = new Buffer();
     private final byte[] maskKey;
     private final Buffer.UnsafeCursor maskCursor;
+    /**
+     * 协商了permessage-deflate时非空
+     */
+    private final MessageInflater messageInflater;
     boolean closed;
     int opcode;
     long frameLength;
     boolean isFinalFrame;
     boolean isControlFrame;
+    boolean readingCompressedMessage;
 
     WebSocketReader(boolean isClient, BufferSource source, FrameCallback frameCallback) {
+        this(isClient, source, frameCallback, null);
+    }
+
+    WebSocketReader(boolean isClient, BufferSource source, FrameCallback frameCallback,
+                    MessageInflater messageInflater) {
         if (source == null) throw new NullPointerException("source == null");
         if (frameCallback == null) throw new NullPointerException("frameCallback == null");
         this.isClient = isClient;
         this.source = source;
         this.frameCallback = frameCallback;
+        this.messageInflater = messageInflater;
 
         maskKey = isClient ? null : new byte[4];
         maskCursor = isClient ? null : new Buffer.UnsafeCursor();
@@ -98,7 +109,16 @@ final class WebSocketReader {
         boolean reservedFlag1 = (b0 & WebSocketProtocol.B0_FLAG_RSV1) != 0;
         boolean reservedFlag2 = (b0 & WebSocketProtocol.B0_FLAG_RSV2) != 0;
         boolean reservedFlag3 = (b0 & WebSocketProtocol.B0_FLAG_RSV3) != 0;
-        if (reservedFlag1 || reservedFlag2 || reservedFlag3) {
+        if (reservedFlag1) {
+            // RSV1只能出现在已协商压缩的消息的第一帧
+            if (messageInflater == null || isControlFrame || opcode == WebSocketProtocol.OPCODE_CONTINUATION) {
+                throw new ProtocolException("Unexpected rsv1 flag");
+            }
+            readingCompressedMessage = true;
+        } else if (!isControlFrame && opcode != WebSocketProtocol.OPCODE_CONTINUATION) {
+            readingCompressedMessage = false;
+        }
+        if (reservedFlag2 || reservedFlag3) {
             throw new ProtocolException("Reserved flags are unsupported.");
         }
 
@@ -164,6 +184,9 @@ final class WebSocketReader {
                 }
                 frameCallback.onReadClose(code, reason);
                 closed = true;
+                if (messageInflater != null) {
+                    messageInflater.close();
+                }
                 break;
             default:
                 throw new ProtocolException("Unknown control opcode: " + Integer.toHexString(opcode));
@@ -178,6 +201,10 @@ final class WebSocketReader {
 
         readMessage();
 
+        if (readingCompressedMessage) {
+            messageInflater.inflate(messageFrameBuffer);
+        }
+
         if (opcode == WebSocketProtocol.OPCODE_TEXT) {
             frameCallback.onReadMessage(messageFrameBuffer.readUtf8());
         } else {
@@ -49,16 +49,31 @@ final class WebSocketWriter {
     final FrameSink frameSink = new FrameSink();
     private final byte[] maskKey;
     private final Buffer.UnsafeCursor maskCursor;
+    /**
+     * 协商了permessage-deflate且可以压缩时非空
+     */
+    private final MessageDeflater messageDeflater;
+    /**
+     * 小于此字节数的消息不压缩
+     */
+    private final long minimumDeflateSize;
     boolean writerClosed;
     boolean activeWriter;
 
     WebSocketWriter(boolean isClient, BufferSink sink, Random random) {
+        this(isClient, sink, random, null, Long.MAX_VALUE);
+    }
+
+    WebSocketWriter(boolean isClient, BufferSink sink, Random random,
+                    MessageDeflater messageDeflater, long minimumDeflateSize) {
         if (sink == null) throw new NullPointerException("sink == null");
         if (random == null) throw new NullPointerException("random == null");
         this.isClient = isClient;
         this.sink = sink;
         this.sinkBuffer = sink.buffer();
         this.random = random;
+        this.messageDeflater = messageDeflater;
+        this.minimumDeflateSize = minimumDeflateSize;
 
         maskKey = isClient ? new byte[4] : null;
         maskCursor = isClient ? new Buffer.UnsafeCursor() : null;
@@ -97,6 +112,9 @@ final class WebSocketWriter {
             writeControlFrame(WebSocketProtocol.OPCODE_CONTROL_CLOSE, payload);
         } finally {
             writerClosed = true;
+            if (messageDeflater != null) {
+                messageDeflater.close();
+            }
         }
     }
 
@@ -151,6 +169,33 @@ final class WebSocketWriter {
         return frameSink;
     }
 
+    /**
+     * 将完整消息写为单个帧,只写出已满的段而不刷新,连续写入的多条消息由{@link #flush()}一并发送
+     *
+     * @param formatOpcode 消息类型
+     * @param data         消息内容
+     * @throws IOException 异常
+     */
+    void writeMessage(int formatOpcode, ByteString data) throws IOException {
+        if (writerClosed) throw new IOException("closed");
+        if (activeWriter) {
+            throw new IllegalStateException("Another message writer is active. Did you call close()?");
+        }
+
+        int b0 = formatOpcode | WebSocketProtocol.B0_FLAG_FIN;
+        if (messageDeflater != null && data.size() >= minimumDeflateSize) {
+            data = messageDeflater.deflate(data);
+            b0 |= WebSocketProtocol.B0_FLAG_RSV1;
+        }
+        buffer.write(data);
+        writeFrame(b0, buffer.size());
+        sink.emitCompleteSegments();
+    }
+
+    void flush() throws IOException {
+        sink.flush();
+    }
+
     void writeMessageFrame(int formatOpcode, long byteCount, boolean isFirstFrame,
                            boolean isFinal) throws IOException {
         if (writerClosed) throw new IOException("closed");
@@ -159,6 +204,14 @@ final class WebSocketWriter {
         if (isFinal) {
             b0 |= WebSocketProtocol.B0_FLAG_FIN;
         }
+        writeFrame(b0, byteCount);
+        sink.emit();
+    }
+
+    /**
+     * 写入帧头及{@link #buffer}中的{@code byteCount}字节
+     */
+    private void writeFrame(int b0, long byteCount) throws IOException {
         sinkBuffer.writeByte(b0);
 
         int b1 = 0;
@@ -194,8 +247,6 @@ final class WebSocketWriter {
         } else {
             sinkBuffer.write(buffer, byteCount);
         }
-
-        sink.emit();
     }
 
     final class FrameSink implements Sink {
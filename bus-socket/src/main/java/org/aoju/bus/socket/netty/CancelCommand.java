@@ -24,6 +24,9 @@
  ********************************************************************************/
 package org.aoju.bus.socket.netty;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * @author Kimi Liu
  * @version 5.8.6
@@ -50,23 +53,22 @@ public class CancelCommand implements Runnable {
     }
 
     private void cancel(String data) {
-        ClientGroup group = ClientService.getClientGroup();
-        for (ClientMap map : group.values()) {
-            if (map.containsKey(request.getContext().channel().id())) {
-                SocketClient client = map.get(request.getContext().channel().id());
-                client.cancel(data);
-            }
+        SocketClient client = ClientService.getClient(request.getContext());
+        if (client == null) {
+            return;
+        }
+        List<String> topics = new ArrayList<>(client.getTopics());
+        client.cancel(data);
+        for (String topic : topics) {
+            ClientService.unsubscribe(request.getContext(), topic);
         }
     }
 
     private void cancel(String topic, String data) {
-        ClientGroup group = ClientService.getClientGroup();
-        if (group.containsKey(topic)) {
-            ClientMap map = group.get(topic);
-            if (map.containsKey(request.getContext().channel().id())) {
-                SocketClient client = map.get(request.getContext().channel().id());
-                client.cancel(topic, data);
-            }
+        SocketClient client = ClientService.getClient(request.getContext());
+        if (client != null && client.getTopics().contains(topic)) {
+            client.cancel(topic, data);
+            ClientService.unsubscribe(request.getContext(), topic);
         }
     }
 
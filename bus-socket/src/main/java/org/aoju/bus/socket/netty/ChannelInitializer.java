@@ -39,9 +39,15 @@ import io.netty.handler.stream.ChunkedWriteHandler;
 public class ChannelInitializer extends io.netty.channel.ChannelInitializer<SocketChannel> {
 
     private String endPoint;
+    private int maxContentLength;
 
     public ChannelInitializer(String endPoint) {
+        this(endPoint, 8192);
+    }
+
+    public ChannelInitializer(String endPoint, int maxContentLength) {
         this.endPoint = endPoint;
+        this.maxContentLength = maxContentLength;
     }
 
     @Override
@@ -52,9 +58,9 @@ public class ChannelInitializer extends io.netty.channel.ChannelInitializer<Sock
         //ChunkedWriteHandler分块写处理,文件过大会将内存撑爆
         pipeline.addLast("chunkedWriteHandler", new ChunkedWriteHandler());
         //作用是将一个Http的消息组装成一个HttpRequest或者HttpResponse, 该Handler必须放在HttpServerCodec后的后面
-        pipeline.addLast("httpObjectAggregator", new HttpObjectAggregator(8192));
-        //用于处理websocket, /ws为访问websocket时的uri
-        pipeline.addLast("webSocketServerProtocolHandler", new WebSocketServerProtocolHandler(endPoint));
+        pipeline.addLast("httpObjectAggregator", new HttpObjectAggregator(maxContentLength));
+        //用于处理websocket, /ws为访问websocket时的uri,客户端可通过子协议协商二进制请求格式
+        pipeline.addLast("webSocketServerProtocolHandler", new WebSocketServerProtocolHandler(endPoint, NettyConsts.BINARY_SUBPROTOCOL));
         //自定义处理器
         pipeline.addLast("myWebSocketHandler", new SocketHandler());
     }
@@ -24,15 +24,69 @@
  ********************************************************************************/
 package org.aoju.bus.socket.netty;
 
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelId;
+import io.netty.channel.EventLoop;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * 主题的订阅者集合
+ * 另按通道所属的EventLoop分区,分区只在对应的EventLoop线程中读写,发布时每个EventLoop只遍历自己的分区
+ *
  * @author Kimi Liu
  * @version 5.8.6
  * @since JDK 1.8+
  */
 public class ClientMap extends ConcurrentHashMap<ChannelId, SocketClient> {
 
+    private final Map<EventLoop, Map<ChannelId, SocketClient>> partitions = new ConcurrentHashMap<>();
+
+    /**
+     * 添加订阅者
+     *
+     * @param client 客户端
+     */
+    public void add(SocketClient client) {
+        Channel channel = client.getChannel();
+        put(channel.id(), client);
+        EventLoop loop = channel.eventLoop();
+        Map<ChannelId, SocketClient> partition = partitions.computeIfAbsent(loop, k -> new HashMap<>());
+        if (loop.inEventLoop()) {
+            partition.put(channel.id(), client);
+        } else {
+            loop.execute(() -> partition.put(channel.id(), client));
+        }
+    }
+
+    /**
+     * 移除订阅者
+     *
+     * @param channel 通道
+     */
+    public void remove(Channel channel) {
+        remove(channel.id());
+        EventLoop loop = channel.eventLoop();
+        Map<ChannelId, SocketClient> partition = partitions.get(loop);
+        if (partition == null) {
+            return;
+        }
+        if (loop.inEventLoop()) {
+            partition.remove(channel.id());
+        } else {
+            loop.execute(() -> partition.remove(channel.id()));
+        }
+    }
+
+    /**
+     * 按EventLoop分区的订阅者,分区内容只能在对应的EventLoop中访问
+     *
+     * @return 分区
+     */
+    Map<EventLoop, Map<ChannelId, SocketClient>> partitions() {
+        return partitions;
+    }
+
 }
@@ -24,7 +24,12 @@
  ********************************************************************************/
 package org.aoju.bus.socket.netty;
 
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelId;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * @author Kimi Liu
@@ -35,6 +40,10 @@ public class ClientService {
 
     private static ClientMap activeClients = new ClientMap();
     private static ClientGroup group = new ClientGroup();
+    /**
+     * 通配符主题索引,与group中的通配符主题共用订阅者集合
+     */
+    private static TopicTrie patterns = new TopicTrie();
 
     public static void active(ChannelHandlerContext context) {
         activeClients.put(context.channel().id(), new SocketClient(context.channel()));
@@ -53,38 +62,92 @@ public class ClientService {
     }
 
     public static SocketClient subscribe(ChannelHandlerContext context, String topic) {
-        if (group.containsKey(topic)) {
-            ClientMap map = group.get(topic);
-            return subscribe(context, topic, map);
-        } else {
-            ClientMap map = new ClientMap();
-            group.put(topic, map);
-            return subscribe(context, topic, map);
+        Channel channel = context.channel();
+        ChannelId id = channel.id();
+        SocketClient client = activeClients.get(id);
+        if (client == null) {
+            return null;
+        }
+        // 先登记反向索引,保证并发的remove能看到该主题
+        client.subscribe(topic);
+        group.compute(topic, (key, map) -> {
+            if (map == null) {
+                map = new ClientMap();
+                if (TopicTrie.isPattern(key)) {
+                    patterns.put(key, map);
+                }
+            }
+            map.add(client);
+            return map;
+        });
+        if (!activeClients.containsKey(id)) {
+            unsubscribe(channel, topic);
         }
+        return client;
     }
 
-    private static SocketClient subscribe(ChannelHandlerContext context, String topic, ClientMap map) {
-        if (map.containsKey(context.channel().id())) {
-            SocketClient client = map.get(context.channel().id());
-            client.subscribe(topic);
-            return client;
-        } else {
-            SocketClient client = getClient(context);
-            client.subscribe(topic);
-            map.put(context.channel().id(), client);
-            return client;
-        }
+    /**
+     * 从主题索引中移除订阅者
+     *
+     * @param context 通道上下文
+     * @param topic   主题
+     */
+    public static void unsubscribe(ChannelHandlerContext context, String topic) {
+        unsubscribe(context.channel(), topic);
+    }
+
+    private static void unsubscribe(Channel channel, String topic) {
+        group.computeIfPresent(topic, (key, map) -> {
+            map.remove(channel);
+            if (!map.isEmpty()) {
+                return map;
+            }
+            if (TopicTrie.isPattern(key)) {
+                patterns.remove(key);
+            }
+            return null;
+        });
     }
 
+    /**
+     * 移除客户端,只清理其订阅过的主题
+     *
+     * @param context 通道上下文
+     */
     public static void remove(ChannelHandlerContext context) {
-        inactive(context);
-        for (ClientMap map : group.values()) {
-            map.remove(context.channel().id());
+        SocketClient client = activeClients.remove(context.channel().id());
+        if (client == null) {
+            return;
+        }
+        for (String topic : client.getTopics()) {
+            unsubscribe(context.channel(), topic);
+        }
+    }
+
+    /**
+     * 查找主题的全部订阅者集合,包括匹配的通配符主题
+     *
+     * @param topic 主题
+     * @return 订阅者集合
+     */
+    public static List<ClientMap> match(String topic) {
+        List<ClientMap> list = new ArrayList<>(1);
+        ClientMap map = group.get(topic);
+        if (map != null) {
+            list.add(map);
         }
+        patterns.match(topic, list);
+        return list;
     }
 
+    /**
+     * 发布消息,在调用线程中完成匹配与编码,写出交给各订阅者所在的EventLoop
+     *
+     * @param topic   主题
+     * @param message 消息
+     */
     public static void publish(String topic, String message) {
-        CommandExecutor.execute(new PublishCommand(topic, message));
+        new PublishCommand(topic, message).run();
     }
 
     public static ClientGroup getClientGroup() {
@@ -24,23 +24,70 @@
  ********************************************************************************/
 package org.aoju.bus.socket.netty;
 
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.EventExecutorGroup;
 import org.aoju.bus.core.thread.ThreadBuilder;
 
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
-
 /**
+ * 命令在通道所属的EventLoop中执行,只维护订阅索引;
+ * 用户事件处理器回调交给独立的{@link EventExecutorGroup},避免阻塞I/O线程
+ *
  * @author Kimi Liu
  * @version 5.8.6
  * @since JDK 1.8+
  */
 public class CommandExecutor {
 
-    private static ThreadPoolExecutor executor = new ThreadPoolExecutor(8, 8, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), new ThreadBuilder().setNamePrefix("websocket-command-%d").build());
+    private static volatile EventExecutorGroup handlerGroup;
+
+    /**
+     * 在通道所属的EventLoop中执行命令,已处于该EventLoop时直接执行
+     *
+     * @param channel 通道
+     * @param command 命令
+     */
+    public static void execute(Channel channel, Runnable command) {
+        EventLoop loop = channel.eventLoop();
+        if (loop.inEventLoop()) {
+            command.run();
+        } else {
+            loop.execute(command);
+        }
+    }
+
+    /**
+     * 设置执行事件处理器回调的线程组,需在服务启动前设置
+     *
+     * @param group 线程组
+     */
+    public static void setHandlerGroup(EventExecutorGroup group) {
+        if (group == null) {
+            throw new IllegalArgumentException("handler group must not be null");
+        }
+        handlerGroup = group;
+    }
 
-    public static void execute(Runnable command) {
-        executor.execute(command);
+    /**
+     * 为新连接分配回调执行器,同一连接的回调始终在同一线程中按序执行
+     *
+     * @return 执行器
+     */
+    static EventExecutor next() {
+        EventExecutorGroup group = handlerGroup;
+        if (group == null) {
+            synchronized (CommandExecutor.class) {
+                group = handlerGroup;
+                if (group == null) {
+                    group = new DefaultEventExecutorGroup(NettyConsts.HANDLER_GROUP_THREADS,
+                            new ThreadBuilder().setNamePrefix("websocket-handler-%d").build());
+                    handlerGroup = group;
+                }
+            }
+        }
+        return group.next();
     }
 
 }
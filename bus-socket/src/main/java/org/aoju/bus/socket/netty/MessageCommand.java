@@ -39,16 +39,17 @@ public class MessageCommand implements Runnable {
 
     @Override
     public void run() {
-        for (String topic : request.getTopic()) {
-            ClientGroup group = ClientService.getClientGroup();
-            if (group.containsKey(topic)) {
-                ClientMap map = group.get(topic);
-                if (map.containsKey(request.getContext().channel().id())) {
-                    SocketClient client = map.get(request.getContext().channel().id());
+        SocketClient client = ClientService.getClient(request.getContext());
+        if (client == null) {
+            return;
+        }
+        client.execute(() -> {
+            for (String topic : request.getTopic()) {
+                if (client.getTopics().contains(topic)) {
                     SocketService.onMessage(client, topic, request.getData());
                 }
             }
-        }
+        });
     }
 
 }
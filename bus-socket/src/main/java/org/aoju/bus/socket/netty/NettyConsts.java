@@ -44,8 +44,14 @@ public class NettyConsts {
 
     public static final String TOPIC_ALL = "all";
 
+    /**
+     * 二进制请求格式的WebSocket子协议,见{@link RequestDecoder}
+     */
+    public static final String BINARY_SUBPROTOCOL = "binary";
+
     public static int BOSS_GROUP_THREADS = 1;
     public static int WORKER_GROUP_THREADS = 0;
+    public static int HANDLER_GROUP_THREADS = 8;
     public static String END_POINT = "/ws";
 
 }
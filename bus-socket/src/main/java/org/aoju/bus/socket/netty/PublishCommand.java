@@ -24,13 +24,30 @@
  ********************************************************************************/
 package org.aoju.bus.socket.netty;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.ChannelId;
+import io.netty.channel.EventLoop;
+import org.aoju.bus.logger.Logger;
+
+import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
+
 /**
+ * 消息只编码一次,按EventLoop分区分发,每个EventLoop只写出自己的通道,每个通道每批只flush一次
+ *
  * @author Kimi Liu
  * @version 5.8.6
  * @since JDK 1.8+
  */
 public class PublishCommand implements Runnable {
 
+    /**
+     * 编码广播消息的分配器,与服务端通道使用的分配器一致
+     */
+    private static volatile ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+
     private String topic;
     private String message;
 
@@ -41,12 +58,67 @@ public class PublishCommand implements Runnable {
 
     @Override
     public void run() {
-        ClientGroup group = ClientService.getClientGroup();
-        if (group.containsKey(topic)) {
-            ClientMap map = group.get(topic);
-            for (SocketClient client : map.values()) {
-                client.send(topic, message);
+        List<ClientMap> maps = ClientService.match(topic);
+        if (maps.isEmpty()) {
+            return;
+        }
+        Map<EventLoop, List<Map<ChannelId, SocketClient>>> batches = new IdentityHashMap<>();
+        for (ClientMap map : maps) {
+            for (Map.Entry<EventLoop, Map<ChannelId, SocketClient>> entry : map.partitions().entrySet()) {
+                batches.computeIfAbsent(entry.getKey(), k -> new ArrayList<>(maps.size())).add(entry.getValue());
+            }
+        }
+        if (batches.isEmpty()) {
+            return;
+        }
+
+        ByteBuf content = ByteBufUtil.writeUtf8(allocator, message);
+        try {
+            for (Map.Entry<EventLoop, List<Map<ChannelId, SocketClient>>> entry : batches.entrySet()) {
+                List<Map<ChannelId, SocketClient>> partitions = entry.getValue();
+                content.retain();
+                try {
+                    entry.getKey().execute(() -> write(partitions, content));
+                } catch (RejectedExecutionException e) {
+                    content.release();
+                    Logger.warn("WebSocket publish rejected: {}", e.getMessage());
+                }
+            }
+        } finally {
+            content.release();
+        }
+    }
+
+    static void setAllocator(ByteBufAllocator allocator) {
+        PublishCommand.allocator = allocator;
+    }
+
+    /**
+     * 在分区所属的EventLoop中执行
+     */
+    private static void write(List<Map<ChannelId, SocketClient>> partitions, ByteBuf content) {
+        try {
+            Collection<SocketClient> clients;
+            if (partitions.size() == 1) {
+                clients = partitions.get(0).values();
+            } else {
+                // 同一客户端可能通过多个通配符主题命中
+                clients = Collections.newSetFromMap(new IdentityHashMap<>());
+                for (Map<ChannelId, SocketClient> partition : partitions) {
+                    clients.addAll(partition.values());
+                }
+            }
+            if (clients.isEmpty()) {
+                return;
+            }
+            for (SocketClient client : clients) {
+                client.write(content);
+            }
+            for (SocketClient client : clients) {
+                client.flush();
             }
+        } finally {
+            content.release();
         }
     }
 
@@ -24,12 +24,21 @@
  ********************************************************************************/
 package org.aoju.bus.socket.netty;
 
-import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.JSONObject;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import org.aoju.bus.logger.Logger;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
+ * 请求解码器
+ * <p>文本帧为JSON,按流式方式只提取{@code e}、{@code t}、{@code d}三个字段,其余字段直接跳过,不构建对象树;
+ * {@code d}为对象或数组时保留其原始JSON文本</p>
+ * <p>协商了{@link NettyConsts#BINARY_SUBPROTOCOL}子协议的连接可发送二进制帧,格式依次为:
+ * 事件、主题个数、各主题、数据,其中字符串均为varint长度前缀的UTF-8字节,事件和数据长度为0表示不存在</p>
+ *
  * @author Kimi Liu
  * @version 5.8.6
  * @since JDK 1.8+
@@ -38,27 +47,52 @@ public class RequestDecoder {
 
     public SocketRequest decode(ChannelHandlerContext ctx, String message) {
         try {
-
             SocketRequest request = new SocketRequest();
-            JSONObject input = JSON.parseObject(message);
-
             request.setContext(ctx);
 
-            if (input.containsKey(NettyConsts.EVENT)) {
-                String event = input.getString(NettyConsts.EVENT);
-                request.setEvent(event);
+            Reader reader = new Reader(message);
+            reader.expect('{');
+            if (!reader.consume('}')) {
+                do {
+                    String key = reader.readString();
+                    reader.expect(':');
+                    if (NettyConsts.EVENT.equals(key)) {
+                        request.setEvent(reader.readText());
+                    } else if (NettyConsts.TOPIC.equals(key)) {
+                        request.setTopic(reader.readTopics());
+                    } else if (NettyConsts.DATA.equals(key)) {
+                        request.setData(reader.readText());
+                    } else {
+                        reader.skipValue();
+                    }
+                } while (reader.consume(','));
+                reader.expect('}');
             }
+            return request;
+        } catch (Exception e) {
+            Logger.error("SocketRequest decode exception!", e);
+            return null;
+        }
+    }
 
-            if (input.containsKey(NettyConsts.TOPIC)) {
-                String[] topic = input.getObject(NettyConsts.TOPIC, String[].class);
-                request.setTopic(topic);
+    public SocketRequest decode(ChannelHandlerContext ctx, ByteBuf content) {
+        try {
+            SocketRequest request = new SocketRequest();
+            request.setContext(ctx);
+            request.setEvent(readString(content));
+            int count = readVarint(content);
+            if (count > content.readableBytes()) {
+                throw new IllegalArgumentException("topic count: " + count);
             }
-
-            if (input.containsKey(NettyConsts.DATA)) {
-                String data = input.getString(NettyConsts.DATA);
-                request.setData(data);
+            String[] topic = new String[count];
+            for (int i = 0; i < count; i++) {
+                String value = readString(content);
+                topic[i] = value == null ? "" : value;
+            }
+            request.setTopic(topic);
+            if (content.isReadable()) {
+                request.setData(readString(content));
             }
-
             return request;
         } catch (Exception e) {
             Logger.error("SocketRequest decode exception!", e);
@@ -66,4 +100,211 @@ public class RequestDecoder {
         }
     }
 
+    private static String readString(ByteBuf content) {
+        int length = readVarint(content);
+        if (length == 0) {
+            return null;
+        }
+        if (length > content.readableBytes()) {
+            throw new IllegalArgumentException("length: " + length + ", readable: " + content.readableBytes());
+        }
+        String value = content.toString(content.readerIndex(), length, StandardCharsets.UTF_8);
+        content.skipBytes(length);
+        return value;
+    }
+
+    private static int readVarint(ByteBuf content) {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = content.readByte();
+            result |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                if (result < 0) {
+                    break;
+                }
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("malformed varint");
+    }
+
+    /**
+     * JSON文本的顺序读取器
+     */
+    private static final class Reader {
+
+        private final String text;
+        private int pos;
+
+        Reader(String text) {
+            this.text = text;
+        }
+
+        void expect(char c) {
+            if (!consume(c)) {
+                throw error("expected '" + c + "'");
+            }
+        }
+
+        boolean consume(char c) {
+            skipWhitespace();
+            if (pos < text.length() && text.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * 读取字段值,字符串返回其内容,null返回null,其余类型返回原始JSON文本
+         */
+        String readText() {
+            skipWhitespace();
+            char c = peek();
+            if (c == '"') {
+                return readString();
+            }
+            if (c == 'n' && text.startsWith("null", pos)) {
+                pos += 4;
+                return null;
+            }
+            int start = pos;
+            skipValue();
+            return text.substring(start, pos);
+        }
+
+        String[] readTopics() {
+            skipWhitespace();
+            char c = peek();
+            if (c != '[') {
+                String topic = readText();
+                return topic == null ? null : new String[]{topic};
+            }
+            pos++;
+            List<String> topics = new ArrayList<>();
+            if (!consume(']')) {
+                do {
+                    topics.add(readText());
+                } while (consume(','));
+                expect(']');
+            }
+            return topics.toArray(new String[0]);
+        }
+
+        String readString() {
+            skipWhitespace();
+            if (peek() != '"') {
+                throw error("expected string");
+            }
+            int start = ++pos;
+            StringBuilder builder = null;
+            while (true) {
+                char c = peek();
+                pos++;
+                if (c == '"') {
+                    return builder == null ? text.substring(start, pos - 1) : builder.toString();
+                }
+                if (c != '\\') {
+                    if (builder != null) {
+                        builder.append(c);
+                    }
+                    continue;
+                }
+                if (builder == null) {
+                    builder = new StringBuilder(text.length() - start).append(text, start, pos - 1);
+                }
+                char escaped = peek();
+                pos++;
+                switch (escaped) {
+                    case 'b':
+                        builder.append('\b');
+                        break;
+                    case 'f':
+                        builder.append('\f');
+                        break;
+                    case 'n':
+                        builder.append('\n');
+                        break;
+                    case 'r':
+                        builder.append('\r');
+                        break;
+                    case 't':
+                        builder.append('\t');
+                        break;
+                    case 'u':
+                        if (pos + 4 > text.length()) {
+                            throw error("bad unicode escape");
+                        }
+                        builder.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        pos += 4;
+                        break;
+                    default:
+                        builder.append(escaped);
+                }
+            }
+        }
+
+        void skipValue() {
+            skipWhitespace();
+            char c = peek();
+            if (c == '"') {
+                skipString();
+            } else if (c == '{' || c == '[') {
+                int depth = 0;
+                do {
+                    c = peek();
+                    if (c == '"') {
+                        skipString();
+                        continue;
+                    }
+                    if (c == '{' || c == '[') {
+                        depth++;
+                    } else if (c == '}' || c == ']') {
+                        depth--;
+                    }
+                    pos++;
+                } while (depth > 0);
+            } else {
+                int start = pos;
+                while (pos < text.length() && ",}] \t\r\n".indexOf(text.charAt(pos)) < 0) {
+                    pos++;
+                }
+                if (pos == start) {
+                    throw error("unexpected character");
+                }
+            }
+        }
+
+        private void skipString() {
+            pos++;
+            while (true) {
+                char c = peek();
+                pos++;
+                if (c == '"') {
+                    return;
+                }
+                if (c == '\\') {
+                    pos++;
+                }
+            }
+        }
+
+        private char peek() {
+            if (pos >= text.length()) {
+                throw error("unexpected end");
+            }
+            return text.charAt(pos);
+        }
+
+        private void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at " + pos);
+        }
+    }
+
 }
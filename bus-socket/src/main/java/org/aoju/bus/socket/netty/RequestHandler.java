@@ -24,7 +24,11 @@
  ********************************************************************************/
 package org.aoju.bus.socket.netty;
 
+import io.netty.channel.Channel;
+
 /**
+ * 命令在请求所属通道的EventLoop中执行,事件处理器回调由{@link CommandExecutor}的回调线程组执行
+ *
  * @author Kimi Liu
  * @version 5.8.6
  * @since JDK 1.8+
@@ -33,14 +37,15 @@ public class RequestHandler {
 
     public static void execute(SocketRequest request) {
         if (request.getEvent() != null) {
+            Channel channel = request.getContext().channel();
             if (NettyConsts.SUBSCRIBE.equals(request.getEvent())) {
-                CommandExecutor.execute(new SubscribeCommand(request));
+                CommandExecutor.execute(channel, new SubscribeCommand(request));
             } else if (NettyConsts.HEARTBEAT.equals(request.getEvent())) {
-                CommandExecutor.execute(new HeartbeatCommand(request));
+                CommandExecutor.execute(channel, new HeartbeatCommand(request));
             } else if (NettyConsts.CANCEL.equals(request.getEvent())) {
-                CommandExecutor.execute(new CancelCommand(request));
+                CommandExecutor.execute(channel, new CancelCommand(request));
             } else if (NettyConsts.MESSAGE.equals(request.getEvent())) {
-                CommandExecutor.execute(new MessageCommand(request));
+                CommandExecutor.execute(channel, new MessageCommand(request));
             }
         }
     }
@@ -24,11 +24,16 @@
  ********************************************************************************/
 package org.aoju.bus.socket.netty;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.util.concurrent.EventExecutor;
+import org.aoju.bus.logger.Logger;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * @author Kimi Liu
@@ -38,24 +43,76 @@ import java.util.List;
 public class SocketClient {
 
     private Channel channel;
-    private List<String> topics = new ArrayList<>();
-    private Long lastUpdateTime = System.currentTimeMillis();
-    private Long inactiveTime = 60000L;
+    /**
+     * 执行事件处理器回调的线程
+     */
+    private final EventExecutor executor;
+    /**
+     * 已订阅的主题,即客户端到主题的反向索引
+     */
+    private Set<String> topics = ConcurrentHashMap.newKeySet();
+    private volatile long lastUpdateTime = System.currentTimeMillis();
+    private long inactiveTime = 60000L;
 
     public SocketClient(Channel channel) {
         this.channel = channel;
+        this.executor = CommandExecutor.next();
+    }
+
+    /**
+     * 在回调线程中执行事件处理器,同一连接的回调按提交顺序执行
+     *
+     * @param callback 回调
+     */
+    void execute(Runnable callback) {
+        try {
+            executor.execute(callback);
+        } catch (RejectedExecutionException e) {
+            Logger.warn("WebSocket handler rejected: {}", e.getMessage());
+        }
     }
 
     public void send(String topic, String message) {
-        if (this.topics.contains(topic)) {
+        if (this.topics.contains(topic) && channel.isWritable()) {
             channel.writeAndFlush(new TextWebSocketFrame(message));
             lastUpdateTime = System.currentTimeMillis();
         }
     }
 
+    /**
+     * 写入共享的消息内容,不刷新;写缓冲超过高水位时丢弃,避免慢客户端无限堆积
+     *
+     * @param content 已编码的消息,调用方保留其引用
+     */
+    void write(ByteBuf content) {
+        if (channel.isWritable()) {
+            channel.write(new TextWebSocketFrame(content.retainedDuplicate()), channel.voidPromise());
+            lastUpdateTime = System.currentTimeMillis();
+        }
+    }
+
+    void flush() {
+        channel.flush();
+    }
+
+    Channel getChannel() {
+        return channel;
+    }
+
+    public Set<String> getTopics() {
+        return Collections.unmodifiableSet(topics);
+    }
+
+    /**
+     * 发送消息,写缓冲超过高水位时丢弃
+     *
+     * @param message 消息
+     */
     public void send(String message) {
-        channel.writeAndFlush(new TextWebSocketFrame(message));
-        lastUpdateTime = System.currentTimeMillis();
+        if (channel.isWritable()) {
+            channel.writeAndFlush(new TextWebSocketFrame(message));
+            lastUpdateTime = System.currentTimeMillis();
+        }
     }
 
     public void sendHeartbeat() {
@@ -67,24 +124,21 @@ public class SocketClient {
     }
 
     public void subscribe(String topic) {
-        if (!this.topics.contains(topic)) {
-            this.topics.add(topic);
-        }
+        this.topics.add(topic);
         lastUpdateTime = System.currentTimeMillis();
     }
 
     public void cancel(String data) {
         for (String topic : topics) {
-            SocketService.onCancel(this, topic, data);
+            execute(() -> SocketService.onCancel(this, topic, data));
         }
         topics.clear();
         lastUpdateTime = System.currentTimeMillis();
     }
 
     public void cancel(String topic, String data) {
-        if (this.topics.contains(topic)) {
-            this.topics.remove(topic);
-            SocketService.onCancel(this, topic, data);
+        if (this.topics.remove(topic)) {
+            execute(() -> SocketService.onCancel(this, topic, data));
         }
         lastUpdateTime = System.currentTimeMillis();
     }
@@ -27,7 +27,11 @@ package org.aoju.bus.socket.netty;
 import io.netty.channel.ChannelHandler.Sharable;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
+import io.netty.util.AttributeKey;
 
 /**
  * @author Kimi Liu
@@ -35,19 +39,39 @@ import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
  * @since JDK 1.8+
  */
 @Sharable
-public class SocketHandler extends SimpleChannelInboundHandler<TextWebSocketFrame> {
+public class SocketHandler extends SimpleChannelInboundHandler<WebSocketFrame> {
+
+    /**
+     * 连接是否协商了二进制请求格式
+     */
+    private static final AttributeKey<Boolean> BINARY = AttributeKey.valueOf("bus-socket.binary");
 
     private RequestDecoder decoder = new RequestDecoder();
 
     @Override
-    protected void channelRead0(ChannelHandlerContext ctx, TextWebSocketFrame msg) {
-        String message = msg.text();
-        SocketRequest request = decoder.decode(ctx, message);
+    protected void channelRead0(ChannelHandlerContext ctx, WebSocketFrame msg) {
+        SocketRequest request;
+        if (msg instanceof TextWebSocketFrame) {
+            request = decoder.decode(ctx, ((TextWebSocketFrame) msg).text());
+        } else if (msg instanceof BinaryWebSocketFrame && Boolean.TRUE.equals(ctx.channel().attr(BINARY).get())) {
+            request = decoder.decode(ctx, msg.content());
+        } else {
+            return;
+        }
         if (request != null) {
             RequestHandler.execute(request);
         }
     }
 
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (evt instanceof WebSocketServerProtocolHandler.HandshakeComplete
+                && NettyConsts.BINARY_SUBPROTOCOL.equals(((WebSocketServerProtocolHandler.HandshakeComplete) evt).selectedSubprotocol())) {
+            ctx.channel().attr(BINARY).set(Boolean.TRUE);
+        }
+        super.userEventTriggered(ctx, evt);
+    }
+
     @Override
     public void handlerAdded(ChannelHandlerContext ctx) {
         ClientService.active(ctx);
@@ -55,7 +79,7 @@ public class SocketHandler extends SimpleChannelInboundHandler<TextWebSocketFram
 
     @Override
     public void handlerRemoved(ChannelHandlerContext ctx) {
-        CommandExecutor.execute(new RemoveCommand(ctx));
+        CommandExecutor.execute(ctx.channel(), new RemoveCommand(ctx));
     }
 
     @Override
@@ -25,13 +25,23 @@
 package org.aoju.bus.socket.netty;
 
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.EventExecutorGroup;
+import org.aoju.bus.core.thread.ThreadBuilder;
 import org.aoju.bus.logger.Logger;
 
 /**
@@ -45,6 +55,29 @@ public class SocketServer implements Runnable {
     private int bossGroupThreads;
     private int workerGroupThreads;
     private String endPoint;
+    /**
+     * Linux下可用时使用epoll,否则回退到NIO
+     */
+    private boolean epoll = true;
+    /**
+     * 池化分配器是否优先使用直接内存
+     */
+    private boolean directBuffer = true;
+    private int backlog = 1024;
+    private boolean tcpNoDelay = true;
+    /**
+     * 写缓冲水位线,高水位为0时使用Netty默认值
+     */
+    private int writeBufferLowWaterMark;
+    private int writeBufferHighWaterMark;
+    /**
+     * 握手请求聚合的最大长度
+     */
+    private int maxContentLength = 8192;
+    /**
+     * 事件处理器回调线程数
+     */
+    private int handlerThreads = NettyConsts.HANDLER_GROUP_THREADS;
 
     public SocketServer(int port, int bossGroupThreads, int workerGroupThreads, String endPoint) {
         this.port = port;
@@ -55,26 +88,134 @@ public class SocketServer implements Runnable {
 
     @Override
     public void run() {
-        EventLoopGroup bossGroup = new NioEventLoopGroup(bossGroupThreads);
-        EventLoopGroup workerGroup = new NioEventLoopGroup(workerGroupThreads);
+        boolean useEpoll = epoll && Epoll.isAvailable();
+        if (epoll && !useEpoll) {
+            Logger.info("WebSocket Server epoll unavailable, fallback to nio: {}", Epoll.unavailabilityCause());
+        }
+        EventLoopGroup bossGroup = useEpoll ? new EpollEventLoopGroup(bossGroupThreads) : new NioEventLoopGroup(bossGroupThreads);
+        EventLoopGroup workerGroup = useEpoll ? new EpollEventLoopGroup(workerGroupThreads) : new NioEventLoopGroup(workerGroupThreads);
+        Class<? extends ServerChannel> channelClass = useEpoll ? EpollServerSocketChannel.class : NioServerSocketChannel.class;
+        // 直接内存复用默认分配器的内存池,避免重复创建arena
+        ByteBufAllocator allocator = directBuffer ? PooledByteBufAllocator.DEFAULT : new PooledByteBufAllocator(false);
+        PublishCommand.setAllocator(allocator);
+        EventExecutorGroup handlerGroup = new DefaultEventExecutorGroup(handlerThreads, new ThreadBuilder().setNamePrefix("websocket-handler-%d").build());
+        CommandExecutor.setHandlerGroup(handlerGroup);
         try {
             ServerBootstrap b = new ServerBootstrap();
             b.group(bossGroup, workerGroup)
-                    .channel(NioServerSocketChannel.class)
+                    .channel(channelClass)
                     .handler(new LoggingHandler(LogLevel.INFO))
-                    .childHandler(new ChannelInitializer(endPoint))
-                    .option(ChannelOption.SO_BACKLOG, 1024)
-                    .childOption(ChannelOption.SO_KEEPALIVE, true);
+                    .childHandler(new ChannelInitializer(endPoint, maxContentLength))
+                    .option(ChannelOption.SO_BACKLOG, backlog)
+                    .option(ChannelOption.ALLOCATOR, allocator)
+                    .childOption(ChannelOption.SO_KEEPALIVE, true)
+                    .childOption(ChannelOption.TCP_NODELAY, tcpNoDelay)
+                    .childOption(ChannelOption.ALLOCATOR, allocator);
+            if (writeBufferHighWaterMark > 0) {
+                b.childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(writeBufferLowWaterMark, writeBufferHighWaterMark));
+            }
             ChannelFuture f = b.bind(this.port).sync();
-            Logger.info("WebSocket Server was open: {}", this.port);
+            Logger.info("WebSocket Server was open: {}, transport: {}", this.port, useEpoll ? "epoll" : "nio");
             f.channel().closeFuture().sync();
         } catch (Exception e) {
             Logger.error("WebSocket Server exception: {}", e.getMessage(), e);
         } finally {
             workerGroup.shutdownGracefully();
             bossGroup.shutdownGracefully();
+            handlerGroup.shutdownGracefully();
             Logger.info("WebSocket Server was closed: {}", this.port);
         }
     }
 
+    /**
+     * 设置是否使用epoll传输
+     *
+     * @param epoll 是否使用epoll,不可用时回退到NIO
+     * @return 当前对象
+     */
+    public SocketServer setEpoll(boolean epoll) {
+        this.epoll = epoll;
+        return this;
+    }
+
+    /**
+     * 设置池化分配器是否优先使用直接内存
+     *
+     * @param directBuffer 是否使用直接内存
+     * @return 当前对象
+     */
+    public SocketServer setDirectBuffer(boolean directBuffer) {
+        this.directBuffer = directBuffer;
+        return this;
+    }
+
+    /**
+     * 设置连接等待队列长度
+     *
+     * @param backlog SO_BACKLOG
+     * @return 当前对象
+     */
+    public SocketServer setBacklog(int backlog) {
+        if (backlog <= 0) {
+            throw new IllegalArgumentException("backlog must be positive");
+        }
+        this.backlog = backlog;
+        return this;
+    }
+
+    /**
+     * 设置是否禁用Nagle算法
+     *
+     * @param tcpNoDelay TCP_NODELAY
+     * @return 当前对象
+     */
+    public SocketServer setTcpNoDelay(boolean tcpNoDelay) {
+        this.tcpNoDelay = tcpNoDelay;
+        return this;
+    }
+
+    /**
+     * 设置写缓冲水位线,待发送数据超过高水位时通道变为不可写
+     *
+     * @param lowWaterMark  低水位
+     * @param highWaterMark 高水位,0表示使用Netty默认值
+     * @return 当前对象
+     */
+    public SocketServer setWriteBufferWaterMark(int lowWaterMark, int highWaterMark) {
+        if (highWaterMark > 0 && (lowWaterMark < 0 || lowWaterMark > highWaterMark)) {
+            throw new IllegalArgumentException("invalid write buffer water mark: low=" + lowWaterMark + ", high=" + highWaterMark);
+        }
+        this.writeBufferLowWaterMark = lowWaterMark;
+        this.writeBufferHighWaterMark = highWaterMark;
+        return this;
+    }
+
+    /**
+     * 设置事件处理器回调线程数,处理器中的阻塞操作不会影响I/O线程
+     *
+     * @param handlerThreads 线程数
+     * @return 当前对象
+     */
+    public SocketServer setHandlerThreads(int handlerThreads) {
+        if (handlerThreads <= 0) {
+            throw new IllegalArgumentException("handlerThreads must be positive");
+        }
+        this.handlerThreads = handlerThreads;
+        return this;
+    }
+
+    /**
+     * 设置握手请求聚合的最大长度
+     *
+     * @param maxContentLength 最大长度
+     * @return 当前对象
+     */
+    public SocketServer setMaxContentLength(int maxContentLength) {
+        if (maxContentLength <= 0) {
+            throw new IllegalArgumentException("maxContentLength must be positive");
+        }
+        this.maxContentLength = maxContentLength;
+        return this;
+    }
+
 }
@@ -54,8 +54,17 @@ public class SocketService {
     }
 
     public static void start(int port, int bossGroupThreads, int workerGroupThreads, String endPoint) {
+        start(new SocketServer(port, bossGroupThreads, workerGroupThreads, endPoint));
+    }
+
+    /**
+     * 启动已配置好的服务,阻塞直到服务关闭
+     *
+     * @param server 服务
+     */
+    public static void start(SocketServer server) {
         ChannelExecutor.start();
-        new SocketServer(port, bossGroupThreads, workerGroupThreads, endPoint).run();
+        server.run();
     }
 
     public static void addHandler(String topic, EventHandler handler) {
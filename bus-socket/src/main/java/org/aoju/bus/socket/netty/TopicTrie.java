@@ -0,0 +1,169 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License                                                               *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.socket.netty;
+
+import org.aoju.bus.core.lang.Symbol;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 通配符主题索引,按{@code /}分段,{@code *}匹配一个分段,{@code **}匹配任意个分段
+ * 通配符只能占据整个分段,{@code price*}、{@code a/b*c}等分段内通配符及{@code ?}按普通字符处理
+ * 读操作无锁,写操作串行
+ *
+ * @author Kimi Liu
+ * @version 5.8.6
+ * @since JDK 1.8+
+ */
+public class TopicTrie {
+
+    private static final String ANY = "*";
+    private static final String ANY_DEEP = "**";
+
+    private final Node root = new Node(null, null);
+
+    /**
+     * 主题是否包含整段的{@code *}或{@code **}
+     *
+     * @param topic 主题
+     * @return true/false
+     */
+    public static boolean isPattern(String topic) {
+        if (topic.indexOf('*') < 0) {
+            return false;
+        }
+        for (String segment : topic.split(Symbol.SLASH, -1)) {
+            if (ANY.equals(segment) || ANY_DEEP.equals(segment)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 登记通配符主题的订阅者集合
+     *
+     * @param pattern 通配符主题
+     * @param clients 订阅者
+     */
+    public synchronized void put(String pattern, ClientMap clients) {
+        Node node = root;
+        for (String segment : pattern.split(Symbol.SLASH, -1)) {
+            Node child = node.children.get(segment);
+            if (child == null) {
+                child = new Node(node, segment);
+                node.children.put(segment, child);
+            }
+            node = child;
+        }
+        node.clients = clients;
+    }
+
+    /**
+     * 移除通配符主题,并清理不再使用的节点
+     *
+     * @param pattern 通配符主题
+     */
+    public synchronized void remove(String pattern) {
+        Node node = root;
+        for (String segment : pattern.split(Symbol.SLASH, -1)) {
+            node = node.children.get(segment);
+            if (node == null) {
+                return;
+            }
+        }
+        node.clients = null;
+        while (node.parent != null && node.clients == null && node.children.isEmpty()) {
+            node.parent.children.remove(node.segment);
+            node = node.parent;
+        }
+    }
+
+    /**
+     * 查找与主题匹配的全部订阅者集合
+     *
+     * @param topic 主题
+     * @param out   匹配结果
+     */
+    public void match(String topic, Collection<ClientMap> out) {
+        if (root.children.isEmpty()) {
+            return;
+        }
+        match(root, topic.split(Symbol.SLASH, -1), 0, out);
+    }
+
+    private void match(Node node, String[] segments, int index, Collection<ClientMap> out) {
+        Node deep = node.children.get(ANY_DEEP);
+        if (deep != null) {
+            // **可以吸收剩余的任意个分段
+            for (int i = index; i <= segments.length; i++) {
+                match(deep, segments, i, out);
+            }
+        }
+        if (index == segments.length) {
+            ClientMap clients = node.clients;
+            if (clients != null && !containsSame(out, clients)) {
+                out.add(clients);
+            }
+            return;
+        }
+        Node child = node.children.get(segments[index]);
+        if (child != null) {
+            match(child, segments, index + 1, out);
+        }
+        child = node.children.get(ANY);
+        if (child != null) {
+            match(child, segments, index + 1, out);
+        }
+    }
+
+    /**
+     * 按引用判断,避免比较订阅者集合的内容
+     */
+    private static boolean containsSame(Collection<ClientMap> out, ClientMap clients) {
+        for (ClientMap map : out) {
+            if (map == clients) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Node {
+
+        private final Node parent;
+        private final String segment;
+        private final Map<String, Node> children = new ConcurrentHashMap<>();
+        private volatile ClientMap clients;
+
+        Node(Node parent, String segment) {
+            this.parent = parent;
+            this.segment = segment;
+        }
+    }
+
+}
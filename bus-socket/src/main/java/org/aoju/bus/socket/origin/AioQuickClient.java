@@ -208,6 +208,20 @@ public class AioQuickClient<T> {
         return this;
     }
 
+    /**
+     * 设置会话待输出字节数的高低水位
+     * <p>待输出字节数达到高水位时暂停读取该会话并触发{@link StateMachine#WRITABILITY_CHANGED},
+     * 回落至低水位时恢复读取并再次触发该事件,避免对端不读取数据时输出队列写满而阻塞I/O线程</p>
+     *
+     * @param lowWaterMark  低水位
+     * @param highWaterMark 高水位,小于等于0表示不启用
+     * @return the object
+     */
+    public final AioQuickClient<T> setWriteBufferWaterMark(int lowWaterMark, int highWaterMark) {
+        this.config.setWriteBufferWaterMark(lowWaterMark, highWaterMark);
+        return this;
+    }
+
     /**
      * 设置write缓冲区容量
      *
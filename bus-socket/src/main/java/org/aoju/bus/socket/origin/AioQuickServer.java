@@ -270,6 +270,87 @@ public class AioQuickServer<T> {
         return this;
     }
 
+    /**
+     * 设置空闲会话是否归还读缓冲
+     * <p>开启后会话解码完全部数据即归还读缓冲,空闲期间仅挂起一个字节的探测读,有数据到达时再从缓存页借用,
+     * 适用于大量长连接但消息稀疏的场景,代价是每次由空闲转为活跃时多一次读操作</p>
+     *
+     * @param onDemand 是否按需分配
+     * @return the object
+     */
+    public final AioQuickServer<T> setReadBufferOnDemand(boolean onDemand) {
+        this.config.setReadBufferOnDemand(onDemand);
+        return this;
+    }
+
+    /**
+     * 设置会话待输出字节数的高低水位
+     * <p>待输出字节数达到高水位时暂停读取该会话并触发{@link StateMachine#WRITABILITY_CHANGED},
+     * 回落至低水位时恢复读取并再次触发该事件,避免对端不读取数据时输出队列写满而阻塞I/O线程</p>
+     *
+     * @param lowWaterMark  低水位
+     * @param highWaterMark 高水位,小于等于0表示不启用
+     * @return the object
+     */
+    public final AioQuickServer<T> setWriteBufferWaterMark(int lowWaterMark, int highWaterMark) {
+        this.config.setWriteBufferWaterMark(lowWaterMark, highWaterMark);
+        return this;
+    }
+
+    /**
+     * 当前会话数
+     *
+     * @return 会话数
+     */
+    public final int getSessionCount() {
+        return config.getSessionCount().get();
+    }
+
+    /**
+     * 会话当前持有的读缓冲数,未开启按需分配时与会话数一致
+     *
+     * @return 读缓冲数
+     */
+    public final int getReadBuffersInUse() {
+        return config.getReadBuffersInUse().get();
+    }
+
+    /**
+     * 会话当前持有的写缓冲块数,包括待输出及正在填充的缓冲块
+     *
+     * @return 写缓冲块数
+     */
+    public final int getWriteBuffersInUse() {
+        return config.getWriteBuffersInUse().get();
+    }
+
+    /**
+     * 提交到通道的写操作次数,与{@link #getWrittenChunks()}之比即每个输出块平均的写调用次数
+     *
+     * @return 写操作次数
+     */
+    public final long getWriteCalls() {
+        return config.getWriteCalls().sum();
+    }
+
+    /**
+     * 已输出的缓冲块数
+     *
+     * @return 缓冲块数
+     */
+    public final long getWrittenChunks() {
+        return config.getWrittenChunks().sum();
+    }
+
+    /**
+     * 因过小而被合并到聚合块中输出的缓冲块数
+     *
+     * @return 缓冲块数
+     */
+    public final long getMergedChunks() {
+        return config.getMergedChunks().sum();
+    }
+
     /**
      * 是否启用控制台Banner打印
      *
@@ -119,6 +119,42 @@ public abstract class AioSession<T> {
         this.attachment = attachment;
     }
 
+    /**
+     * 最近一次从通道读到数据的时间
+     *
+     * @return 毫秒时间戳,不跟踪读写活动的会话返回-1
+     */
+    public long getLastReadTime() {
+        return -1;
+    }
+
+    /**
+     * 最近一次写操作发起或完成的时间
+     *
+     * @return 毫秒时间戳,不跟踪读写活动的会话返回-1
+     */
+    public long getLastWriteTime() {
+        return -1;
+    }
+
+    /**
+     * 是否有尚未写完的数据
+     *
+     * @return true/false
+     */
+    public boolean isWritePending() {
+        return false;
+    }
+
+    /**
+     * 待输出数据是否低于高水位,不可写时应暂停输出或改用{@link WriteBuffer#offer(byte[])}
+     *
+     * @return true/false
+     */
+    public boolean isWritable() {
+        return true;
+    }
+
     public abstract InetSocketAddress getLocalAddress() throws IOException;
 
     public abstract InetSocketAddress getRemoteAddress() throws IOException;
@@ -0,0 +1,372 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License                                                               *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.socket.origin;
+
+import org.aoju.bus.logger.Logger;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 时间轮定时器
+ * <p>
+ * 任务按到期时间散列到环形槽位中,添加和取消都是O(1)操作,适合大量会话的心跳、空闲检测及超时控制.
+ * 到期精度为一个tick,任务在单一工作线程中执行,不应包含耗时操作
+ * </p>
+ *
+ * @author Kimi Liu
+ * @version 5.8.6
+ * @since JDK 1.8+
+ */
+public final class HashedWheelTimer {
+
+    /**
+     * 默认共享的定时器,精度100毫秒
+     */
+    public static final HashedWheelTimer DEFAULT = new HashedWheelTimer("bus-socket:WheelTimer", 100, TimeUnit.MILLISECONDS, 512);
+
+    private static final int WORKER_STATE_INIT = 0;
+    private static final int WORKER_STATE_STARTED = 1;
+    private static final int WORKER_STATE_SHUTDOWN = 2;
+
+    private final AtomicInteger workerState = new AtomicInteger(WORKER_STATE_INIT);
+    private final Thread workerThread;
+    private final long tickDuration;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final CountDownLatch startTimeInitialized = new CountDownLatch(1);
+    /**
+     * 新增及取消的任务先进入队列,由工作线程统一挂入或移出槽位,避免槽位加锁
+     */
+    private final Queue<Timeout> timeouts = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pendingTimeouts = new AtomicLong(0);
+    private volatile long startTime;
+
+    /**
+     * @param threadName    工作线程名称
+     * @param tickDuration  每个槽位代表的时长
+     * @param unit          时长单位
+     * @param ticksPerWheel 槽位数量,向上取整为2的幂
+     */
+    public HashedWheelTimer(String threadName, long tickDuration, TimeUnit unit, int ticksPerWheel) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tickDuration must be greater than 0: " + tickDuration);
+        }
+        if (ticksPerWheel <= 0 || ticksPerWheel > 1 << 30) {
+            throw new IllegalArgumentException("ticksPerWheel must be in (0, 2^30]: " + ticksPerWheel);
+        }
+        int normalized = 1;
+        while (normalized < ticksPerWheel) {
+            normalized <<= 1;
+        }
+        this.wheel = new Bucket[normalized];
+        for (int i = 0; i < normalized; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = normalized - 1;
+        this.tickDuration = unit.toNanos(tickDuration);
+        if (this.tickDuration >= Long.MAX_VALUE / normalized) {
+            throw new IllegalArgumentException("tickDuration is too long: " + tickDuration + " " + unit);
+        }
+        this.workerThread = new Thread(new Worker(), threadName);
+        this.workerThread.setDaemon(true);
+    }
+
+    /**
+     * 延迟执行任务
+     *
+     * @param task  任务
+     * @param delay 延迟时长
+     * @param unit  时长单位
+     * @return 可用于取消的句柄
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (task == null) {
+            throw new NullPointerException("task");
+        }
+        start();
+        pendingTimeouts.incrementAndGet();
+        long deadline = System.nanoTime() + unit.toNanos(Math.max(delay, 0)) - startTime;
+        // 防止溢出
+        if (delay > 0 && deadline < 0) {
+            deadline = Long.MAX_VALUE;
+        }
+        Timeout timeout = new Timeout(this, task, deadline);
+        timeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * 尚未执行也未取消的任务数
+     *
+     * @return 任务数
+     */
+    public long pendingTimeouts() {
+        return pendingTimeouts.get();
+    }
+
+    /**
+     * 停止工作线程,未执行的任务被丢弃
+     */
+    public void stop() {
+        if (Thread.currentThread() == workerThread) {
+            throw new IllegalStateException("stop() cannot be called from a timer task");
+        }
+        if (workerState.getAndSet(WORKER_STATE_SHUTDOWN) == WORKER_STATE_STARTED) {
+            workerThread.interrupt();
+        }
+    }
+
+    private void start() {
+        switch (workerState.get()) {
+            case WORKER_STATE_INIT:
+                if (workerState.compareAndSet(WORKER_STATE_INIT, WORKER_STATE_STARTED)) {
+                    workerThread.start();
+                }
+                break;
+            case WORKER_STATE_STARTED:
+                break;
+            default:
+                throw new IllegalStateException("cannot be started once stopped");
+        }
+        while (startTime == 0) {
+            try {
+                startTimeInitialized.await();
+            } catch (InterruptedException ignore) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 定时任务句柄
+     */
+    public static final class Timeout {
+
+        private static final int ST_INIT = 0;
+        private static final int ST_CANCELLED = 1;
+        private static final int ST_EXPIRED = 2;
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE_UPDATER =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final HashedWheelTimer timer;
+        private final Runnable task;
+        private final long deadline;
+        private volatile int state = ST_INIT;
+        /**
+         * 剩余圈数,仅由工作线程访问
+         */
+        long remainingRounds;
+        Timeout next;
+        Timeout prev;
+        Bucket bucket;
+
+        Timeout(HashedWheelTimer timer, Runnable task, long deadline) {
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * 取消任务,已执行的任务无法取消
+         *
+         * @return 是否取消成功
+         */
+        public boolean cancel() {
+            if (!STATE_UPDATER.compareAndSet(this, ST_INIT, ST_CANCELLED)) {
+                return false;
+            }
+            timer.pendingTimeouts.decrementAndGet();
+            // 已挂入槽位的任务交由工作线程移除
+            timer.cancelledTimeouts.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state == ST_CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state == ST_EXPIRED;
+        }
+
+        void expire() {
+            if (!STATE_UPDATER.compareAndSet(this, ST_INIT, ST_EXPIRED)) {
+                return;
+            }
+            timer.pendingTimeouts.decrementAndGet();
+            try {
+                task.run();
+            } catch (Throwable t) {
+                Logger.warn("timer task raised an exception", t);
+            }
+        }
+
+    }
+
+    /**
+     * 槽位,双向链表保存任务,仅由工作线程访问
+     */
+    private static final class Bucket {
+
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void expire(long deadline) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    if (timeout.deadline <= deadline) {
+                        timeout.expire();
+                    } else {
+                        throw new IllegalStateException(String.format(
+                                "timeout.deadline (%d) > deadline (%d)", timeout.deadline, deadline));
+                    }
+                } else if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            Timeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                if (timeout == tail) {
+                    tail = null;
+                    head = null;
+                } else {
+                    head = next;
+                }
+            } else if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+    }
+
+    private final class Worker implements Runnable {
+
+        private long tick;
+
+        @Override
+        public void run() {
+            startTime = System.nanoTime();
+            if (startTime == 0) {
+                // 0作为未初始化的标识
+                startTime = 1;
+            }
+            startTimeInitialized.countDown();
+
+            do {
+                final long deadline = waitForNextTick();
+                if (deadline > 0) {
+                    processCancelledTasks();
+                    transferTimeoutsToBuckets();
+                    wheel[(int) (tick & mask)].expire(deadline);
+                    tick++;
+                }
+            } while (workerState.get() == WORKER_STATE_STARTED);
+        }
+
+        private void transferTimeoutsToBuckets() {
+            // 单次最多转移10万个,避免新增任务过多时阻塞到期处理
+            for (int i = 0; i < 100000; i++) {
+                Timeout timeout = timeouts.poll();
+                if (timeout == null) {
+                    break;
+                }
+                if (timeout.isCancelled()) {
+                    continue;
+                }
+                long calculated = timeout.deadline / tickDuration;
+                timeout.remainingRounds = (calculated - tick) / wheel.length;
+                // 已过期的任务放入当前槽位
+                final long ticks = Math.max(calculated, tick);
+                wheel[(int) (ticks & mask)].add(timeout);
+            }
+        }
+
+        private void processCancelledTasks() {
+            Timeout timeout;
+            while ((timeout = cancelledTimeouts.poll()) != null) {
+                Bucket bucket = timeout.bucket;
+                if (bucket != null) {
+                    bucket.remove(timeout);
+                }
+            }
+        }
+
+        private long waitForNextTick() {
+            long deadline = tickDuration * (tick + 1);
+            while (true) {
+                final long currentTime = System.nanoTime() - startTime;
+                long sleepTimeMs = (deadline - currentTime + 999999) / 1000000;
+                if (sleepTimeMs <= 0) {
+                    return currentTime == Long.MIN_VALUE ? -Long.MAX_VALUE : currentTime;
+                }
+                try {
+                    Thread.sleep(sleepTimeMs);
+                } catch (InterruptedException ignored) {
+                    if (workerState.get() == WORKER_STATE_SHUTDOWN) {
+                        return Long.MIN_VALUE;
+                    }
+                }
+            }
+        }
+
+    }
+
+}
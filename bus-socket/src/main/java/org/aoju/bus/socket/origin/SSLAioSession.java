@@ -59,6 +59,13 @@ class SSLAioSession<T> extends TcpAioSession<T> {
 
     SSLAioSession(AsynchronousSocketChannel channel, ServerConfig<T> config, TcpReadHandler<T> aioReadCompletionHandler, TcpWriteHandler<T> aioWriteCompletionHandler, SSLService sslService, PageBuffer pageBuffer) {
         super(channel, config, aioReadCompletionHandler, aioWriteCompletionHandler, pageBuffer);
+        // SSL加密逐块进行,不使用聚合写
+        gatheringWrite = false;
+        // SSL解密需要常驻的读缓冲
+        if (readBufferOnDemand) {
+            readBufferOnDemand = false;
+            allocateReadBuffer();
+        }
         this.handshakeModel = sslService.createSSLEngine(channel);
         this.sslService = sslService;
     }
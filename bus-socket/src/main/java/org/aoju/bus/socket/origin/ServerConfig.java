@@ -27,6 +27,8 @@ package org.aoju.bus.socket.origin;
 import java.net.SocketOption;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Quickly服务端/客户端配置信息 T:解码后生成的对象类型
@@ -88,6 +90,43 @@ final class ServerConfig<T> {
 
     private int readBacklog = getIntProperty(ServerConfig.Property.READ_BACKLOG, 4096);
 
+    /**
+     * 空闲会话是否归还读缓冲,仅在有数据到达时从缓存页借用
+     */
+    private boolean readBufferOnDemand = getBoolProperty(ServerConfig.Property.READ_BUFFER_ON_DEMAND, false);
+    /**
+     * 会话待输出字节数的低水位
+     */
+    private int writeBufferLowWaterMark = getIntProperty(ServerConfig.Property.SESSION_WRITE_LOW_WATER_MARK, 0);
+    /**
+     * 会话待输出字节数的高水位,达到后暂停读取该会话,小于等于0表示不启用
+     */
+    private int writeBufferHighWaterMark = getIntProperty(ServerConfig.Property.SESSION_WRITE_HIGH_WATER_MARK, 0);
+    /**
+     * 当前会话数
+     */
+    private final AtomicInteger sessionCount = new AtomicInteger();
+    /**
+     * 会话当前持有的读缓冲数
+     */
+    private final AtomicInteger readBuffersInUse = new AtomicInteger();
+    /**
+     * 会话当前持有的写缓冲块数
+     */
+    private final AtomicInteger writeBuffersInUse = new AtomicInteger();
+    /**
+     * 提交到通道的写操作次数
+     */
+    private final LongAdder writeCalls = new LongAdder();
+    /**
+     * 已输出的缓冲块数,每次flush至少产生一个缓冲块
+     */
+    private final LongAdder writtenChunks = new LongAdder();
+    /**
+     * 因过小而被合并输出的缓冲块数
+     */
+    private final LongAdder mergedChunks = new LongAdder();
+
     static int getIntProperty(String property, int defaultVal) {
         String valString = System.getProperty(property);
         if (valString != null) {
@@ -199,6 +238,54 @@ final class ServerConfig<T> {
         return readBacklog;
     }
 
+    public boolean isReadBufferOnDemand() {
+        return readBufferOnDemand;
+    }
+
+    public void setReadBufferOnDemand(boolean readBufferOnDemand) {
+        this.readBufferOnDemand = readBufferOnDemand;
+    }
+
+    public int getWriteBufferLowWaterMark() {
+        return writeBufferLowWaterMark;
+    }
+
+    public int getWriteBufferHighWaterMark() {
+        return writeBufferHighWaterMark;
+    }
+
+    public void setWriteBufferWaterMark(int lowWaterMark, int highWaterMark) {
+        if (lowWaterMark < 0 || (highWaterMark > 0 && lowWaterMark > highWaterMark)) {
+            throw new IllegalArgumentException("lowWaterMark: " + lowWaterMark + ", highWaterMark: " + highWaterMark);
+        }
+        this.writeBufferLowWaterMark = lowWaterMark;
+        this.writeBufferHighWaterMark = highWaterMark;
+    }
+
+    AtomicInteger getSessionCount() {
+        return sessionCount;
+    }
+
+    AtomicInteger getReadBuffersInUse() {
+        return readBuffersInUse;
+    }
+
+    AtomicInteger getWriteBuffersInUse() {
+        return writeBuffersInUse;
+    }
+
+    LongAdder getWriteCalls() {
+        return writeCalls;
+    }
+
+    LongAdder getWrittenChunks() {
+        return writtenChunks;
+    }
+
+    LongAdder getMergedChunks() {
+        return mergedChunks;
+    }
+
     /**
      * 服务配置
      */
@@ -211,6 +298,13 @@ final class ServerConfig<T> {
         String SERVER_PAGE_IS_DIRECT = PROJECT_NAME + ".server.page.isDirect";
         String CLIENT_PAGE_IS_DIRECT = PROJECT_NAME + ".client.page.isDirect";
         String READ_BACKLOG = PROJECT_NAME + ".read.backlog";
+        String READ_BUFFER_ON_DEMAND = PROJECT_NAME + ".read.onDemand";
+        String SESSION_WRITE_GATHER_LIMIT = PROJECT_NAME + ".session.writeGatherLimit";
+        String SESSION_WRITE_MERGE_THRESHOLD = PROJECT_NAME + ".session.writeMergeThreshold";
+        String SESSION_WRITE_LOW_WATER_MARK = PROJECT_NAME + ".session.writeLowWaterMark";
+        String SESSION_WRITE_HIGH_WATER_MARK = PROJECT_NAME + ".session.writeHighWaterMark";
+        String UDP_RECEIVE_BUFFER_SIZE = PROJECT_NAME + ".udp.receiveBufferSize";
+        String UDP_READ_BATCH = PROJECT_NAME + ".udp.readBatch";
     }
 
 }
@@ -89,6 +89,12 @@ public enum StateMachine {
     /**
      * 拒绝接受连接,仅Server端有效
      */
-    REJECT_ACCEPT
+    REJECT_ACCEPT,
+
+    /**
+     * 会话可写状态发生变化
+     * 待输出字节数达到高水位时变为不可写并暂停读取,回落至低水位时恢复,通过{@link AioSession#isWritable()}获取当前状态
+     */
+    WRITABILITY_CHANGED
 
 }
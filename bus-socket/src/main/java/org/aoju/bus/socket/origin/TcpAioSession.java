@@ -66,6 +66,16 @@ import java.util.concurrent.TimeUnit;
  */
 class TcpAioSession<T> extends AioSession<T> {
 
+    /**
+     * 单次聚合写最多提交的缓冲块数,配置值小于1时按1处理
+     */
+    private static final int WRITE_GATHER_LIMIT = Math.max(1, ServerConfig.getIntProperty(ServerConfig.Property.SESSION_WRITE_GATHER_LIMIT, 16));
+    /**
+     * 小于该字节数的相邻缓冲块复制到同一个聚合块中输出
+     */
+    private static final int WRITE_MERGE_THRESHOLD = Math.min(WriteBuffer.WRITE_CHUNK_SIZE / 2,
+            ServerConfig.getIntProperty(ServerConfig.Property.SESSION_WRITE_MERGE_THRESHOLD, 1024));
+
     /**
      * 底层通信channel对象
      */
@@ -73,8 +83,17 @@ class TcpAioSession<T> extends AioSession<T> {
     /**
      * 读缓冲
      * <p>大小取决于AioQuickClient/AioQuickServer设置的setReadBufferSize</p>
+     * <p>按需模式下会话空闲时为null</p>
      */
     protected VirtualBuffer readBuffer;
+    /**
+     * 空闲时是否归还读缓冲
+     */
+    protected boolean readBufferOnDemand;
+    /**
+     * 是否将多个待输出的缓冲块通过一次聚合写提交
+     */
+    protected boolean gatheringWrite = true;
     /**
      * 写缓冲
      */
@@ -91,31 +110,76 @@ class TcpAioSession<T> extends AioSession<T> {
      * 输出信号量,防止并发write导致异常
      */
     private Semaphore semaphore = new Semaphore(1);
+    /**
+     * 最近一次读到数据的时间,由I/O线程更新,定时器线程读取
+     */
+    private volatile long lastReadTime;
+    /**
+     * 最近一次写操作发起或完成的时间
+     */
+    private volatile long lastWriteTime;
     private TcpReadHandler<T> readCompletionHandler;
     private TcpWriteHandler<T> writeCompletionHandler;
     private ServerConfig<T> ioServerConfig;
     private InputStream inputStream;
     private WriteBuffer byteBuf;
+    private PageBuffer pageBuffer;
+    /**
+     * 按需模式下空闲会话挂起的探测读缓冲
+     */
+    private ByteBuffer probeBuffer;
+    /**
+     * 正在输出的一批缓冲块,[batchOffset, batchCount)为尚未写完的部分
+     */
+    private VirtualBuffer[] batch;
+    private ByteBuffer[] batchBuffers;
+    private int batchOffset;
+    private int batchCount;
+    /**
+     * 因输出积压而暂停读取
+     */
+    private boolean readSuspended;
+    private final Object flowLock = new Object();
 
     TcpAioSession(AsynchronousSocketChannel channel, final ServerConfig<T> config, TcpReadHandler<T> readCompletionHandler, TcpWriteHandler<T> writeCompletionHandler, PageBuffer pageBuffer) {
         this.channel = channel;
         this.readCompletionHandler = readCompletionHandler;
         this.writeCompletionHandler = writeCompletionHandler;
         this.ioServerConfig = config;
+        this.lastReadTime = this.lastWriteTime = System.currentTimeMillis();
 
-        this.readBuffer = pageBuffer.allocate(config.getReadBufferSize());
+        this.pageBuffer = pageBuffer;
+        this.readBufferOnDemand = config.isReadBufferOnDemand();
+        if (!readBufferOnDemand) {
+            allocateReadBuffer();
+        }
+        config.getSessionCount().incrementAndGet();
         byteBuf = new WriteBuffer(pageBuffer, var -> {
             if (!semaphore.tryAcquire()) {
                 return null;
             }
-            TcpAioSession.this.writeBuffer = var.poll();
+            if (gatheringWrite) {
+                if (fillBatch()) {
+                    writeBatch();
+                } else {
+                    semaphore.release();
+                }
+                return null;
+            }
+            TcpAioSession.this.writeBuffer = pollWriteBuffer();
             if (writeBuffer == null) {
                 semaphore.release();
             } else {
                 continueWrite(writeBuffer);
             }
             return null;
-        }, ioServerConfig.getWriteQueueCapacity());
+        }, ioServerConfig.getWriteQueueCapacity(), config.getWriteBuffersInUse());
+        if (config.getWriteBufferHighWaterMark() > 0) {
+            byteBuf.setWaterMark(config.getWriteBufferLowWaterMark(), config.getWriteBufferHighWaterMark(), var -> {
+                writabilityChanged();
+                return null;
+            });
+        }
         //触发状态机
         config.getProcessor().stateEvent(this, StateMachine.NEW_SESSION, null);
     }
@@ -132,17 +196,37 @@ class TcpAioSession<T> extends AioSession<T> {
      * <p>需要调用控制同步</p>
      */
     void writeToChannel() {
+        if (gatheringWrite) {
+            // 释放已写完的缓冲块,部分写出时从剩余位置继续
+            while (batchOffset < batchCount && !batch[batchOffset].buffer().hasRemaining()) {
+                byteBuf.release(batch[batchOffset]);
+                batch[batchOffset++] = null;
+            }
+            if (batchOffset < batchCount || fillBatch()) {
+                writeBatch();
+                return;
+            }
+            writeDrained();
+            return;
+        }
         if (writeBuffer == null) {
-            writeBuffer = byteBuf.poll();
+            writeBuffer = pollWriteBuffer();
         } else if (!writeBuffer.buffer().hasRemaining()) {
-            writeBuffer.clean();
-            writeBuffer = byteBuf.poll();
+            byteBuf.release(writeBuffer);
+            writeBuffer = pollWriteBuffer();
         }
 
         if (writeBuffer != null) {
             continueWrite(writeBuffer);
             return;
         }
+        writeDrained();
+    }
+
+    /**
+     * 输出队列已清空,释放写信号量
+     */
+    private void writeDrained() {
         semaphore.release();
         //此时可能是Closing或Closed状态
         if (status != SESSION_STATUS_ENABLED) {
@@ -154,6 +238,91 @@ class TcpAioSession<T> extends AioSession<T> {
     }
 
 
+    private VirtualBuffer pollWriteBuffer() {
+        VirtualBuffer buffer = byteBuf.poll();
+        if (buffer != null) {
+            ioServerConfig.getWrittenChunks().increment();
+        }
+        return buffer;
+    }
+
+    /**
+     * 从输出队列取出一批缓冲块,相邻的小缓冲块复制到聚合块中以减少提交的块数
+     *
+     * @return 是否有待输出数据
+     */
+    private boolean fillBatch() {
+        if (batch == null) {
+            batch = new VirtualBuffer[WRITE_GATHER_LIMIT];
+            batchBuffers = new ByteBuffer[WRITE_GATHER_LIMIT];
+        }
+        batchOffset = 0;
+        batchCount = 0;
+        int polled = byteBuf.poll(batch, WRITE_GATHER_LIMIT);
+        if (polled == 0) {
+            return false;
+        }
+        int count = 0;
+        int merged = 0;
+        VirtualBuffer aggregate = null;
+        for (int i = 0; i < polled; i++) {
+            VirtualBuffer buffer = batch[i];
+            batch[i] = null;
+            int size = buffer.buffer().remaining();
+            if (size < WRITE_MERGE_THRESHOLD) {
+                if (aggregate != null && aggregate.buffer().remaining() < size) {
+                    aggregate.buffer().flip();
+                    aggregate = null;
+                }
+                // 仅当后面紧跟着小缓冲块时才值得复制
+                if (aggregate == null && i + 1 < polled && batch[i + 1].buffer().remaining() < WRITE_MERGE_THRESHOLD) {
+                    aggregate = byteBuf.allocate(WriteBuffer.WRITE_CHUNK_SIZE);
+                    batch[count++] = aggregate;
+                }
+                if (aggregate != null) {
+                    aggregate.buffer().put(buffer.buffer());
+                    byteBuf.release(buffer);
+                    merged++;
+                    continue;
+                }
+            } else if (aggregate != null) {
+                aggregate.buffer().flip();
+                aggregate = null;
+            }
+            batch[count++] = buffer;
+        }
+        if (aggregate != null) {
+            aggregate.buffer().flip();
+        }
+        for (int i = 0; i < count; i++) {
+            batchBuffers[i] = batch[i].buffer();
+        }
+        batchCount = count;
+        ioServerConfig.getWrittenChunks().add(polled);
+        if (merged > 0) {
+            ioServerConfig.getMergedChunks().add(merged);
+        }
+        return true;
+    }
+
+    /**
+     * 提交当前批次中尚未写完的缓冲块,多于一块时使用聚合写
+     */
+    private void writeBatch() {
+        int length = batchCount - batchOffset;
+        if (length == 1) {
+            writeToChannel0(batchBuffers[batchOffset]);
+            return;
+        }
+        ioServerConfig.getWriteCalls().increment();
+        lastWriteTime = System.currentTimeMillis();
+        channel.write(batchBuffers, batchOffset, length, 0L, TimeUnit.MILLISECONDS, this, writeCompletionHandler.gathering);
+    }
+
+    private boolean hasBatchData() {
+        return batchOffset < batchCount;
+    }
+
     /**
      * 内部方法：触发通道的读操作
      *
@@ -167,6 +336,8 @@ class TcpAioSession<T> extends AioSession<T> {
      * 内部方法：触发通道的写操作
      */
     protected final void writeToChannel0(ByteBuffer buffer) {
+        ioServerConfig.getWriteCalls().increment();
+        lastWriteTime = System.currentTimeMillis();
         channel.write(buffer, 0L, TimeUnit.MILLISECONDS, this, writeCompletionHandler);
     }
 
@@ -195,20 +366,25 @@ class TcpAioSession<T> extends AioSession<T> {
         }
         status = immediate ? SESSION_STATUS_CLOSED : SESSION_STATUS_CLOSING;
         if (immediate) {
+            WriteBuffer byteBuf = this.byteBuf;
             try {
                 if (!byteBuf.isClosed()) {
                     byteBuf.close();
                 }
-                byteBuf = null;
+                this.byteBuf = null;
             } catch (IOException e) {
                 e.printStackTrace();
             }
-            readBuffer.clean();
-            readBuffer = null;
+            releaseReadBuffer();
             if (writeBuffer != null) {
-                writeBuffer.clean();
+                byteBuf.release(writeBuffer);
                 writeBuffer = null;
             }
+            while (batchOffset < batchCount) {
+                byteBuf.release(batch[batchOffset]);
+                batch[batchOffset++] = null;
+            }
+            ioServerConfig.getSessionCount().decrementAndGet();
             try {
                 channel.shutdownInput();
             } catch (IOException e) {
@@ -225,7 +401,7 @@ class TcpAioSession<T> extends AioSession<T> {
                 Logger.debug("close session exception", e);
             }
             ioServerConfig.getProcessor().stateEvent(this, StateMachine.SESSION_CLOSED, null);
-        } else if ((writeBuffer == null || !writeBuffer.buffer().hasRemaining()) && !byteBuf.hasData()) {
+        } else if ((writeBuffer == null || !writeBuffer.buffer().hasRemaining()) && !hasBatchData() && !byteBuf.hasData()) {
             close(true);
         } else {
             ioServerConfig.getProcessor().stateEvent(this, StateMachine.SESSION_CLOSING, null);
@@ -257,6 +433,14 @@ class TcpAioSession<T> extends AioSession<T> {
         if (status == SESSION_STATUS_CLOSED) {
             return;
         }
+        lastReadTime = System.currentTimeMillis();
+        if (this.readBuffer == null) {
+            // 探测读返回,借用读缓冲承接已读到的数据
+            allocateReadBuffer();
+            probeBuffer.flip();
+            this.readBuffer.buffer().put(probeBuffer);
+            probeBuffer.clear();
+        }
         final ByteBuffer readBuffer = this.readBuffer.buffer();
         readBuffer.flip();
         final Message<T> messageProcessor = ioServerConfig.getProcessor();
@@ -293,6 +477,10 @@ class TcpAioSession<T> extends AioSession<T> {
         //数据读取完毕
         if (readBuffer.remaining() == 0) {
             readBuffer.clear();
+            if (readBufferOnDemand) {
+                // 数据已全部解码,归还读缓冲,空闲期间只保留探测读
+                releaseReadBuffer();
+            }
         } else if (readBuffer.position() > 0) {
             // 仅当发生数据读取时调用compact,减少内存拷贝
             readBuffer.compact();
@@ -302,7 +490,7 @@ class TcpAioSession<T> extends AioSession<T> {
         }
 
         //读缓冲区已满
-        if (!readBuffer.hasRemaining()) {
+        if (this.readBuffer != null && !readBuffer.hasRemaining()) {
             RuntimeException exception = new RuntimeException("readBuffer has no remaining");
             messageProcessor.stateEvent(this, StateMachine.DECODE_EXCEPTION, exception);
             throw exception;
@@ -311,18 +499,102 @@ class TcpAioSession<T> extends AioSession<T> {
         if (byteBuf != null && !byteBuf.isClosed()) {
             byteBuf.flush();
         }
+        if (suspendRead()) {
+            return;
+        }
         continueRead();
     }
 
+    /**
+     * 输出积压时暂停读取,待回落至低水位后由{@link #writabilityChanged()}恢复
+     *
+     * @return 是否已暂停
+     */
+    private boolean suspendRead() {
+        WriteBuffer byteBuf = this.byteBuf;
+        if (byteBuf == null || byteBuf.isWritable()) {
+            return false;
+        }
+        synchronized (flowLock) {
+            if (byteBuf.isWritable()) {
+                return false;
+            }
+            readSuspended = true;
+            return true;
+        }
+    }
+
+    private void writabilityChanged() {
+        WriteBuffer byteBuf = this.byteBuf;
+        if (status == SESSION_STATUS_CLOSED || byteBuf == null) {
+            return;
+        }
+        boolean resume;
+        synchronized (flowLock) {
+            resume = readSuspended && byteBuf.isWritable();
+            if (resume) {
+                readSuspended = false;
+            }
+        }
+        ioServerConfig.getProcessor().stateEvent(this, StateMachine.WRITABILITY_CHANGED, null);
+        if (resume && status != SESSION_STATUS_CLOSED) {
+            continueRead();
+        }
+    }
+
 
     protected void continueRead() {
+        if (readBuffer == null) {
+            if (probeBuffer == null) {
+                probeBuffer = ByteBuffer.allocate(1);
+            }
+            readFromChannel0(probeBuffer);
+            return;
+        }
         readFromChannel0(readBuffer.buffer());
     }
 
+    protected final void allocateReadBuffer() {
+        readBuffer = pageBuffer.allocate(ioServerConfig.getReadBufferSize());
+        ioServerConfig.getReadBuffersInUse().incrementAndGet();
+    }
+
+    private void releaseReadBuffer() {
+        VirtualBuffer buffer = readBuffer;
+        if (buffer != null) {
+            readBuffer = null;
+            buffer.clean();
+            ioServerConfig.getReadBuffersInUse().decrementAndGet();
+        }
+    }
+
     protected void continueWrite(VirtualBuffer writeBuffer) {
         writeToChannel0(writeBuffer.buffer());
     }
 
+    @Override
+    public long getLastReadTime() {
+        return lastReadTime;
+    }
+
+    @Override
+    public long getLastWriteTime() {
+        return lastWriteTime;
+    }
+
+    @Override
+    public boolean isWritable() {
+        WriteBuffer byteBuf = this.byteBuf;
+        return byteBuf == null || byteBuf.isWritable();
+    }
+
+    @Override
+    public boolean isWritePending() {
+        VirtualBuffer writing = writeBuffer;
+        WriteBuffer queued = byteBuf;
+        return (writing != null && writing.buffer().hasRemaining()) || hasBatchData() || (queued != null && queued.hasData());
+    }
+
     /**
      * @see AsynchronousSocketChannel#getLocalAddress()
      */
@@ -37,6 +37,21 @@ import java.nio.channels.CompletionHandler;
  */
 class TcpWriteHandler<T> implements CompletionHandler<Integer, TcpAioSession<T>> {
 
+    /**
+     * 聚合写的回调,结果为long型,统一转交当前处理器
+     */
+    final CompletionHandler<Long, TcpAioSession<T>> gathering = new CompletionHandler<Long, TcpAioSession<T>>() {
+        @Override
+        public void completed(Long result, TcpAioSession<T> aioSession) {
+            TcpWriteHandler.this.completed(result.intValue(), aioSession);
+        }
+
+        @Override
+        public void failed(Throwable exc, TcpAioSession<T> aioSession) {
+            TcpWriteHandler.this.failed(exc, aioSession);
+        }
+    };
+
     @Override
     public void completed(final Integer result, final TcpAioSession<T> aioSession) {
         try {
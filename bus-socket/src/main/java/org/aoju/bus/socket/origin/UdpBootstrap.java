@@ -31,16 +31,26 @@ import org.aoju.bus.logger.Logger;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.net.SocketOption;
+import java.net.StandardSocketOptions;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedSelectorException;
 import java.nio.channels.DatagramChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.util.Iterator;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * UDP服务启动类
+ * 支持多个反应器线程,绑定固定端口时每个反应器通过SO_REUSEPORT持有独立的通道,
+ * 每次唤醒批量收取报文并按批次交给业务线程
  *
  * @author Kimi Liu
  * @version 5.8.6
@@ -68,6 +78,14 @@ public class UdpBootstrap<Request> implements Runnable {
      * 状态：已停止
      */
     private static final byte STATUS_STOPPED = STATUS_STOPPING << 1;
+    /**
+     * UDP报文的最大长度
+     */
+    private static final int MAX_DATAGRAM_SIZE = 64 * 1024;
+    /**
+     * SO_REUSEPORT选项,JDK 9之前不可用
+     */
+    private static final SocketOption<Boolean> SO_REUSEPORT = reusePortOption();
     /**
      * 服务ID
      */
@@ -76,10 +94,6 @@ public class UdpBootstrap<Request> implements Runnable {
      * 服务状态
      */
     private volatile byte status = STATUS_INIT;
-    /**
-     * 多路复用器
-     */
-    private Selector selector;
 
     /**
      * 服务配置
@@ -92,29 +106,65 @@ public class UdpBootstrap<Request> implements Runnable {
     private RingBuffer<UdpReadEvent<Request>>[] readRingBuffers;
 
     /**
-     * 读缓冲区
+     * 反应器
      */
-    private VirtualBuffer readBuffer;
+    private volatile Reactor[] reactors;
 
-    private EventFactory<UdpReadEvent<Request>> factory = new EventFactory<UdpReadEvent<Request>>() {
-        @Override
-        public UdpReadEvent<Request> newInstance() {
-            return new UdpReadEvent<>();
-        }
+    /**
+     * 反应器数量
+     */
+    private int reactorNum = 1;
 
-        @Override
-        public void restEntity(UdpReadEvent<Request> entity) {
-            entity.setMessage(null);
-            entity.setAioSession(null);
-        }
-    };
+    /**
+     * 通道接收缓冲区大小(SO_RCVBUF),小于等于0时使用系统默认值
+     */
+    private int receiveBufferSize = ServerConfig.getIntProperty(ServerConfig.Property.UDP_RECEIVE_BUFFER_SIZE, 0);
+
+    /**
+     * 每次唤醒单个通道最多收取的报文数,同时也是交给业务线程的批次大小
+     */
+    private int readBatchSize = ServerConfig.getIntProperty(ServerConfig.Property.UDP_READ_BATCH, 64);
+
+    /**
+     * 未指定反应器的通道按轮询分配
+     */
+    private final AtomicInteger reactorCursor = new AtomicInteger();
+
+    /**
+     * 仍在运行的反应器数
+     */
+    private final AtomicInteger runningReactors = new AtomicInteger();
+
+    /**
+     * 已收取的报文数
+     */
+    private final LongAdder receivedCount = new LongAdder();
 
+    /**
+     * 被丢弃的报文数:超出读缓冲区被截断或未能解码出消息
+     */
+    private final LongAdder dropCount = new LongAdder();
+
+    /**
+     * 业务队列已满,由反应器线程直接处理消息的次数
+     */
+    private final LongAdder queueFullCount = new LongAdder();
 
     private PageBuffer pageBuffer = new BufferPool(1024, 1, true).allocateBufferPage();
 
     public UdpBootstrap(Protocol<Request> protocol, Message<Request> messageProcessor) {
         config.setProtocol(protocol);
         config.setProcessor(messageProcessor);
+        config.setReadBufferSize(MAX_DATAGRAM_SIZE);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SocketOption<Boolean> reusePortOption() {
+        try {
+            return (SocketOption<Boolean>) StandardSocketOptions.class.getField("SO_REUSEPORT").get(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
     }
 
     /**
@@ -140,6 +190,8 @@ public class UdpBootstrap<Request> implements Runnable {
 
     /**
      * 开启一个UDP通道
+     * 指定端口且存在多个反应器时,若平台支持SO_REUSEPORT,则为每个反应器绑定一个同端口的通道,
+     * 由内核按来源地址分流,返回的通道关闭时一并关闭
      *
      * @param host 绑定本机地址
      * @param port 指定绑定端口号,为0则随机指定
@@ -147,33 +199,44 @@ public class UdpBootstrap<Request> implements Runnable {
      * @throws IOException 异常
      */
     public UdpChannel<Request> open(String host, int port) throws IOException {
-        if (selector == null) {
-            synchronized (this) {
-                if (selector == null) {
-                    selector = Selector.open();
-                }
-            }
-        }
+        //启动线程服务
+        initThreadServer();
 
-        DatagramChannel channel = DatagramChannel.open();
-        channel.configureBlocking(false);
+        SocketAddress local = null;
         if (port > 0) {
-            channel.socket().bind(host == null ? new InetSocketAddress(port) : new InetSocketAddress(host, port));
+            local = host == null ? new InetSocketAddress(port) : new InetSocketAddress(host, port);
         }
-
-        if (status == STATUS_RUNNING) {
-            selector.wakeup();
+        boolean reusePort = local != null && reactors.length > 1 && SO_REUSEPORT != null;
+        UdpChannel<Request> udpChannel = null;
+        for (int i = 0; i < (reusePort ? reactors.length : 1); i++) {
+            DatagramChannel channel = DatagramChannel.open();
+            channel.configureBlocking(false);
+            if (receiveBufferSize > 0) {
+                channel.setOption(StandardSocketOptions.SO_RCVBUF, receiveBufferSize);
+            }
+            if (reusePort && i == 0 && !channel.supportedOptions().contains(SO_REUSEPORT)) {
+                //通道不支持时退化为单通道,循环条件随之只执行一次
+                Logger.warn("SO_REUSEPORT is not supported, only one channel is bound to port " + port);
+                reusePort = false;
+            }
+            if (reusePort) {
+                channel.setOption(SO_REUSEPORT, true);
+            }
+            if (local != null) {
+                channel.bind(local);
+            }
+            Reactor reactor = reusePort ? reactors[i] : reactors[(reactorCursor.getAndIncrement() & Integer.MAX_VALUE) % reactors.length];
+            UdpChannel<Request> member = reactor.register(channel);
+            if (udpChannel == null) {
+                udpChannel = member;
+            } else {
+                udpChannel.addReusePortChannel(member);
+            }
         }
-        SelectionKey selectionKey = channel.register(selector, SelectionKey.OP_READ);
-        UdpChannel<Request> udpChannel = new UdpChannel<>(channel, selectionKey, config.getWriteQueueCapacity(), pageBuffer);
-        selectionKey.attach(udpChannel);
-
-        //启动线程服务
-        initThreadServer();
         return udpChannel;
     }
 
-    private void initThreadServer() {
+    private void initThreadServer() throws IOException {
         if (status != STATUS_INIT) {
             return;
         }
@@ -183,14 +246,42 @@ public class UdpBootstrap<Request> implements Runnable {
             }
             updateServiceStatus(STATUS_STARTING);
 
-            readBuffer = pageBuffer.allocate(config.getReadBufferSize());
             int uid = UdpBootstrap.uid++;
-            Thread serverThread = new Thread(this, "UDP-Selector-" + uid);
-            serverThread.start();
-
             readRingBuffers = new RingBuffer[config.getThreadNum()];
+            EventFactory<UdpReadEvent<Request>> factory = new EventFactory<UdpReadEvent<Request>>() {
+                @Override
+                public UdpReadEvent<Request> newInstance() {
+                    return new UdpReadEvent<>(readBatchSize);
+                }
+
+                @Override
+                public void restEntity(UdpReadEvent<Request> entity) {
+                    entity.reset();
+                }
+            };
+            for (int i = 0; i < config.getThreadNum(); i++) {
+                readRingBuffers[i] = new RingBuffer<>(1024, factory);
+            }
+
+            // 多留一个字节,刚好填满readBufferSize的报文不会被误判为截断
+            int capacity = config.getReadBufferSize() + 1;
+            BufferPool readBufferPool = new BufferPool(capacity, reactorNum, true);
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            Reactor[] created = new UdpBootstrap.Reactor[reactorNum];
+            for (int i = 0; i < reactorNum; i++) {
+                created[i] = new Reactor(readBufferPool.allocateBufferPage().allocate(capacity));
+            }
+            reactors = created;
+            runningReactors.set(reactorNum);
+            updateServiceStatus(STATUS_RUNNING);
+
+            for (int i = 0; i < reactorNum; i++) {
+                Thread thread = new Thread(reactors[i], "UDP-Selector-" + uid + Symbol.HYPHEN + i);
+                reactors[i].thread = thread;
+                thread.start();
+            }
             for (int i = 0; i < config.getThreadNum(); i++) {
-                final RingBuffer<UdpReadEvent<Request>> ringBuffer = readRingBuffers[i] = new RingBuffer<>(1024, factory);
+                final RingBuffer<UdpReadEvent<Request>> ringBuffer = readRingBuffers[i];
                 new Thread(() -> {
                     while (STATUS_RUNNING == status) {
                         try {
@@ -198,12 +289,8 @@ public class UdpBootstrap<Request> implements Runnable {
                             if (STATUS_RUNNING != status) {
                                 break;
                             }
-                            UdpReadEvent<Request> event = ringBuffer.get(index);
-                            UdpAioSession<Request> aioSession = event.getAioSession();
-                            Request message = event.getMessage();
+                            process(ringBuffer.get(index));
                             ringBuffer.publishReadIndex(index);
-                            config.getProcessor().process(aioSession, message);
-                            aioSession.writeBuffer().flush();
                         } catch (InterruptedException e) {
                             e.printStackTrace();
                         }
@@ -217,32 +304,37 @@ public class UdpBootstrap<Request> implements Runnable {
         this.status = status;
     }
 
-    @Override
-    public void run() {
-        updateServiceStatus(STATUS_RUNNING);
-        // 通过检查状态使之一直保持服务状态
-        while (STATUS_RUNNING == status) {
+    /**
+     * 处理一批消息
+     *
+     * @param event 消息批次
+     */
+    private void process(UdpReadEvent<Request> event) {
+        for (int i = 0; i < event.size(); i++) {
+            UdpAioSession<Request> aioSession = event.getAioSession(i);
             try {
-                running();
-            } catch (ClosedSelectorException e) {
-                e.printStackTrace();
+                config.getProcessor().process(aioSession, event.getMessage(i));
+                aioSession.writeBuffer().flush();
             } catch (Exception e) {
                 e.printStackTrace();
             }
         }
-        if (selector != null) {
-            try {
-                selector.close();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-            selector = null;
+    }
+
+    /**
+     * 反应器停止后的清理,最后一个停止的反应器负责唤醒业务线程
+     */
+    private void reactorStopped() {
+        if (runningReactors.decrementAndGet() > 0) {
+            return;
         }
         for (int i = 0; i < config.getThreadNum(); i++) {
             RingBuffer<UdpReadEvent<Request>> ringBuffer = readRingBuffers[i];
             try {
                 int index = ringBuffer.tryNextWriteIndex();
-                ringBuffer.publishWriteIndex(index);
+                if (index >= 0) {
+                    ringBuffer.publishWriteIndex(index);
+                }
             } catch (InterruptedException e) {
                 e.printStackTrace();
             }
@@ -252,100 +344,39 @@ public class UdpBootstrap<Request> implements Runnable {
     }
 
     /**
-     * 运行channel服务
-     *
-     * @throws IOException 异常
-     * @throws Exception   异常
+     * 阻塞当前线程直至服务停止,反应器线程由{@link #open()}启动,未启动时直接返回
      */
-    private void running() throws IOException, Exception {
-        // 优先获取SelectionKey,若无关注事件触发则阻塞在selector.select(),减少select被调用次数
-        Set<SelectionKey> selectionKeys = selector.selectedKeys();
-        if (selectionKeys.isEmpty()) {
-            selector.select();
-        }
-        Iterator<SelectionKey> keyIterator = selectionKeys.iterator();
-        // 执行本次已触发待处理的事件
-        while (keyIterator.hasNext()) {
-            final SelectionKey key = keyIterator.next();
-            UdpChannel<Request> udpChannel = (UdpChannel<Request>) key.attachment();
-            try {
-                if (!key.isValid()) {
-                    udpChannel.close();
-                    continue;
-                }
-                // 读取客户端数据
-                if (key.isReadable()) {
-                    doRead(udpChannel);
-                } else if (key.isWritable()) {
-                    udpChannel.doWrite();
-                } else {
-                    Logger.warn("奇怪了...");
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-        }
-        selectionKeys.clear();
-    }
-
-    /**
-     * 去读数据
-     *
-     * @param channel 频道
-     * @throws IOException          异常
-     * @throws InterruptedException 异常
-     */
-    private void doRead(UdpChannel channel) throws IOException, InterruptedException {
-        //接收数据
-        ByteBuffer buffer = readBuffer.buffer();
-        SocketAddress remote = channel.getChannel().receive(buffer);
-        buffer.flip();
-        UdpAioSession<Request> aioSession = channel.createAndCacheSession(remote);
-
-        //解码
-        Request t = config.getProtocol().decode(buffer, aioSession);
-        buffer.clear();
-        if (t == null) {
-            Logger.debug("decode null");
-            return;
-        }
-
-        if (config.getThreadNum() == 0) {
-            //非异步则同步处理业务
-            config.getProcessor().process(aioSession, t);
-            aioSession.writeBuffer().flush();
+    @Override
+    public void run() {
+        Reactor[] current = reactors;
+        if (current == null) {
             return;
         }
-
-        RingBuffer<UdpReadEvent<Request>> ringBuffer = readRingBuffers[remote.hashCode() % config.getThreadNum()];
-        int index = -1;
-        while ((index = ringBuffer.tryNextWriteIndex()) < 0) {
-            //读缓冲区已满,尝试清空写缓冲区
-            channel.doWrite();
-            //尝试消费一个读缓冲区资源
-            int readIndex = ringBuffer.tryNextReadIndex();
-            if (readIndex >= 0) {
-                UdpReadEvent<Request> event = ringBuffer.get(readIndex);
-                UdpAioSession<Request> session = event.getAioSession();
-                Request message = event.getMessage();
-                ringBuffer.publishReadIndex(readIndex);
-                config.getProcessor().process(session, message);
-                aioSession.writeBuffer().flush();
+        for (Reactor reactor : current) {
+            Thread thread = reactor.thread;
+            if (thread == null) {
+                continue;
+            }
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
             }
         }
-        UdpReadEvent<Request> udpEvent = ringBuffer.get(index);
-        udpEvent.setAioSession(aioSession);
-        udpEvent.setMessage(t);
-        ringBuffer.publishWriteIndex(index);
     }
 
     public void shutdown() {
         status = STATUS_STOPPING;
-        selector.wakeup();
+        if (reactors != null) {
+            for (Reactor reactor : reactors) {
+                reactor.selector.wakeup();
+            }
+        }
     }
 
     /**
-     * 设置读缓存区大小
+     * 设置读缓存区大小,即单个报文的最大长度,超出部分会被截断并丢弃该报文
      *
      * @param size 单位：byte
      * @return the object
@@ -366,4 +397,286 @@ public class UdpBootstrap<Request> implements Runnable {
         return this;
     }
 
+    /**
+     * 设置反应器线程数,需在首次开启通道前设置
+     *
+     * @param num 反应器线程数
+     * @return the object
+     */
+    public final UdpBootstrap<Request> setReactorNum(int num) {
+        if (num <= 0) {
+            throw new IllegalArgumentException("reactorNum <= 0");
+        }
+        this.reactorNum = num;
+        return this;
+    }
+
+    /**
+     * 设置通道的接收缓冲区大小(SO_RCVBUF),突发流量下可减少内核丢包
+     *
+     * @param size 单位：byte
+     * @return the object
+     */
+    public final UdpBootstrap<Request> setReceiveBufferSize(int size) {
+        this.receiveBufferSize = size;
+        return this;
+    }
+
+    /**
+     * 设置每次唤醒单个通道最多收取的报文数,需在首次开启通道前设置
+     *
+     * @param size 报文数
+     * @return the object
+     */
+    public final UdpBootstrap<Request> setReadBatchSize(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("readBatchSize <= 0");
+        }
+        this.readBatchSize = size;
+        return this;
+    }
+
+    /**
+     * 已收取的报文数
+     *
+     * @return 报文数
+     */
+    public final long getReceivedCount() {
+        return receivedCount.sum();
+    }
+
+    /**
+     * 被丢弃的报文数,包括超出读缓冲区被截断的报文和未能解码出消息的报文
+     *
+     * @return 报文数
+     */
+    public final long getDropCount() {
+        return dropCount.sum();
+    }
+
+    /**
+     * 业务队列已满的次数,此时消息由反应器线程直接处理
+     *
+     * @return 次数
+     */
+    public final long getQueueFullCount() {
+        return queueFullCount.sum();
+    }
+
+    /**
+     * 反应器,持有独立的多路复用器与读缓冲区
+     */
+    private final class Reactor implements Runnable {
+
+        /**
+         * 多路复用器
+         */
+        private final Selector selector;
+
+        /**
+         * 读缓冲区
+         */
+        private final VirtualBuffer readBuffer;
+
+        /**
+         * 待注册的通道
+         */
+        private final Queue<Runnable> registers = new ConcurrentLinkedQueue<>();
+
+        /**
+         * 本次唤醒中各业务线程正在填充的批次,-1表示无
+         */
+        private final int[] batchIndexes;
+
+        private volatile Thread thread;
+
+        Reactor(VirtualBuffer readBuffer) throws IOException {
+            this.selector = Selector.open();
+            this.readBuffer = readBuffer;
+            this.batchIndexes = new int[config.getThreadNum()];
+            for (int i = 0; i < batchIndexes.length; i++) {
+                batchIndexes[i] = -1;
+            }
+        }
+
+        /**
+         * 将通道注册至当前反应器,非反应器线程调用时等待注册完成
+         *
+         * @param channel 通道
+         * @return UDP通道
+         * @throws IOException 异常
+         */
+        UdpChannel<Request> register(DatagramChannel channel) throws IOException {
+            FutureTask<UdpChannel<Request>> task = new FutureTask<>(() -> {
+                SelectionKey selectionKey = channel.register(selector, SelectionKey.OP_READ);
+                UdpChannel<Request> udpChannel = new UdpChannel<>(channel, selectionKey, config.getWriteQueueCapacity(), pageBuffer);
+                selectionKey.attach(udpChannel);
+                return udpChannel;
+            });
+            if (Thread.currentThread() == thread) {
+                task.run();
+            } else {
+                registers.offer(task);
+                selector.wakeup();
+            }
+            try {
+                return task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            } catch (ExecutionException e) {
+                channel.close();
+                throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+            }
+        }
+
+        @Override
+        public void run() {
+            // 通过检查状态使之一直保持服务状态
+            while (STATUS_RUNNING == status) {
+                try {
+                    running();
+                } catch (ClosedSelectorException e) {
+                    e.printStackTrace();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            Runnable register;
+            while ((register = registers.poll()) != null) {
+                register.run();
+            }
+            reactorStopped();
+        }
+
+        /**
+         * 运行channel服务
+         *
+         * @throws IOException 异常
+         * @throws Exception   异常
+         */
+        private void running() throws IOException, Exception {
+            Runnable register;
+            while ((register = registers.poll()) != null) {
+                register.run();
+            }
+            // 优先获取SelectionKey,若无关注事件触发则阻塞在selector.select(),减少select被调用次数
+            Set<SelectionKey> selectionKeys = selector.selectedKeys();
+            if (selectionKeys.isEmpty()) {
+                selector.select();
+            }
+            Iterator<SelectionKey> keyIterator = selectionKeys.iterator();
+            // 执行本次已触发待处理的事件
+            try {
+                while (keyIterator.hasNext()) {
+                    final SelectionKey key = keyIterator.next();
+                    UdpChannel<Request> udpChannel = (UdpChannel<Request>) key.attachment();
+                    try {
+                        if (!key.isValid()) {
+                            udpChannel.close();
+                            continue;
+                        }
+                        // 读取客户端数据
+                        if (key.isReadable()) {
+                            doRead(udpChannel);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            udpChannel.doWrite();
+                        }
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    }
+                }
+            } finally {
+                selectionKeys.clear();
+                publishBatches();
+            }
+        }
+
+        /**
+         * 批量读取数据,直至通道中无可读报文或达到批次上限
+         *
+         * @param channel 频道
+         * @throws IOException          异常
+         * @throws InterruptedException 异常
+         */
+        private void doRead(UdpChannel<Request> channel) throws IOException, InterruptedException {
+            ByteBuffer buffer = readBuffer.buffer();
+            DatagramChannel datagramChannel = channel.getChannel();
+            for (int i = 0; i < readBatchSize; i++) {
+                //接收数据
+                buffer.clear();
+                SocketAddress remote = datagramChannel.receive(buffer);
+                if (remote == null) {
+                    return;
+                }
+                receivedCount.increment();
+                //报文超过readBufferSize时已被截断
+                if (!buffer.hasRemaining()) {
+                    dropCount.increment();
+                    continue;
+                }
+                buffer.flip();
+                UdpAioSession<Request> aioSession = channel.createAndCacheSession(remote);
+
+                //解码
+                Request t = config.getProtocol().decode(buffer, aioSession);
+                if (t == null) {
+                    Logger.debug("decode null");
+                    dropCount.increment();
+                    continue;
+                }
+
+                if (config.getThreadNum() == 0) {
+                    //非异步则同步处理业务
+                    config.getProcessor().process(aioSession, t);
+                    aioSession.writeBuffer().flush();
+                    continue;
+                }
+                dispatch(channel, aioSession, t, (remote.hashCode() & Integer.MAX_VALUE) % config.getThreadNum());
+            }
+        }
+
+        /**
+         * 将消息追加至业务线程的当前批次,批次满时发布
+         */
+        private void dispatch(UdpChannel<Request> channel, UdpAioSession<Request> aioSession, Request message, int worker) throws IOException, InterruptedException {
+            RingBuffer<UdpReadEvent<Request>> ringBuffer = readRingBuffers[worker];
+            int index = batchIndexes[worker];
+            if (index < 0) {
+                index = ringBuffer.tryNextWriteIndex();
+                if (index < 0) {
+                    //读缓冲区已满,尝试清空写缓冲区后由当前线程直接处理
+                    queueFullCount.increment();
+                    channel.doWrite();
+                    config.getProcessor().process(aioSession, message);
+                    aioSession.writeBuffer().flush();
+                    return;
+                }
+                batchIndexes[worker] = index;
+            }
+            if (ringBuffer.get(index).add(aioSession, message)) {
+                ringBuffer.publishWriteIndex(index);
+                batchIndexes[worker] = -1;
+            }
+        }
+
+        /**
+         * 发布本次唤醒中未满的批次
+         */
+        private void publishBatches() {
+            for (int i = 0; i < batchIndexes.length; i++) {
+                if (batchIndexes[i] >= 0) {
+                    readRingBuffers[i].publishWriteIndex(batchIndexes[i]);
+                    batchIndexes[i] = -1;
+                }
+            }
+        }
+    }
+
 }
@@ -29,7 +29,6 @@ import org.aoju.bus.core.io.PageBuffer;
 import org.aoju.bus.core.io.RingBuffer;
 import org.aoju.bus.core.io.VirtualBuffer;
 import org.aoju.bus.core.lang.Normal;
-import org.aoju.bus.core.lang.Symbol;
 import org.aoju.bus.logger.Logger;
 
 import java.io.IOException;
@@ -39,8 +38,10 @@ import java.nio.ByteBuffer;
 import java.nio.channels.DatagramChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * @author Kimi Liu
@@ -59,9 +60,14 @@ public final class UdpChannel<Request> {
     private SelectionKey selectionKey;
 
     /**
-     * 与当前UDP通道对接的会话
+     * 与当前UDP通道对接的会话,以远程地址为键,避免每个报文都做主机名反查
      */
-    private ConcurrentHashMap<String, UdpAioSession<Request>> udpAioSessionConcurrentHashMap = new ConcurrentHashMap<>();
+    private ConcurrentHashMap<SocketAddress, UdpAioSession<Request>> udpAioSessionConcurrentHashMap = new ConcurrentHashMap<>();
+
+    /**
+     * 通过SO_REUSEPORT绑定同一端口、由其他反应器负责的通道,随当前通道一起关闭
+     */
+    private final List<UdpChannel<Request>> reusePortChannels = new CopyOnWriteArrayList<>();
 
     /**
      * 待输出消息
@@ -171,13 +177,12 @@ public final class UdpChannel<Request> {
             throw new UnsupportedOperationException();
 
         }
-        InetSocketAddress address = (InetSocketAddress) remote;
-        String key = address.getHostName() + Symbol.COLON + address.getPort();
-        UdpAioSession<Request> session = udpAioSessionConcurrentHashMap.get(key);
+        UdpAioSession<Request> session = udpAioSessionConcurrentHashMap.get(remote);
         if (session != null) {
             return session;
         }
         synchronized (this) {
+            session = udpAioSessionConcurrentHashMap.get(remote);
             if (session != null) {
                 return session;
             }
@@ -197,7 +202,7 @@ public final class UdpChannel<Request> {
             };
             WriteBuffer writeBuffer = new WriteBuffer(pageBuffer, function, writeQueueCapacity);
             session = new UdpAioSession<>(this, remote, writeBuffer);
-            udpAioSessionConcurrentHashMap.put(key, session);
+            udpAioSessionConcurrentHashMap.put(remote, session);
         }
         return session;
     }
@@ -206,13 +211,17 @@ public final class UdpChannel<Request> {
      * 关闭当前连接
      */
     public void close() {
+        for (UdpChannel<Request> channel : reusePortChannels) {
+            channel.close();
+        }
+        reusePortChannels.clear();
         if (selectionKey != null) {
             Selector selector = selectionKey.selector();
             selectionKey.cancel();
             selector.wakeup();
             selectionKey = null;
         }
-        for (Map.Entry<String, UdpAioSession<Request>> entry : udpAioSessionConcurrentHashMap.entrySet()) {
+        for (Map.Entry<SocketAddress, UdpAioSession<Request>> entry : udpAioSessionConcurrentHashMap.entrySet()) {
             entry.getValue().close();
         }
         try {
@@ -225,6 +234,10 @@ public final class UdpChannel<Request> {
         }
     }
 
+    void addReusePortChannel(UdpChannel<Request> channel) {
+        reusePortChannels.add(channel);
+    }
+
     DatagramChannel getChannel() {
         return channel;
     }
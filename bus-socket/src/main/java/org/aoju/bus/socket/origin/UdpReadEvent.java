@@ -25,6 +25,8 @@
 package org.aoju.bus.socket.origin;
 
 /**
+ * 一批已解码的UDP消息,由反应器线程填充后整体交给业务线程
+ *
  * @author Kimi Liu
  * @version 5.8.6
  * @since JDK 1.8+
@@ -34,28 +36,56 @@ final class UdpReadEvent<Request> {
     /**
      * UDP会话
      */
-    private UdpAioSession<Request> aioSession;
+    private final UdpAioSession<Request>[] sessions;
 
     /**
      * 消息体
      */
-    private Request message;
+    private final Object[] messages;
 
+    /**
+     * 当前批次中的消息数
+     */
+    private int size;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    UdpReadEvent(int capacity) {
+        this.sessions = new UdpAioSession[capacity];
+        this.messages = new Object[capacity];
+    }
+
+    /**
+     * 追加一条消息
+     *
+     * @param aioSession 会话
+     * @param message    消息体
+     * @return 批次是否已满
+     */
+    boolean add(UdpAioSession<Request> aioSession, Request message) {
+        sessions[size] = aioSession;
+        messages[size++] = message;
+        return size == messages.length;
+    }
 
-    public Request getMessage() {
-        return message;
+    int size() {
+        return size;
     }
 
-    public void setMessage(Request message) {
-        this.message = message;
+    UdpAioSession<Request> getAioSession(int index) {
+        return sessions[index];
     }
 
-    public UdpAioSession<Request> getAioSession() {
-        return aioSession;
+    @SuppressWarnings("unchecked")
+    Request getMessage(int index) {
+        return (Request) messages[index];
     }
 
-    public void setAioSession(UdpAioSession<Request> aioSession) {
-        this.aioSession = aioSession;
+    void reset() {
+        for (int i = 0; i < size; i++) {
+            sessions[i] = null;
+            messages[i] = null;
+        }
+        size = 0;
     }
 
 }
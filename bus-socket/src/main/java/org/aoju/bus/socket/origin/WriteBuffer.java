@@ -30,6 +30,9 @@ import org.aoju.bus.core.io.VirtualBuffer;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -45,7 +48,7 @@ public class WriteBuffer extends OutputStream {
     /**
      * 输出缓存块大小
      */
-    private static final int WRITE_CHUNK_SIZE = ServerConfig.getIntProperty(ServerConfig.Property.SESSION_WRITE_CHUNK_SIZE, 4096);
+    static final int WRITE_CHUNK_SIZE = ServerConfig.getIntProperty(ServerConfig.Property.SESSION_WRITE_CHUNK_SIZE, 4096);
     /**
      * 存储已就绪待输出的数据
      */
@@ -62,7 +65,31 @@ public class WriteBuffer extends OutputStream {
      */
     private final PageBuffer pageBuffer;
     private final Function<WriteBuffer, Void> function;
+    /**
+     * 统计已借出且尚未归还的缓存块,为null时不统计
+     */
+    private final AtomicInteger buffersInUse;
+    /**
+     * 队列中待输出的字节数
+     */
+    private final AtomicLong pendingBytes = new AtomicLong();
+    /**
+     * 待输出字节数是否低于高水位
+     */
+    private final AtomicBoolean writable = new AtomicBoolean(true);
     private volatile boolean isWaiting = false;
+    /**
+     * 低水位,待输出字节数回落至此时恢复可写
+     */
+    private int lowWaterMark;
+    /**
+     * 高水位,待输出字节数达到此值时变为不可写,小于等于0表示不启用
+     */
+    private int highWaterMark;
+    /**
+     * 可写状态变化时的回调
+     */
+    private Function<WriteBuffer, Void> writabilityFunction;
     /**
      * items 读索引位
      */
@@ -86,9 +113,53 @@ public class WriteBuffer extends OutputStream {
     private byte[] cacheByte = new byte[8];
 
     protected WriteBuffer(PageBuffer pageBuffer, Function<WriteBuffer, Void> flushFunction, int writeQueueSize) {
+        this(pageBuffer, flushFunction, writeQueueSize, null);
+    }
+
+    WriteBuffer(PageBuffer pageBuffer, Function<WriteBuffer, Void> flushFunction, int writeQueueSize,
+                AtomicInteger buffersInUse) {
         this.pageBuffer = pageBuffer;
         this.function = flushFunction;
         this.items = new VirtualBuffer[writeQueueSize];
+        this.buffersInUse = buffersInUse;
+    }
+
+    /**
+     * 设置待输出字节数的高低水位
+     *
+     * @param lowWaterMark  低水位
+     * @param highWaterMark 高水位,小于等于0表示不启用
+     * @param function      可写状态变化时的回调,在不持有锁的情况下调用
+     */
+    void setWaterMark(int lowWaterMark, int highWaterMark, Function<WriteBuffer, Void> function) {
+        this.lowWaterMark = lowWaterMark;
+        this.highWaterMark = highWaterMark;
+        this.writabilityFunction = function;
+    }
+
+    /**
+     * 缓存块仅在有数据写入时借用,输出完成后通过{@link #release(VirtualBuffer)}归还
+     *
+     * @param size 大小
+     * @return 缓存块
+     */
+    VirtualBuffer allocate(int size) {
+        if (buffersInUse != null) {
+            buffersInUse.incrementAndGet();
+        }
+        return pageBuffer.allocate(size);
+    }
+
+    /**
+     * 归还已输出完毕的缓存块
+     *
+     * @param buffer 缓存块
+     */
+    void release(VirtualBuffer buffer) {
+        buffer.clean();
+        if (buffersInUse != null) {
+            buffersInUse.decrementAndGet();
+        }
     }
 
     /**
@@ -110,7 +181,7 @@ public class WriteBuffer extends OutputStream {
 
     public void writeByte(byte b) {
         if (writeInBuf == null) {
-            writeInBuf = pageBuffer.allocate(WRITE_CHUNK_SIZE);
+            writeInBuf = allocate(WRITE_CHUNK_SIZE);
         }
         writeInBuf.buffer().put(b);
         if (writeInBuf.buffer().hasRemaining()) {
@@ -124,6 +195,7 @@ public class WriteBuffer extends OutputStream {
             lock.unlock();
         }
         writeInBuf = null;
+        updateWritability();
         function.apply(this);
     }
 
@@ -151,30 +223,92 @@ public class WriteBuffer extends OutputStream {
         lock.lock();
         try {
             waitPreWriteFinish();
-            do {
-                if (writeInBuf == null) {
-                    writeInBuf = pageBuffer.allocate(Math.max(WRITE_CHUNK_SIZE, len - off));
-                }
-                ByteBuffer writeBuffer = writeInBuf.buffer();
-                int minSize = Math.min(writeBuffer.remaining(), len - off);
-                if (minSize == 0 || closed) {
-                    writeInBuf.clean();
-                    throw new IOException("writeBuffer.remaining:" + writeBuffer.remaining() + " closed:" + closed);
-                }
-                writeBuffer.put(b, off, minSize);
-                off += minSize;
-                if (!writeBuffer.hasRemaining()) {
-                    writeBuffer.flip();
-                    VirtualBuffer buffer = writeInBuf;
-                    writeInBuf = null;
-                    this.put(buffer);
-                    function.apply(this);
-                }
-            } while (off < len);
-            notifyWaiting();
+            write0(b, off, len);
         } finally {
             lock.unlock();
         }
+        updateWritability();
+    }
+
+    /**
+     * 非阻塞写入,输出队列已达高水位或剩余空间不足以容纳本次数据时立即返回false,不会等待队列腾出空间,
+     * 适合在I/O线程中输出数据
+     *
+     * @param b 待输出数据
+     * @return 是否已写入
+     * @throws IOException 如果发生 I/O 错误
+     */
+    public boolean offer(byte[] b) throws IOException {
+        if (b == null) {
+            throw new NullPointerException();
+        }
+        return offer(b, 0, b.length);
+    }
+
+    /**
+     * @param b   待输出数据
+     * @param off b的起始位点
+     * @param len 从b中输出的数据长度
+     * @return 是否已写入
+     * @throws IOException 如果发生 I/O 错误
+     * @see WriteBuffer#offer(byte[])
+     */
+    public boolean offer(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("OutputStream has closed");
+        }
+        if (b == null) {
+            throw new NullPointerException();
+        } else if ((off < 0) || (off > b.length) || (len < 0) ||
+                ((off + len) > b.length) || ((off + len) < 0)) {
+            throw new IndexOutOfBoundsException();
+        } else if (len == 0) {
+            return true;
+        }
+        if (!isWritable()) {
+            return false;
+        }
+        lock.lock();
+        try {
+            // 一次写入最多新增两个缓存块:填满当前块,以及容纳剩余数据的新块
+            if (isWaiting || items.length - count < 2) {
+                return false;
+            }
+            write0(b, off, len);
+        } finally {
+            lock.unlock();
+        }
+        updateWritability();
+        return true;
+    }
+
+    /**
+     * 写入数据,需持有锁
+     */
+    private void write0(byte[] b, int off, int len) throws IOException {
+        int end = off + len;
+        do {
+            if (writeInBuf == null) {
+                writeInBuf = allocate(Math.max(WRITE_CHUNK_SIZE, end - off));
+            }
+            ByteBuffer writeBuffer = writeInBuf.buffer();
+            int minSize = Math.min(writeBuffer.remaining(), end - off);
+            if (minSize == 0 || closed) {
+                release(writeInBuf);
+                writeInBuf = null;
+                throw new IOException("writeBuffer.remaining:" + writeBuffer.remaining() + " closed:" + closed);
+            }
+            writeBuffer.put(b, off, minSize);
+            off += minSize;
+            if (!writeBuffer.hasRemaining()) {
+                writeBuffer.flip();
+                VirtualBuffer buffer = writeInBuf;
+                writeInBuf = null;
+                this.put(buffer);
+                function.apply(this);
+            }
+        } while (off < end);
+        notifyWaiting();
     }
 
     /**
@@ -247,6 +381,7 @@ public class WriteBuffer extends OutputStream {
                 lock.unlock();
             }
             if (size > 0) {
+                updateWritability();
                 function.apply(this);
             }
         }
@@ -266,10 +401,11 @@ public class WriteBuffer extends OutputStream {
 
             VirtualBuffer byteBuf;
             while ((byteBuf = poll()) != null) {
-                byteBuf.clean();
+                release(byteBuf);
             }
             if (writeInBuf != null) {
-                writeInBuf.clean();
+                release(writeInBuf);
+                writeInBuf = null;
             }
         } finally {
             lock.unlock();
@@ -280,6 +416,46 @@ public class WriteBuffer extends OutputStream {
         return closed;
     }
 
+    /**
+     * 待输出字节数是否低于高水位,未启用水位时恒为true
+     *
+     * @return true/false
+     */
+    public boolean isWritable() {
+        return writable.get();
+    }
+
+    /**
+     * 队列中待输出的字节数,不含正在写入尚未提交的缓存块
+     *
+     * @return 字节数
+     */
+    public long getPendingBytes() {
+        return pendingBytes.get();
+    }
+
+    /**
+     * 根据待输出字节数切换可写状态,需在释放锁之后调用
+     * 读取字节数与切换状态之间其他线程可能已改变字节数,且因状态尚未切换而未能完成反向切换,
+     * 故每次成功切换后重新检查,直至状态与字节数一致
+     */
+    private void updateWritability() {
+        if (highWaterMark <= 0) {
+            return;
+        }
+        for (; ; ) {
+            long pending = pendingBytes.get();
+            if (pending >= highWaterMark) {
+                if (!writable.compareAndSet(true, false)) {
+                    return;
+                }
+            } else if (pending > lowWaterMark || !writable.compareAndSet(false, true)) {
+                return;
+            }
+            writabilityFunction.apply(this);
+        }
+    }
+
     boolean hasData() {
         return count > 0 || (writeInBuf != null && writeInBuf.buffer().position() > 0);
     }
@@ -301,6 +477,7 @@ public class WriteBuffer extends OutputStream {
                 putIndex = 0;
             }
             count++;
+            pendingBytes.addAndGet(virtualBuffer.buffer().remaining());
             notEmpty.signal();
         } catch (InterruptedException e1) {
             throw new RuntimeException(e1);
@@ -313,22 +490,57 @@ public class WriteBuffer extends OutputStream {
      * @return 待输出的VirtualBuffer
      */
     VirtualBuffer poll() {
+        VirtualBuffer x = null;
         lock.lock();
         try {
-            if (count == 0) {
-                return null;
+            if (count > 0) {
+                x = items[takeIndex];
+                items[takeIndex] = null;
+                if (++takeIndex == items.length) {
+                    takeIndex = 0;
+                }
+                count--;
+                pendingBytes.addAndGet(-x.buffer().remaining());
+                notFull.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+        updateWritability();
+        return x;
+    }
+
+    /**
+     * 一次取出队列头部的多个VirtualBuffer
+     *
+     * @param dest 存放取出的缓冲块
+     * @param max  最多取出的数量
+     * @return 实际取出的数量
+     */
+    int poll(VirtualBuffer[] dest, int max) {
+        int n;
+        lock.lock();
+        try {
+            n = Math.min(count, max);
+            long bytes = 0;
+            for (int i = 0; i < n; i++) {
+                dest[i] = items[takeIndex];
+                bytes += dest[i].buffer().remaining();
+                items[takeIndex] = null;
+                if (++takeIndex == items.length) {
+                    takeIndex = 0;
+                }
             }
-            VirtualBuffer x = items[takeIndex];
-            items[takeIndex] = null;
-            if (++takeIndex == items.length) {
-                takeIndex = 0;
+            count -= n;
+            if (n > 0) {
+                pendingBytes.addAndGet(-bytes);
+                notFull.signalAll();
             }
-            count--;
-            notFull.signal();
-            return x;
         } finally {
             lock.unlock();
         }
+        updateWritability();
+        return n;
     }
 
 }
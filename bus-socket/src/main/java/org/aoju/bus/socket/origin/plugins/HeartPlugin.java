@@ -26,16 +26,17 @@ package org.aoju.bus.socket.origin.plugins;
 
 import org.aoju.bus.logger.Logger;
 import org.aoju.bus.socket.origin.AioSession;
+import org.aoju.bus.socket.origin.HashedWheelTimer;
 import org.aoju.bus.socket.origin.StateMachine;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 心跳插件
+ * <p>
+ * 会话的最近活动时间由会话自身记录,检测任务挂在共享的{@link HashedWheelTimer}上,会话失效后不再续期
+ * </p>
  *
  * @author Kimi Liu
  * @version 5.8.6
@@ -43,17 +44,20 @@ import java.util.TimerTask;
  */
 public abstract class HeartPlugin<T> extends AbstractPlugin<T> {
 
-    private static Timer timer = new Timer("HeartMonitor Timer", true);
-    private Map<AioSession<T>, Long> sessionMap = new HashMap<>();
+    private final HashedWheelTimer timer;
     private int timeout;
 
     public HeartPlugin(int timeout) {
+        this(timeout, HashedWheelTimer.DEFAULT);
+    }
+
+    public HeartPlugin(int timeout, HashedWheelTimer timer) {
         this.timeout = timeout;
+        this.timer = timer;
     }
 
     @Override
     public final boolean preProcess(AioSession<T> session, T t) {
-        sessionMap.put(session, System.currentTimeMillis());
         //是否心跳响应消息
         if (isHeartMessage(session, t)) {
             //延长心跳监测时间
@@ -64,16 +68,9 @@ public abstract class HeartPlugin<T> extends AbstractPlugin<T> {
 
     @Override
     public final void stateEvent(StateMachine stateMachineEnum, AioSession<T> session, Throwable throwable) {
-        switch (stateMachineEnum) {
-            case NEW_SESSION:
-                sessionMap.put(session, System.currentTimeMillis());
-                registerHeart(session, timeout);
-                //注册心跳监测
-                break;
-            case SESSION_CLOSED:
-                //移除心跳监测
-                sessionMap.remove(session);
-                break;
+        if (stateMachineEnum == StateMachine.NEW_SESSION) {
+            //注册心跳监测
+            registerHeart(session, timeout);
         }
     }
 
@@ -100,31 +97,30 @@ public abstract class HeartPlugin<T> extends AbstractPlugin<T> {
             Logger.info("sesssion:{} 因心跳超时时间为:{},终止启动心跳监测任务", session, timeout);
             return;
         }
-        Logger.info("session:{}注册心跳任务,超时时间:{}", session, timeout);
-        timer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                if (session.isInvalid()) {
-                    sessionMap.remove(session);
-                    Logger.info("session:{} 已失效,移除心跳任务", session);
-                    return;
-                }
-                Long lastTime = sessionMap.get(session);
-                if (lastTime == null) {
-                    Logger.warn("session:{} timeout is null", session);
-                    lastTime = System.currentTimeMillis();
-                    sessionMap.put(session, lastTime);
-                }
-                if (System.currentTimeMillis() - lastTime > timeout) {
-                    try {
-                        sendHeartRequest(session);
-                    } catch (IOException e) {
-                        Logger.error("heart exception", e);
-                    }
+        Logger.debug("session:{}注册心跳任务,超时时间:{}", session, timeout);
+        scheduleHeart(session, timeout, timeout);
+    }
+
+    private void scheduleHeart(final AioSession<T> session, final int timeout, long delay) {
+        timer.schedule(() -> {
+            if (session.isInvalid()) {
+                Logger.debug("session:{} 已失效,移除心跳任务", session);
+                return;
+            }
+            long lastTime = session.getLastReadTime();
+            long idle = System.currentTimeMillis() - lastTime;
+            if (lastTime < 0 || idle >= timeout) {
+                try {
+                    sendHeartRequest(session);
+                } catch (IOException e) {
+                    Logger.error("heart exception", e);
                 }
-                registerHeart(session, timeout);
+                scheduleHeart(session, timeout, timeout);
+            } else {
+                // 期间有数据到达,从最近一次活动时间起重新计时
+                scheduleHeart(session, timeout, timeout - idle);
             }
-        }, timeout);
+        }, delay, TimeUnit.MILLISECONDS);
     }
 
 }
@@ -0,0 +1,137 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License                                                               *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.socket.origin.plugins;
+
+import org.aoju.bus.logger.Logger;
+import org.aoju.bus.socket.origin.AioSession;
+import org.aoju.bus.socket.origin.HashedWheelTimer;
+import org.aoju.bus.socket.origin.StateMachine;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 空闲及超时检测插件
+ * <p>
+ * 读空闲: 超过指定时间未读到任何数据;写超时: 有待输出的数据,但超过指定时间写操作没有任何进展.
+ * 默认处理方式为立即关闭会话,可通过覆盖{@link #readIdle(AioSession)}与{@link #writeTimeout(AioSession)}自定义
+ * </p>
+ *
+ * @author Kimi Liu
+ * @version 5.8.6
+ * @since JDK 1.8+
+ */
+public class IdleStatePlugin<T> extends AbstractPlugin<T> {
+
+    private final HashedWheelTimer timer;
+    /**
+     * 读空闲时间(毫秒),小于等于0时不检测
+     */
+    private final long readIdleTimeout;
+    /**
+     * 写超时时间(毫秒),小于等于0时不检测
+     */
+    private final long writeTimeout;
+
+    public IdleStatePlugin(long readIdleTimeout, long writeTimeout) {
+        this(readIdleTimeout, writeTimeout, HashedWheelTimer.DEFAULT);
+    }
+
+    public IdleStatePlugin(long readIdleTimeout, long writeTimeout, HashedWheelTimer timer) {
+        this.readIdleTimeout = readIdleTimeout;
+        this.writeTimeout = writeTimeout;
+        this.timer = timer;
+    }
+
+    @Override
+    public void stateEvent(StateMachine stateMachineEnum, AioSession<T> session, Throwable throwable) {
+        if (stateMachineEnum != StateMachine.NEW_SESSION) {
+            return;
+        }
+        if (readIdleTimeout > 0) {
+            scheduleReadCheck(session, readIdleTimeout);
+        }
+        if (writeTimeout > 0) {
+            scheduleWriteCheck(session, writeTimeout);
+        }
+    }
+
+    /**
+     * 读空闲时触发,默认关闭会话
+     *
+     * @param session 会话
+     */
+    protected void readIdle(AioSession<T> session) {
+        Logger.warn("session:{} 超过{}ms未读到数据,关闭会话", session.getSessionID(), readIdleTimeout);
+        session.close(true);
+    }
+
+    /**
+     * 写超时时触发,默认关闭会话
+     *
+     * @param session 会话
+     */
+    protected void writeTimeout(AioSession<T> session) {
+        Logger.warn("session:{} 写操作超过{}ms无进展,关闭会话", session.getSessionID(), writeTimeout);
+        session.close(true);
+    }
+
+    /**
+     * 每次到期只根据最近活动时间计算下一次检测点,不随读写重新挂载任务
+     */
+    private void scheduleReadCheck(final AioSession<T> session, long delay) {
+        timer.schedule(() -> {
+            if (session.isInvalid() || session.getLastReadTime() < 0) {
+                return;
+            }
+            long remaining = session.getLastReadTime() + readIdleTimeout - System.currentTimeMillis();
+            if (remaining > 0) {
+                scheduleReadCheck(session, remaining);
+                return;
+            }
+            readIdle(session);
+            if (!session.isInvalid()) {
+                scheduleReadCheck(session, readIdleTimeout);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void scheduleWriteCheck(final AioSession<T> session, long delay) {
+        timer.schedule(() -> {
+            if (session.isInvalid() || session.getLastWriteTime() < 0) {
+                return;
+            }
+            long remaining = session.getLastWriteTime() + writeTimeout - System.currentTimeMillis();
+            if (!session.isWritePending() || remaining > 0) {
+                scheduleWriteCheck(session, remaining > 0 ? remaining : writeTimeout);
+                return;
+            }
+            writeTimeout(session);
+            if (!session.isInvalid()) {
+                scheduleWriteCheck(session, writeTimeout);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+}
@@ -0,0 +1,305 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License                                                               *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.socket.origin.plugins;
+
+import org.aoju.bus.socket.origin.AioSession;
+import org.aoju.bus.socket.origin.Protocol;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于长度字段的解码器
+ * <p>
+ * 帧长度 = 长度字段值 + lengthAdjustment + lengthFieldOffset + lengthFieldLength,
+ * 解码结果为去掉前initialBytesToStrip字节后的只读ByteBuffer.
+ * </p>
+ * <p>
+ * 完整帧位于会话读缓冲中时直接返回读缓冲的只读切片,不复制数据;
+ * 帧超过读缓冲容量时借用缓存池中的缓冲拼装.
+ * 两种情况下返回的ByteBuffer都只在本次{@link org.aoju.bus.socket.origin.Message#process(AioSession, Object)}期间有效,
+ * 需要异步处理时应自行复制
+ * </p>
+ *
+ * @author Kimi Liu
+ * @version 5.8.6
+ * @since JDK 1.8+
+ */
+public class LengthFieldFrame implements Protocol<ByteBuffer> {
+
+    private final ByteOrder byteOrder;
+    private final int maxFrameLength;
+    private final int lengthFieldOffset;
+    private final int lengthFieldLength;
+    private final int lengthFieldEndOffset;
+    private final int lengthAdjustment;
+    private final int initialBytesToStrip;
+    /**
+     * 正在拼装或已交付拼装帧的会话,帧完成后的下一次解码时移除;
+     * 拼装中途关闭的会话在下次开始拼装时清理
+     */
+    private final Map<AioSession<ByteBuffer>, Assembly> assemblies = new ConcurrentHashMap<>();
+    /**
+     * assemblies的条目数,为0时解码无需查找
+     */
+    private final AtomicInteger assembling = new AtomicInteger();
+    private final FramePool pool = new FramePool();
+
+    /**
+     * @param maxFrameLength    最大帧长度,超过时抛出异常
+     * @param lengthFieldOffset 长度字段偏移量
+     * @param lengthFieldLength 长度字段字节数,取值1、2、3、4、8
+     */
+    public LengthFieldFrame(int maxFrameLength, int lengthFieldOffset, int lengthFieldLength) {
+        this(maxFrameLength, lengthFieldOffset, lengthFieldLength, 0, 0);
+    }
+
+    /**
+     * @param maxFrameLength      最大帧长度,超过时抛出异常
+     * @param lengthFieldOffset   长度字段偏移量
+     * @param lengthFieldLength   长度字段字节数,取值1、2、3、4、8
+     * @param lengthAdjustment    长度字段值的修正量,长度字段包含头部时为负数
+     * @param initialBytesToStrip 解码结果中去掉的头部字节数
+     */
+    public LengthFieldFrame(int maxFrameLength, int lengthFieldOffset, int lengthFieldLength,
+                            int lengthAdjustment, int initialBytesToStrip) {
+        this(ByteOrder.BIG_ENDIAN, maxFrameLength, lengthFieldOffset, lengthFieldLength,
+                lengthAdjustment, initialBytesToStrip);
+    }
+
+    /**
+     * @param byteOrder           长度字段字节序
+     * @param maxFrameLength      最大帧长度,超过时抛出异常
+     * @param lengthFieldOffset   长度字段偏移量
+     * @param lengthFieldLength   长度字段字节数,取值1、2、3、4、8
+     * @param lengthAdjustment    长度字段值的修正量,长度字段包含头部时为负数
+     * @param initialBytesToStrip 解码结果中去掉的头部字节数
+     */
+    public LengthFieldFrame(ByteOrder byteOrder, int maxFrameLength, int lengthFieldOffset, int lengthFieldLength,
+                            int lengthAdjustment, int initialBytesToStrip) {
+        if (byteOrder == null) {
+            throw new NullPointerException("byteOrder");
+        }
+        if (maxFrameLength <= 0) {
+            throw new IllegalArgumentException("maxFrameLength must be a positive integer: " + maxFrameLength);
+        }
+        if (lengthFieldOffset < 0) {
+            throw new IllegalArgumentException("lengthFieldOffset must be a non-negative integer: " + lengthFieldOffset);
+        }
+        if (lengthFieldLength != 1 && lengthFieldLength != 2 && lengthFieldLength != 3
+                && lengthFieldLength != 4 && lengthFieldLength != 8) {
+            throw new IllegalArgumentException("lengthFieldLength must be either 1, 2, 3, 4, or 8: " + lengthFieldLength);
+        }
+        if (initialBytesToStrip < 0) {
+            throw new IllegalArgumentException("initialBytesToStrip must be a non-negative integer: " + initialBytesToStrip);
+        }
+        if (lengthFieldOffset > maxFrameLength - lengthFieldLength) {
+            throw new IllegalArgumentException("maxFrameLength (" + maxFrameLength + ") must be equal to or greater than "
+                    + "lengthFieldOffset (" + lengthFieldOffset + ") + lengthFieldLength (" + lengthFieldLength + ")");
+        }
+        this.byteOrder = byteOrder;
+        this.maxFrameLength = maxFrameLength;
+        this.lengthFieldOffset = lengthFieldOffset;
+        this.lengthFieldLength = lengthFieldLength;
+        this.lengthFieldEndOffset = lengthFieldOffset + lengthFieldLength;
+        this.lengthAdjustment = lengthAdjustment;
+        this.initialBytesToStrip = initialBytesToStrip;
+    }
+
+    @Override
+    public ByteBuffer decode(ByteBuffer readBuffer, AioSession<ByteBuffer> session) {
+        if (assembling.get() != 0) {
+            Assembly assembly = assemblies.get(session);
+            if (assembly != null) {
+                if (!assembly.delivered) {
+                    return assemble(assembly, readBuffer, session);
+                }
+                // 上一个拼装帧已处理完毕,归还缓冲
+                if (assemblies.remove(session, assembly)) {
+                    assembling.decrementAndGet();
+                }
+                pool.release(assembly.buffer);
+            }
+        }
+
+        int start = readBuffer.position();
+        if (readBuffer.remaining() < lengthFieldEndOffset) {
+            return null;
+        }
+        long frameLength = frameLength(readBuffer, start + lengthFieldOffset)
+                + lengthAdjustment + lengthFieldEndOffset;
+        if (frameLength < lengthFieldEndOffset) {
+            throw new IllegalStateException("Adjusted frame length (" + frameLength + ") is less "
+                    + "than lengthFieldEndOffset: " + lengthFieldEndOffset);
+        }
+        if (frameLength > maxFrameLength) {
+            throw new IllegalStateException("Adjusted frame length exceeds " + maxFrameLength + ": " + frameLength);
+        }
+        if (frameLength < initialBytesToStrip) {
+            throw new IllegalStateException("Adjusted frame length (" + frameLength + ") is less "
+                    + "than initialBytesToStrip: " + initialBytesToStrip);
+        }
+        int length = (int) frameLength;
+        if (length > readBuffer.capacity()) {
+            // 读缓冲无法容纳整帧,转为拼装
+            expungeInvalid();
+            Assembly assembly = new Assembly(pool.acquire(length));
+            assemblies.put(session, assembly);
+            assembling.incrementAndGet();
+            return assemble(assembly, readBuffer, session);
+        }
+        if (readBuffer.remaining() < length) {
+            // 等待会话压缩读缓冲后继续读取
+            return null;
+        }
+        ByteBuffer frame = readBuffer.duplicate();
+        frame.limit(start + length).position(start + initialBytesToStrip);
+        readBuffer.position(start + length);
+        return frame.slice().asReadOnlyBuffer().order(byteOrder);
+    }
+
+    private ByteBuffer assemble(Assembly assembly, ByteBuffer readBuffer, AioSession<ByteBuffer> session) {
+        ByteBuffer target = assembly.buffer;
+        if (readBuffer.remaining() > target.remaining()) {
+            int limit = readBuffer.limit();
+            readBuffer.limit(readBuffer.position() + target.remaining());
+            target.put(readBuffer);
+            readBuffer.limit(limit);
+        } else {
+            target.put(readBuffer);
+        }
+        if (target.hasRemaining()) {
+            return null;
+        }
+        target.flip();
+        assembly.delivered = true;
+        ByteBuffer frame = target.duplicate();
+        frame.position(initialBytesToStrip);
+        return frame.slice().asReadOnlyBuffer().order(byteOrder);
+    }
+
+    /**
+     * 移除已关闭会话的拼装状态,其缓冲不再归还缓存池
+     */
+    private void expungeInvalid() {
+        for (Map.Entry<AioSession<ByteBuffer>, Assembly> entry : assemblies.entrySet()) {
+            if (entry.getKey().isInvalid() && assemblies.remove(entry.getKey(), entry.getValue())) {
+                assembling.decrementAndGet();
+            }
+        }
+    }
+
+    private long frameLength(ByteBuffer buffer, int offset) {
+        ByteOrder order = buffer.order();
+        buffer.order(byteOrder);
+        try {
+            switch (lengthFieldLength) {
+                case 1:
+                    return buffer.get(offset) & 0xFF;
+                case 2:
+                    return buffer.getShort(offset) & 0xFFFF;
+                case 3:
+                    if (byteOrder == ByteOrder.BIG_ENDIAN) {
+                        return (buffer.get(offset) & 0xFF) << 16
+                                | (buffer.get(offset + 1) & 0xFF) << 8
+                                | buffer.get(offset + 2) & 0xFF;
+                    }
+                    return buffer.get(offset) & 0xFF
+                            | (buffer.get(offset + 1) & 0xFF) << 8
+                            | (buffer.get(offset + 2) & 0xFF) << 16;
+                case 4:
+                    return buffer.getInt(offset) & 0xFFFFFFFFL;
+                default:
+                    return buffer.getLong(offset);
+            }
+        } finally {
+            buffer.order(order);
+        }
+    }
+
+    /**
+     * 正在拼装的帧
+     */
+    private static final class Assembly {
+
+        final ByteBuffer buffer;
+        /**
+         * 是否已作为解码结果交付
+         */
+        boolean delivered;
+
+        Assembly(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+    }
+
+    /**
+     * 按2的幂分级缓存拼装缓冲,每级最多保留少量空闲缓冲
+     */
+    private static final class FramePool {
+
+        private static final int MAX_IDLE_PER_CLASS = 4;
+
+        private final Queue<ByteBuffer>[] classes;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        FramePool() {
+            classes = new Queue[32];
+            for (int i = 0; i < classes.length; i++) {
+                classes[i] = new ConcurrentLinkedQueue<>();
+            }
+        }
+
+        ByteBuffer acquire(int size) {
+            int index = sizeClass(size);
+            ByteBuffer buffer = classes[index].poll();
+            if (buffer == null) {
+                buffer = ByteBuffer.allocate(index == 31 ? Integer.MAX_VALUE - 8 : 1 << index);
+            }
+            buffer.clear();
+            buffer.limit(size);
+            return buffer;
+        }
+
+        void release(ByteBuffer buffer) {
+            Queue<ByteBuffer> queue = classes[sizeClass(buffer.capacity())];
+            if (queue.size() < MAX_IDLE_PER_CLASS) {
+                queue.offer(buffer);
+            }
+        }
+
+        private static int sizeClass(int size) {
+            return size <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
+        }
+
+    }
+
+}
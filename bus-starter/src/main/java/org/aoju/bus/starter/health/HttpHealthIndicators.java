@@ -0,0 +1,109 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License                                                               *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.starter.health;
+
+import org.aoju.bus.http.metric.HttpMetrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 根据HTTP客户端请求统计检查运行时是否健康
+ * 任一主机的失败率超过阈值时视为未就绪
+ *
+ * @author Kimi Liu
+ * @version 5.8.6
+ * @since JDK 1.8+
+ */
+public class HttpHealthIndicators implements HealthIndicators {
+
+    private final HttpMetrics metrics;
+    /**
+     * 允许的最大失败率
+     */
+    private final double maxFailureRate;
+    /**
+     * 参与判断的最少调用次数
+     */
+    private final long minCalls;
+
+    public HttpHealthIndicators(HttpMetrics metrics) {
+        this(metrics, 0.5, 20);
+    }
+
+    public HttpHealthIndicators(HttpMetrics metrics, double maxFailureRate, long minCalls) {
+        this.metrics = metrics;
+        this.maxFailureRate = maxFailureRate;
+        this.minCalls = minCalls;
+    }
+
+    @Override
+    public boolean isReadinessHealth() {
+        for (HttpMetrics.Snapshot snapshot : metrics.snapshot().values()) {
+            if (snapshot.calls() >= minCalls && snapshot.failureRate() > maxFailureRate) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isLivenessHealth() {
+        return true;
+    }
+
+    /**
+     * 返回各主机的请求统计,用于健康检查接口输出
+     *
+     * @return 主机名与统计信息
+     */
+    public Map<String, Object> details() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        metrics.snapshot().forEach((host, snapshot) -> {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("calls", snapshot.calls());
+            item.put("failures", snapshot.failures());
+            item.put("poolHitRate", snapshot.poolHitRate());
+            item.put("bytesSent", snapshot.bytesSent());
+            item.put("bytesReceived", snapshot.bytesReceived());
+            for (HttpMetrics.Phase phase : HttpMetrics.Phase.values()) {
+                HttpMetrics.Histogram histogram = snapshot.phase(phase);
+                if (histogram.count() > 0) {
+                    Map<String, Object> timing = new LinkedHashMap<>();
+                    timing.put("count", histogram.count());
+                    timing.put("mean", histogram.mean(TimeUnit.MILLISECONDS));
+                    timing.put("p50", histogram.quantile(0.5, TimeUnit.MILLISECONDS));
+                    timing.put("p99", histogram.quantile(0.99, TimeUnit.MILLISECONDS));
+                    timing.put("max", histogram.max(TimeUnit.MILLISECONDS));
+                    item.put(phase.name().toLowerCase(), timing);
+                }
+            }
+            details.put(host, item);
+        });
+        return details;
+    }
+
+}
@@ -43,6 +43,37 @@ public class SocketProperties {
 
     private int workerGroupThreads = 0;
 
+    /**
+     * 事件处理器回调线程数
+     */
+    private int handlerThreads = 8;
+
     private String endPoint = "/ws";
 
+    /**
+     * Linux下使用epoll传输,不可用时回退到NIO
+     */
+    private boolean epoll = true;
+
+    /**
+     * 池化分配器是否优先使用直接内存
+     */
+    private boolean directBuffer = true;
+
+    private int backlog = 1024;
+
+    private boolean tcpNoDelay = true;
+
+    /**
+     * 写缓冲水位线,高水位为0时使用Netty默认值
+     */
+    private int writeBufferLowWaterMark = 0;
+
+    private int writeBufferHighWaterMark = 0;
+
+    /**
+     * 握手请求聚合的最大长度
+     */
+    private int maxContentLength = 8192;
+
 }
@@ -25,6 +25,7 @@
 package org.aoju.bus.starter.socket;
 
 import org.aoju.bus.core.thread.ThreadBuilder;
+import org.aoju.bus.socket.netty.SocketServer;
 import org.aoju.bus.socket.netty.SocketService;
 
 import java.util.concurrent.LinkedBlockingQueue;
@@ -48,7 +49,15 @@ public class WebSocketServerStarter {
     }
 
     public void start() {
-        executor.execute(() -> SocketService.start(properties.getPort(), properties.getBossGroupThreads(), properties.getWorkerGroupThreads(), properties.getEndPoint()));
+        SocketServer server = new SocketServer(properties.getPort(), properties.getBossGroupThreads(), properties.getWorkerGroupThreads(), properties.getEndPoint())
+                .setEpoll(properties.isEpoll())
+                .setDirectBuffer(properties.isDirectBuffer())
+                .setBacklog(properties.getBacklog())
+                .setTcpNoDelay(properties.isTcpNoDelay())
+                .setWriteBufferWaterMark(properties.getWriteBufferLowWaterMark(), properties.getWriteBufferHighWaterMark())
+                .setMaxContentLength(properties.getMaxContentLength())
+                .setHandlerThreads(properties.getHandlerThreads());
+        executor.execute(() -> SocketService.start(server));
     }
 
 }
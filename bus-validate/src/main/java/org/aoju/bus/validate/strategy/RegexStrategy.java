@@ -24,13 +24,12 @@
  ********************************************************************************/
 package org.aoju.bus.validate.strategy;
 
+import org.aoju.bus.core.utils.PatternUtils;
 import org.aoju.bus.core.utils.StringUtils;
 import org.aoju.bus.validate.Context;
 import org.aoju.bus.validate.annotation.Regex;
 import org.aoju.bus.validate.validators.Matcher;
 
-import java.util.regex.Pattern;
-
 /**
  * 正则匹配校验
  *
@@ -48,8 +47,7 @@ public class RegexStrategy implements Matcher<String, Regex> {
         if (regexValidate.zeroAble() && object.length() == 0) {
             return false;
         }
-        Pattern pattern = Pattern.compile(regexValidate.pattern());
-        return pattern.matcher(object).matches();
+        return PatternUtils.isMatch(PatternUtils.get(regexValidate.pattern()), object);
     }
 
 }